@@ -0,0 +1,71 @@
+package com.leveledcv.tokenAuthenticationLib.benchmark;
+
+import com.leveledcv.tokenAuthenticationLib.aspect.AuthenticationAspect;
+import com.leveledcv.tokenAuthenticationLib.config.AuthProperties;
+import com.leveledcv.tokenAuthenticationLib.context.AuthenticationContext;
+import com.leveledcv.tokenAuthenticationLib.metrics.AuthenticationMetrics;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import com.leveledcv.tokenAuthenticationLib.service.TokenVerificationService;
+import com.leveledcv.tokenAuthenticationLib.util.TokenHeaders;
+import com.leveledcv.tokenAuthenticationLib.verifier.TokenVerifier;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Per-request cost of the @RequireAuth aspect: header extraction, prefix handling and binding the user,
+ * with verification answered in memory so only the aspect itself is measured.
+ */
+@State(Scope.Thread)
+public class AspectBenchmark {
+
+    private static final String HEADER = "Bearer eyJhbGciOiJIUzI1NiJ9.c2Vzc2lvbi0xMjM0NTY3ODkw.c2lnbmF0dXJl";
+
+    private AuthenticationAspect aspect;
+    private ProceedingJoinPoint joinPoint;
+    private String prefix;
+    private MockHttpServletRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AuthProperties authProperties = new AuthProperties();
+        prefix = authProperties.getTokenPrefix();
+        TokenVerificationResponse user = new TokenVerificationResponse("alice", "alice@example.com", UserStatus.ACTIVE);
+        TokenVerifier verifier = token -> user;
+        TokenVerificationService service = TokenVerificationService.builder(authProperties, verifier).build();
+        aspect = new AuthenticationAspect(service, authProperties, AuthenticationMetrics.noop());
+        joinPoint = (ProceedingJoinPoint) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ProceedingJoinPoint.class}, (proxy, method, args) -> "ok");
+
+        request = new MockHttpServletRequest("GET", "/api/profile");
+        request.addHeader("Authorization", HEADER);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public String extractToken() {
+        return TokenHeaders.toToken(HEADER, prefix);
+    }
+
+    @Benchmark
+    public Object authenticate() throws Throwable {
+        // Each invocation stands for a new request, so the verification is not reused
+        request.removeAttribute(AuthenticationContext.REQUEST_ATTRIBUTE);
+        return aspect.authenticate(joinPoint, null);
+    }
+}
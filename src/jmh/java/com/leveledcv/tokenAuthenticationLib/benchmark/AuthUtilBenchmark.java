@@ -0,0 +1,40 @@
+package com.leveledcv.tokenAuthenticationLib.benchmark;
+
+import com.leveledcv.tokenAuthenticationLib.context.AuthenticationContext;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.User;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import com.leveledcv.tokenAuthenticationLib.util.AuthUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Cost of reading the authenticated user in a controller
+ */
+@State(Scope.Thread)
+public class AuthUtilBenchmark {
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AuthenticationContext.setCurrentUser(new TokenVerificationResponse("alice", "alice@example.com", UserStatus.ACTIVE));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        AuthenticationContext.clear();
+    }
+
+    @Benchmark
+    public User getUser() {
+        return AuthUtil.getUser();
+    }
+
+    @Benchmark
+    public String getUsername() {
+        return AuthUtil.getUsername();
+    }
+}
@@ -0,0 +1,69 @@
+package com.leveledcv.tokenAuthenticationLib.benchmark;
+
+import com.leveledcv.tokenAuthenticationLib.cache.InMemoryVerificationCache;
+import com.leveledcv.tokenAuthenticationLib.cache.VerificationCache;
+import com.leveledcv.tokenAuthenticationLib.config.AuthProperties;
+import com.leveledcv.tokenAuthenticationLib.config.AuthenticationAutoConfiguration;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import com.leveledcv.tokenAuthenticationLib.service.TokenVerificationService;
+import com.leveledcv.tokenAuthenticationLib.support.StubTokenServer;
+import com.leveledcv.tokenAuthenticationLib.verifier.RestTemplateTokenVerifier;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Verification through the real HTTP transport against an in-JVM stub of the verification service,
+ * with and without the verification cache
+ */
+@State(Scope.Benchmark)
+public class EndToEndVerificationBenchmark {
+
+    private static final String TOKEN = "Bearer benchmark-token";
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private StubTokenServer server;
+    private CloseableHttpClient httpClient;
+    private TokenVerificationService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new StubTokenServer()
+                .addUser(TOKEN, new TokenVerificationResponse("alice", "alice@example.com", UserStatus.ACTIVE));
+
+        AuthProperties authProperties = new AuthProperties();
+        AuthenticationAutoConfiguration configuration = new AuthenticationAutoConfiguration();
+        httpClient = configuration.tokenAuthHttpClient(authProperties);
+        RestTemplate restTemplate = configuration.tokenAuthRestTemplate(httpClient);
+
+        VerificationCache cache = cached
+                ? new InMemoryVerificationCache(10_000, Duration.ofMinutes(10)) : VerificationCache.disabled();
+        service = TokenVerificationService
+                .builder(authProperties, new RestTemplateTokenVerifier(restTemplate, server.verifyUrl()))
+                .verificationCache(cache)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        httpClient.close();
+        server.close();
+    }
+
+    @Benchmark
+    public TokenVerificationResponse verifyToken() {
+        return service.verifyToken(TOKEN);
+    }
+}
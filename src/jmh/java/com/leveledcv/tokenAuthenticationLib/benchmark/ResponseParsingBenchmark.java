@@ -0,0 +1,62 @@
+package com.leveledcv.tokenAuthenticationLib.benchmark;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import com.leveledcv.tokenAuthenticationLib.verifier.TokenResponseParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cost of turning a verification response body into a {@link TokenVerificationResponse},
+ * and of the {@link UserStatus} lookups it performs
+ */
+@State(Scope.Benchmark)
+public class ResponseParsingBenchmark {
+
+    private static final byte[] SUCCESS_BODY = ("{\"username\":\"alice.smith\",\"email\":\"alice.smith@example.com\","
+            + "\"status\":\"ACTIVE\",\"userId\":\"5f1c2a9e-8d3b-4e7a-9c1f-2b6d8e4a7c30\",\"roles\":[\"USER\",\"EDITOR\"],"
+            + "\"sessionCreatedAt\":\"2025-01-01T10:15:30Z\",\"lastSeen\":\"2025-01-01T11:02:11Z\"}")
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SESSION_NOT_FOUND_BODY = "{\"error\":\"Session not found\"}".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Full cost per verification: bytes straight to response and session expiry in one streaming pass
+     */
+    @Benchmark
+    public TokenResponseParser.Body readBody() throws IOException {
+        return TokenResponseParser.readBody(SUCCESS_BODY);
+    }
+
+    @Benchmark
+    public TokenResponseParser.Body readSessionNotFound() throws IOException {
+        return TokenResponseParser.readBody(SESSION_NOT_FOUND_BODY);
+    }
+
+    @Benchmark
+    public UserStatus statusValueOf() {
+        return UserStatus.valueOf("REQUIRES_ADDITIONAL_VERIFICATION");
+    }
+
+    @Benchmark
+    public UserStatus statusValueOfUnknown() {
+        try {
+            return UserStatus.valueOf("SOMETHING_NEW");
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public UserStatus statusFromName() {
+        return UserStatus.fromName("REQUIRES_ADDITIONAL_VERIFICATION");
+    }
+
+    @Benchmark
+    public UserStatus statusFromNameUnknown() {
+        return UserStatus.fromName("SOMETHING_NEW");
+    }
+}
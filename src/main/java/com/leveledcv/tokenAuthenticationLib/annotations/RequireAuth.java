@@ -13,4 +13,11 @@ import java.lang.annotation.Target;
 @Target({ElementType.METHOD, ElementType.TYPE})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface RequireAuth {
+
+    /**
+     * Time in milliseconds authentication may add to the request, including any verification call.
+     * Once it runs out, the last-known-good result is served if there is one, otherwise the request fails
+     * with 503. 0 for no limit; -1 uses auth.budget.default-timeout.
+     */
+    long timeoutMs() default -1;
 }
@@ -3,85 +3,141 @@ package com.leveledcv.tokenAuthenticationLib.aspect;
 import com.leveledcv.tokenAuthenticationLib.annotations.RequireAuth;
 import com.leveledcv.tokenAuthenticationLib.config.AuthProperties;
 import com.leveledcv.tokenAuthenticationLib.context.AuthenticationContext;
+import com.leveledcv.tokenAuthenticationLib.metrics.AuthenticationMetrics;
+import com.leveledcv.tokenAuthenticationLib.metrics.AuthenticationMetrics.AuthenticationOutcome;
+import com.leveledcv.tokenAuthenticationLib.metrics.AuthenticationMetrics.Rejection;
 import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.service.AdmissionRejectedException;
+import com.leveledcv.tokenAuthenticationLib.service.Deadline;
 import com.leveledcv.tokenAuthenticationLib.service.TokenVerificationService;
+import com.leveledcv.tokenAuthenticationLib.service.VerificationUnavailableException;
+import com.leveledcv.tokenAuthenticationLib.util.ClientAddresses;
+import com.leveledcv.tokenAuthenticationLib.util.TokenHeaders;
 import jakarta.servlet.http.HttpServletRequest;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.springframework.http.HttpStatus;
-import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.server.ResponseStatusException;
 
 /**
- * Aspect that handles authentication for methods annotated with @RequireAuth
+ * Aspect that handles authentication for methods annotated with @RequireAuth.
+ * WebFlux applications are handled by {@link com.leveledcv.tokenAuthenticationLib.reactive.RequireAuthWebFilter} instead.
  */
 @Aspect
-@Component
-@RequiredArgsConstructor
 @Slf4j
 public class AuthenticationAspect {
 
     private final TokenVerificationService tokenVerificationService;
     private final AuthProperties authProperties;
+    private final AuthenticationMetrics metrics;
+
+    public AuthenticationAspect(TokenVerificationService tokenVerificationService, AuthProperties authProperties,
+                                AuthenticationMetrics metrics) {
+        this.tokenVerificationService = tokenVerificationService;
+        this.authProperties = authProperties;
+        this.metrics = metrics;
+    }
 
     /**
-     * Intercepts methods annotated with @RequireAuth or classes annotated with @RequireAuth
+     * Intercepts methods annotated with @RequireAuth or classes annotated with @RequireAuth.
+     * The token is verified once per request; nested advised calls reuse the user bound by the outermost one.
      */
     @Around("@annotation(requireAuth) || @within(requireAuth)")
     public Object authenticate(ProceedingJoinPoint joinPoint, RequireAuth requireAuth) throws Throwable {
+        long start = System.nanoTime();
+        AuthenticationOutcome outcome = AuthenticationOutcome.ERROR;
+        TokenVerificationResponse userInfo;
         try {
-            // Get the current HTTP request
-            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
-            HttpServletRequest request = attributes.getRequest();
+            userInfo = authenticatedUser(requireAuth);
+            outcome = AuthenticationOutcome.AUTHENTICATED;
+        } catch (ResponseStatusException e) {
+            outcome = AuthenticationOutcome.of(e.getStatusCode());
+            throw e;
+        } finally {
+            metrics.authenticationFinished(start, outcome);
+        }
 
-            // Extract token from header
-            String authHeader = request.getHeader(authProperties.getTokenHeader());
-            if (authHeader == null || authHeader.isEmpty()) {
-                log.debug("No authorization header found");
-                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Authorization header is missing");
-            }
+        // Nested advised call: the outermost invocation bound this user and unbinds it when it exits
+        if (AuthenticationContext.getCurrentUser() == userInfo) {
+            return joinPoint.proceed();
+        }
 
-            // Remove token prefix if present
-            String token = authHeader;
-            if (authHeader.startsWith(authProperties.getTokenPrefix())) {
-                token = authHeader.substring(authProperties.getTokenPrefix().length()).trim();
-                // Add the prefix back for the verification call
-                token = authProperties.getTokenPrefix() + token;
-            }
+        // Proceed with the original method, with the user bound for its duration. Exceptions thrown by the
+        // method itself propagate unchanged.
+        return AuthenticationContext.callWithUser(userInfo, joinPoint::proceed);
+    }
 
-            if (token.isEmpty()) {
-                log.debug("Empty token found");
-                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Invalid authorization token");
-            }
+    /**
+     * @return the user of the current request, verifying the token on the first call only
+     */
+    private TokenVerificationResponse authenticatedUser(RequireAuth requireAuth) {
+        try {
+            // Get the current HTTP request
+            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+            HttpServletRequest request = attributes.getRequest();
 
-            // Verify token
-            TokenVerificationResponse userInfo = tokenVerificationService.verifyToken(token);
-            if (userInfo == null) {
-                log.debug("Token verification failed");
-                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Invalid or expired token");
+            // Reuse the verification if the request was already authenticated by RequireAuthFilter or an outer call
+            if (request.getAttribute(AuthenticationContext.REQUEST_ATTRIBUTE) instanceof TokenVerificationResponse verified) {
+                return verified;
             }
 
-            // Set user context for the current request
-            AuthenticationContext.setCurrentUser(userInfo);
-
+            TokenVerificationResponse userInfo = verify(request, requireAuth);
             log.debug("Authentication successful for user: {}", userInfo.getUsername());
-
-            // Proceed with the original method
-            return joinPoint.proceed();
+            request.setAttribute(AuthenticationContext.REQUEST_ATTRIBUTE, userInfo);
+            return userInfo;
 
         } catch (ResponseStatusException e) {
             throw e;
         } catch (Exception e) {
             log.error("Authentication error", e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Authentication service error");
-        } finally {
-            // Clear the context after request processing
-            AuthenticationContext.clear();
         }
     }
+
+    private TokenVerificationResponse verify(HttpServletRequest request, RequireAuth requireAuth) {
+        // Extract token from header
+        String authHeader = request.getHeader(authProperties.getTokenHeader());
+        if (authHeader == null || authHeader.isEmpty()) {
+            log.debug("No authorization header found");
+            metrics.rejected(Rejection.MISSING_HEADER);
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Authorization header is missing");
+        }
+
+        String token = TokenHeaders.toToken(authHeader, authProperties.getTokenPrefix());
+
+        // Blank credentials are rejected locally, without a verification call
+        if (token.isEmpty()) {
+            log.debug("Empty token found");
+            metrics.rejected(Rejection.EMPTY_TOKEN);
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Invalid authorization token");
+        }
+
+        // Verify token within the endpoint's time budget and the caller's deadline
+        Deadline deadline = Deadline.forRequest(requireAuth, authProperties.getBudget(), request::getHeader);
+        TokenVerificationResponse userInfo;
+        try {
+            userInfo = tokenVerificationService.verifyToken(token, deadline, clientAddress(request));
+        } catch (AdmissionRejectedException e) {
+            log.debug("Request throttled: {}", e.getDecision());
+            metrics.rejected(e.getDecision().getRejection());
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many authentication attempts");
+        } catch (VerificationUnavailableException e) {
+            log.warn("Token verification unavailable: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Authentication service unavailable");
+        }
+        if (userInfo == null) {
+            log.debug("Token verification failed");
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Invalid or expired token");
+        }
+        return userInfo;
+    }
+
+    private String clientAddress(HttpServletRequest request) {
+        String header = authProperties.getAdmission().getClientAddressHeader();
+        return ClientAddresses.resolve(header != null ? request.getHeader(header) : null, request.getRemoteAddr());
+    }
 }
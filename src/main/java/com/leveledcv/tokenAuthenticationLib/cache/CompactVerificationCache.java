@@ -0,0 +1,384 @@
+package com.leveledcv.tokenAuthenticationLib.cache;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Verification cache for very large session populations that keeps entries in primitive arrays instead of
+ * one object graph per token.
+ * <p>
+ * Each slot takes {@value #BYTES_PER_SLOT} bytes: the 128-bit token hash, the expiry as an int number of seconds
+ * since the cache was created, an int reference into a table of users and the status ordinal in a byte. A user's
+ * username and email are held once, however many tokens the user has. Tables are sized as powers of two at most
+ * three quarters full, so an entry costs between 34 and 67 bytes; {@link #footprintBytes(int)} gives the figure
+ * for a maximum size, about 420 MB for 10 million entries. Responses are built on demand by {@link #get}.
+ * <p>
+ * Eviction uses CLOCK, an approximation of least-recently-used: lookups mark an entry as referenced, and a full
+ * segment evicts the first expired or unreferenced entry after its clock hand, clearing marks as it passes.
+ * Expiry has a resolution of one second and is rounded down, so an entry never outlives its time-to-live.
+ */
+public class CompactVerificationCache implements VerificationCache {
+
+    /**
+     * Bytes of table space per slot: token hash, expiry, user reference and status
+     */
+    public static final int BYTES_PER_SLOT = 8 + 8 + 4 + 4 + 1;
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int STATUS_MASK = 0x3F;
+    private static final int REFERENCED = 0x40;
+    private static final UserStatus[] STATUSES = UserStatus.values();
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final UserTable users = new UserTable();
+    private final long baseMillis;
+    private final long ttlMillis;
+    private final double jitter;
+    private final long refreshAfterMillis;
+    private final Clock clock;
+
+    public CompactVerificationCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, Clock.systemUTC());
+    }
+
+    public CompactVerificationCache(int maxSize, Duration ttl, Clock clock) {
+        this(maxSize, ttl, 0, 1, clock);
+    }
+
+    /**
+     * @param jitter fraction of the TTL by which each entry's lifetime is randomly shortened, 0 for none
+     * @param refreshAhead fraction of the TTL after which a used entry should be revalidated, 1 for never
+     */
+    public CompactVerificationCache(int maxSize, Duration ttl, double jitter, double refreshAhead) {
+        this(maxSize, ttl, jitter, refreshAhead, Clock.systemUTC());
+    }
+
+    public CompactVerificationCache(int maxSize, Duration ttl, double jitter, double refreshAhead, Clock clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        int segmentCount = segmentCount(maxSize);
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        int perSegment = (maxSize + segmentCount - 1) / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        this.baseMillis = clock.millis();
+        this.ttlMillis = ttl.toMillis();
+        this.jitter = jitter;
+        this.refreshAfterMillis = refreshAhead < 1 ? (long) (ttlMillis * refreshAhead) : -1;
+        this.clock = clock;
+    }
+
+    /**
+     * @return the bytes of table space allocated for the given maximum size, excluding the user table
+     */
+    public static long footprintBytes(int maxSize) {
+        int segmentCount = segmentCount(maxSize);
+        int perSegment = (maxSize + segmentCount - 1) / segmentCount;
+        return (long) segmentCount * tableSize(perSegment) * BYTES_PER_SLOT;
+    }
+
+    @Override
+    public TokenVerificationResponse get(TokenKey key) {
+        int now = seconds(clock.millis());
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            int slot = segment.find(key.high(), key.low());
+            if (slot < 0) {
+                return null;
+            }
+            if (segment.expiry[slot] <= now) {
+                segment.removeAt(slot);
+                return null;
+            }
+            segment.status[slot] |= REFERENCED;
+            UserTable.UserRecord user = users.get(segment.user[slot]);
+            return new TokenVerificationResponse(user.username(), user.email(), status(segment.status[slot]));
+        }
+    }
+
+    @Override
+    public void put(TokenKey key, TokenVerificationResponse response) {
+        put(key, response, ttlMillis, null);
+    }
+
+    /**
+     * Entity tags are not kept, so entries are always revalidated unconditionally
+     */
+    @Override
+    public void put(TokenKey key, TokenVerificationResponse response, long ttlMillis, String etag) {
+        long now = clock.millis();
+        store(key, response, now + ttlMillis - jitter(ttlMillis), now, true);
+    }
+
+    @Override
+    public TokenVerificationResponse touch(TokenKey key, long ttlMillis) {
+        long now = clock.millis();
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            int slot = segment.find(key.high(), key.low());
+            if (slot < 0 || segment.expiry[slot] <= seconds(now)) {
+                return null;
+            }
+            segment.expiry[slot] = seconds(now + ttlMillis - jitter(ttlMillis));
+            UserTable.UserRecord user = users.get(segment.user[slot]);
+            return new TokenVerificationResponse(user.username(), user.email(), status(segment.status[slot]));
+        }
+    }
+
+    /**
+     * Restore an entry, e.g. from a snapshot, without replacing a newer one. Its lifetime is capped at the TTL.
+     * @param expiresAt expiry in epoch millis
+     * @return true if the entry was restored
+     */
+    public boolean restore(TokenKey key, TokenVerificationResponse response, long expiresAt) {
+        long now = clock.millis();
+        if (expiresAt <= now) {
+            return false;
+        }
+        return store(key, response, Math.min(expiresAt, now + ttlMillis), now, false);
+    }
+
+    @Override
+    public boolean needsRefresh(TokenKey key) {
+        if (refreshAfterMillis < 0) {
+            return false;
+        }
+        Segment segment = segmentFor(key);
+        long expiresAt;
+        synchronized (segment) {
+            int slot = segment.find(key.high(), key.low());
+            if (slot < 0) {
+                return false;
+            }
+            expiresAt = baseMillis + segment.expiry[slot] * 1000L;
+        }
+        long now = clock.millis();
+        return expiresAt > now && now >= expiresAt - ttlMillis + refreshAfterMillis;
+    }
+
+    @Override
+    public void invalidate(TokenKey key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            int slot = segment.find(key.high(), key.low());
+            if (slot >= 0) {
+                segment.removeAt(slot);
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public int invalidateUser(String username) {
+        int removed = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                int slot = 0;
+                while (slot < segment.user.length) {
+                    int user = segment.user[slot];
+                    if (user != 0 && username.equals(users.get(user).username())) {
+                        // Removal shifts a later entry into this slot, so look at it again
+                        segment.removeAt(slot);
+                        removed++;
+                    } else {
+                        slot++;
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.count;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of distinct users referenced by cached entries
+     */
+    public int getUserCount() {
+        return users.size();
+    }
+
+    private boolean store(TokenKey key, TokenVerificationResponse response, long expiresAt, long now,
+                          boolean replace) {
+        int user = users.intern(response.getUsername(), response.getEmail());
+        byte status = (byte) (response.getStatus() != null ? response.getStatus().ordinal() + 1 : 0);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            int slot = segment.find(key.high(), key.low());
+            if (slot >= 0) {
+                if (!replace && segment.expiry[slot] > seconds(now)) {
+                    users.release(user);
+                    return false;
+                }
+                users.release(segment.user[slot]);
+            } else {
+                slot = segment.insert(key.high(), key.low(), seconds(now));
+            }
+            segment.user[slot] = user;
+            segment.status[slot] = status;
+            segment.expiry[slot] = seconds(expiresAt);
+            return true;
+        }
+    }
+
+    private long jitter(long ttlMillis) {
+        long jitterMillis = (long) (ttlMillis * jitter);
+        return jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0;
+    }
+
+    /**
+     * @return whole seconds since the cache was created, rounded down
+     */
+    private int seconds(long epochMillis) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.floorDiv(epochMillis - baseMillis, 1000));
+    }
+
+    private static UserStatus status(byte code) {
+        int ordinal = (code & STATUS_MASK) - 1;
+        return ordinal >= 0 ? STATUSES[ordinal] : null;
+    }
+
+    private Segment segmentFor(TokenKey key) {
+        return segments[(int) (key.high() >>> 32) & segmentMask];
+    }
+
+    private static int segmentCount(int maxSize) {
+        return Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxSize));
+    }
+
+    /**
+     * @return the smallest power of two that holds the capacity at most three quarters full
+     */
+    private static int tableSize(int capacity) {
+        int size = 2;
+        while (size < capacity + capacity / 3 + 1) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    /**
+     * Open-addressing table with linear probing. Removal shifts later entries of the probe sequence back,
+     * so lookups never need tombstones. A user reference of 0 marks an empty slot.
+     */
+    private final class Segment {
+
+        private final long[] high;
+        private final long[] low;
+        private final int[] expiry;
+        private final int[] user;
+        private final byte[] status;
+        private final int mask;
+        private final int capacity;
+        private int count;
+        private int hand;
+
+        Segment(int capacity) {
+            int size = tableSize(capacity);
+            this.high = new long[size];
+            this.low = new long[size];
+            this.expiry = new int[size];
+            this.user = new int[size];
+            this.status = new byte[size];
+            this.mask = size - 1;
+            this.capacity = capacity;
+        }
+
+        int find(long keyHigh, long keyLow) {
+            for (int slot = home(keyLow); user[slot] != 0; slot = (slot + 1) & mask) {
+                if (high[slot] == keyHigh && low[slot] == keyLow) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Claim an empty slot for the key, evicting an entry first if the segment is full
+         */
+        int insert(long keyHigh, long keyLow, int now) {
+            if (count >= capacity) {
+                evict(now);
+            }
+            int slot = home(keyLow);
+            while (user[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            high[slot] = keyHigh;
+            low[slot] = keyLow;
+            count++;
+            return slot;
+        }
+
+        private void evict(int now) {
+            while (true) {
+                int slot = hand;
+                if (user[slot] != 0) {
+                    if (expiry[slot] <= now || (status[slot] & REFERENCED) == 0) {
+                        removeAt(slot);
+                        return;
+                    }
+                    status[slot] &= ~REFERENCED;
+                }
+                hand = (slot + 1) & mask;
+            }
+        }
+
+        void removeAt(int slot) {
+            users.release(user[slot]);
+            count--;
+            int gap = slot;
+            for (int next = (slot + 1) & mask; user[next] != 0; next = (next + 1) & mask) {
+                // The entry may fill the gap only if the gap lies between its home slot and its current slot
+                if (((next - home(low[next])) & mask) >= ((next - gap) & mask)) {
+                    high[gap] = high[next];
+                    low[gap] = low[next];
+                    expiry[gap] = expiry[next];
+                    user[gap] = user[next];
+                    status[gap] = status[next];
+                    gap = next;
+                }
+            }
+            user[gap] = 0;
+        }
+
+        void clear() {
+            for (int slot = 0; slot < user.length; slot++) {
+                if (user[slot] != 0) {
+                    users.release(user[slot]);
+                    user[slot] = 0;
+                }
+            }
+            count = 0;
+        }
+
+        private int home(long keyLow) {
+            return (int) keyLow & mask;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.leveledcv.tokenAuthenticationLib.cache;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+
+/**
+ * No-op cache used when caching is turned off
+ */
+final class DisabledVerificationCache implements VerificationCache {
+
+    static final DisabledVerificationCache INSTANCE = new DisabledVerificationCache();
+
+    private DisabledVerificationCache() {
+    }
+
+    @Override
+    public TokenVerificationResponse get(TokenKey key) {
+        return null;
+    }
+
+    @Override
+    public void put(TokenKey key, TokenVerificationResponse response) {
+    }
+
+    @Override
+    public void invalidate(TokenKey key) {
+    }
+
+    @Override
+    public void invalidateAll() {
+    }
+
+    @Override
+    public int size() {
+        return 0;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+}
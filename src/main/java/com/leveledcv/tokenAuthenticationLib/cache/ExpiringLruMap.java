@@ -0,0 +1,205 @@
+package com.leveledcv.tokenAuthenticationLib.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Bounded map with per-entry expiry and least-recently-used eviction.
+ * Entries are spread over independently locked segments so concurrent lookups
+ * for different keys rarely contend.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class ExpiringLruMap<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+
+    @SuppressWarnings("unchecked")
+    public ExpiringLruMap(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        int segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxSize));
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        int perSegment = (maxSize + segmentCount - 1) / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(perSegment);
+        }
+    }
+
+    /**
+     * Get a live value, dropping it if it has expired
+     * @param key the key
+     * @param now current time in epoch millis
+     * @return the value, or null if absent or expired
+     */
+    public V get(K key, long now) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Node<V> node = segment.get(key);
+            if (node == null) {
+                return null;
+            }
+            if (node.expiresAt <= now) {
+                segment.remove(key);
+                return null;
+            }
+            return node.value;
+        }
+    }
+
+    /**
+     * Store a value until the given expiry, evicting the least recently used entry if the segment is full
+     */
+    public void put(K key, V value, long expiresAt) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, new Node<>(value, expiresAt));
+        }
+    }
+
+    /**
+     * Store a value unless a live entry already exists for the key
+     * @param now current time in epoch millis
+     * @return true if the value was stored
+     */
+    public boolean putIfAbsent(K key, V value, long expiresAt, long now) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Node<V> node = segment.get(key);
+            if (node != null && node.expiresAt > now) {
+                return false;
+            }
+            segment.put(key, new Node<>(value, expiresAt));
+            return true;
+        }
+    }
+
+    /**
+     * Move the expiry of a live entry
+     * @param now current time in epoch millis
+     * @return the value, or null if absent or expired
+     */
+    public V extend(K key, long expiresAt, long now) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Node<V> node = segment.get(key);
+            if (node == null || node.expiresAt <= now) {
+                return null;
+            }
+            segment.put(key, new Node<>(node.value, expiresAt));
+            return node.value;
+        }
+    }
+
+    /**
+     * @return the expiry of the entry in epoch millis, or -1 if absent
+     */
+    public long expiresAt(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Node<V> node = segment.get(key);
+            return node != null ? node.expiresAt : -1;
+        }
+    }
+
+    public void remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    /**
+     * Remove every entry whose value matches the predicate
+     * @return the number of entries removed
+     */
+    public int removeIf(Predicate<? super V> predicate) {
+        int removed = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                Iterator<Node<V>> it = segment.values().iterator();
+                while (it.hasNext()) {
+                    if (predicate.test(it.next().value)) {
+                        it.remove();
+                        removed++;
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Visit every live entry together with its expiry
+     */
+    public void forEach(long now, EntryVisitor<? super K, ? super V> visitor) {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                for (Map.Entry<K, Node<V>> entry : segment.entrySet()) {
+                    Node<V> node = entry.getValue();
+                    if (node.expiresAt > now) {
+                        visitor.visit(entry.getKey(), node.value, node.expiresAt);
+                    }
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Variant of {@link java.util.function.BiConsumer} that also receives the entry expiry
+     */
+    @FunctionalInterface
+    public interface EntryVisitor<K, V> {
+        void visit(K key, V value, long expiresAt);
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+
+    private record Node<V>(V value, long expiresAt) {
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, Node<V>> {
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Node<V>> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.leveledcv.tokenAuthenticationLib.cache;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * On-heap verification cache with a time-to-live and least-recently-used eviction.
+ * Each entry's lifetime can be shortened by a random jitter so entries written together do not
+ * all expire, and get revalidated, at the same moment. Entries cached with a lifetime set by the verification
+ * service keep it, and their entity tag, for revalidation.
+ */
+public class InMemoryVerificationCache implements VerificationCache {
+
+    private final ExpiringLruMap<TokenKey, Entry> entries;
+    private final long ttlMillis;
+    private final double jitter;
+    private final double refreshAhead;
+    private final Clock clock;
+
+    public InMemoryVerificationCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, Clock.systemUTC());
+    }
+
+    public InMemoryVerificationCache(int maxSize, Duration ttl, Clock clock) {
+        this(maxSize, ttl, 0, 1, clock);
+    }
+
+    /**
+     * @param jitter fraction of the TTL by which each entry's lifetime is randomly shortened, 0 for none
+     * @param refreshAhead fraction of the TTL after which a used entry should be revalidated, 1 for never
+     */
+    public InMemoryVerificationCache(int maxSize, Duration ttl, double jitter, double refreshAhead) {
+        this(maxSize, ttl, jitter, refreshAhead, Clock.systemUTC());
+    }
+
+    public InMemoryVerificationCache(int maxSize, Duration ttl, double jitter, double refreshAhead, Clock clock) {
+        this.entries = new ExpiringLruMap<>(maxSize);
+        this.ttlMillis = ttl.toMillis();
+        this.jitter = jitter;
+        this.refreshAhead = refreshAhead;
+        this.clock = clock;
+    }
+
+    @Override
+    public TokenVerificationResponse get(TokenKey key) {
+        Entry entry = entries.get(key, clock.millis());
+        return entry != null ? entry.response() : null;
+    }
+
+    @Override
+    public void put(TokenKey key, TokenVerificationResponse response) {
+        put(key, response, ttlMillis, null);
+    }
+
+    @Override
+    public void put(TokenKey key, TokenVerificationResponse response, long ttlMillis, String etag) {
+        entries.put(key, new Entry(response, ttlMillis, etag), clock.millis() + ttlMillis - jitter(ttlMillis));
+    }
+
+    @Override
+    public String etag(TokenKey key) {
+        Entry entry = entries.get(key, clock.millis());
+        return entry != null ? entry.etag() : null;
+    }
+
+    @Override
+    public TokenVerificationResponse touch(TokenKey key, long ttlMillis) {
+        long now = clock.millis();
+        Entry entry = entries.extend(key, now + ttlMillis - jitter(ttlMillis), now);
+        return entry != null ? entry.response() : null;
+    }
+
+    /**
+     * Restore an entry, e.g. from a snapshot, without replacing a newer one. Its lifetime is capped at the TTL.
+     * @param expiresAt expiry in epoch millis
+     * @return true if the entry was restored
+     */
+    public boolean restore(TokenKey key, TokenVerificationResponse response, long expiresAt) {
+        long now = clock.millis();
+        if (expiresAt <= now) {
+            return false;
+        }
+        return entries.putIfAbsent(key, new Entry(response, ttlMillis, null), Math.min(expiresAt, now + ttlMillis), now);
+    }
+
+    /**
+     * Visit every live entry together with its expiry in epoch millis
+     */
+    public void forEach(ExpiringLruMap.EntryVisitor<? super TokenKey, ? super TokenVerificationResponse> visitor) {
+        entries.forEach(clock.millis(), (key, entry, expiresAt) -> visitor.visit(key, entry.response(), expiresAt));
+    }
+
+    @Override
+    public boolean needsRefresh(TokenKey key) {
+        if (refreshAhead >= 1) {
+            return false;
+        }
+        long now = clock.millis();
+        Entry entry = entries.get(key, now);
+        if (entry == null) {
+            return false;
+        }
+        long expiresAt = entries.expiresAt(key);
+        // The refresh point moves with the entry's jitter, so refreshes are spread out as well
+        return expiresAt > now && now >= expiresAt - entry.ttlMillis() + (long) (entry.ttlMillis() * refreshAhead);
+    }
+
+    @Override
+    public void invalidate(TokenKey key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    @Override
+    public int invalidateUser(String username) {
+        return entries.removeIf(entry -> username.equals(entry.response().getUsername()));
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    private long jitter(long ttlMillis) {
+        long jitterMillis = (long) (ttlMillis * jitter);
+        return jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0;
+    }
+
+    private record Entry(TokenVerificationResponse response, long ttlMillis, String etag) {
+    }
+}
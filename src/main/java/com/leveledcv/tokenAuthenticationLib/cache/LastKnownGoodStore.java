@@ -0,0 +1,86 @@
+package com.leveledcv.tokenAuthenticationLib.cache;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Bounded store of recent successful verifications, served only while the verification service is
+ * unavailable. Entries outlive the {@link VerificationCache} TTL, up to a maximum staleness.
+ */
+public class LastKnownGoodStore {
+
+    private static final LastKnownGoodStore DISABLED = new LastKnownGoodStore();
+
+    private final ExpiringLruMap<TokenKey, TokenVerificationResponse> entries;
+    private final long maxStalenessMillis;
+    private final Clock clock;
+
+    public LastKnownGoodStore(int maxSize, Duration maxStaleness) {
+        this(maxSize, maxStaleness, Clock.systemUTC());
+    }
+
+    public LastKnownGoodStore(int maxSize, Duration maxStaleness, Clock clock) {
+        this.entries = new ExpiringLruMap<>(maxSize);
+        this.maxStalenessMillis = maxStaleness.toMillis();
+        this.clock = clock;
+    }
+
+    private LastKnownGoodStore() {
+        this.entries = null;
+        this.maxStalenessMillis = 0;
+        this.clock = null;
+    }
+
+    /**
+     * @return a store that never remembers anything
+     */
+    public static LastKnownGoodStore disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * @return the last successful verification of the token, or null if none is recent enough
+     */
+    public TokenVerificationResponse get(TokenKey key) {
+        return entries != null ? entries.get(key, clock.millis()) : null;
+    }
+
+    /**
+     * Remember a successful verification
+     */
+    public void put(TokenKey key, TokenVerificationResponse response) {
+        if (entries != null) {
+            entries.put(key, response, clock.millis() + maxStalenessMillis);
+        }
+    }
+
+    public void invalidate(TokenKey key) {
+        if (entries != null) {
+            entries.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        if (entries != null) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Forget every verification of the given user
+     * @return the number of entries removed
+     */
+    public int invalidateUser(String username) {
+        return entries != null ? entries.removeIf(response -> username.equals(response.getUsername())) : 0;
+    }
+
+    public int size() {
+        return entries != null ? entries.size() : 0;
+    }
+
+    public boolean isEnabled() {
+        return entries != null;
+    }
+}
@@ -0,0 +1,77 @@
+package com.leveledcv.tokenAuthenticationLib.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Short-lived cache of tokens the verification service has rejected.
+ * Kept separate from the {@link VerificationCache} so a flood of bad tokens
+ * can only evict other bad tokens, never successful verifications.
+ */
+public class NegativeVerificationCache {
+
+    private static final NegativeVerificationCache DISABLED = new NegativeVerificationCache();
+
+    private final ExpiringLruMap<TokenKey, Boolean> entries;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    public NegativeVerificationCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, Clock.systemUTC());
+    }
+
+    public NegativeVerificationCache(int maxSize, Duration ttl, Clock clock) {
+        this.entries = new ExpiringLruMap<>(maxSize);
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    private NegativeVerificationCache() {
+        this.entries = null;
+        this.ttlMillis = 0;
+        this.clock = null;
+    }
+
+    /**
+     * @return a cache that never remembers anything
+     */
+    public static NegativeVerificationCache disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * @return true if the token was rejected recently
+     */
+    public boolean contains(TokenKey key) {
+        return entries != null && entries.get(key, clock.millis()) != null;
+    }
+
+    /**
+     * Remember that the token was rejected
+     */
+    public void put(TokenKey key) {
+        if (entries != null) {
+            entries.put(key, Boolean.TRUE, clock.millis() + ttlMillis);
+        }
+    }
+
+    public void invalidate(TokenKey key) {
+        if (entries != null) {
+            entries.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        if (entries != null) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        return entries != null ? entries.size() : 0;
+    }
+
+    public boolean isEnabled() {
+        return entries != null;
+    }
+}
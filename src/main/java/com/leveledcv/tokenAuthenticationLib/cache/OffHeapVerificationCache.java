@@ -0,0 +1,492 @@
+package com.leveledcv.tokenAuthenticationLib.cache;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Verification cache held outside the Java heap in direct byte buffers, so the garbage collector neither scans
+ * nor copies it however many sessions are cached. The heap cost is a fixed few hundred bytes.
+ * <p>
+ * The configured capacity is split into independently locked segments. Each segment is one buffer holding an
+ * open-addressing table of {@value #RECORD_BYTES}-byte records (token hash, expiry in seconds since the cache
+ * was created, status ordinal, and the offset and lengths of the user's username and email) followed by an
+ * arena the strings are appended to. The table takes at most half of the segment and is kept at most three
+ * quarters full. When the arena fills up, live strings are compacted to its start; when that is not enough,
+ * or the table is full, entries are evicted by a CLOCK sweep that spares recently read entries.
+ * <p>
+ * Direct memory is limited by {@code -XX:MaxDirectMemorySize}, which must cover the capacity. It is released
+ * when the cache itself is garbage collected.
+ */
+public class OffHeapVerificationCache implements VerificationCache {
+
+    /**
+     * Bytes per table record
+     */
+    public static final int RECORD_BYTES = 32;
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_BYTES = 4096;
+    private static final int MAX_SEGMENT_BYTES = Integer.MAX_VALUE - 8;
+    private static final int NULL_LENGTH = 0xFFFF;
+
+    private static final int HIGH = 0;
+    private static final int LOW = 8;
+    private static final int EXPIRY = 16;
+    private static final int OFFSET = 20;
+    private static final int USERNAME_LENGTH = 24;
+    private static final int EMAIL_LENGTH = 26;
+    private static final int STATUS = 28;
+    private static final int FLAGS = 29;
+
+    private static final byte OCCUPIED = 1;
+    private static final byte REFERENCED = 2;
+    private static final UserStatus[] STATUSES = UserStatus.values();
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final long baseMillis;
+    private final long ttlMillis;
+    private final double jitter;
+    private final long refreshAfterMillis;
+    private final Clock clock;
+
+    public OffHeapVerificationCache(long capacityBytes, Duration ttl) {
+        this(capacityBytes, ttl, Clock.systemUTC());
+    }
+
+    public OffHeapVerificationCache(long capacityBytes, Duration ttl, Clock clock) {
+        this(capacityBytes, ttl, 0, 1, clock);
+    }
+
+    /**
+     * @param capacityBytes direct memory to allocate for records and strings
+     * @param jitter fraction of the TTL by which each entry's lifetime is randomly shortened, 0 for none
+     * @param refreshAhead fraction of the TTL after which a used entry should be revalidated, 1 for never
+     */
+    public OffHeapVerificationCache(long capacityBytes, Duration ttl, double jitter, double refreshAhead) {
+        this(capacityBytes, ttl, jitter, refreshAhead, Clock.systemUTC());
+    }
+
+    public OffHeapVerificationCache(long capacityBytes, Duration ttl, double jitter, double refreshAhead,
+                                    Clock clock) {
+        if (capacityBytes < MIN_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("capacityBytes must be at least " + MIN_SEGMENT_BYTES);
+        }
+        int segmentCount = (int) Math.min(MAX_SEGMENTS, Long.highestOneBit(capacityBytes / MIN_SEGMENT_BYTES));
+        long perSegment = capacityBytes / segmentCount;
+        if (perSegment > MAX_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("capacityBytes must be at most " + (long) MAX_SEGMENT_BYTES * MAX_SEGMENTS);
+        }
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment((int) perSegment);
+        }
+        this.baseMillis = clock.millis();
+        this.ttlMillis = ttl.toMillis();
+        this.jitter = jitter;
+        this.refreshAfterMillis = refreshAhead < 1 ? (long) (ttlMillis * refreshAhead) : -1;
+        this.clock = clock;
+    }
+
+    @Override
+    public TokenVerificationResponse get(TokenKey key) {
+        int now = seconds(clock.millis());
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            int record = segment.find(key.high(), key.low());
+            if (record < 0) {
+                return null;
+            }
+            ByteBuffer buffer = segment.buffer;
+            if (buffer.getInt(record + EXPIRY) <= now) {
+                segment.removeAt(record);
+                return null;
+            }
+            buffer.put(record + FLAGS, (byte) (OCCUPIED | REFERENCED));
+            return segment.read(record);
+        }
+    }
+
+    @Override
+    public TokenVerificationResponse touch(TokenKey key, long ttlMillis) {
+        long now = clock.millis();
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            int record = segment.find(key.high(), key.low());
+            if (record < 0 || segment.buffer.getInt(record + EXPIRY) <= seconds(now)) {
+                return null;
+            }
+            segment.buffer.putInt(record + EXPIRY, seconds(now + ttlMillis - jitter(ttlMillis)));
+            return segment.read(record);
+        }
+    }
+
+    @Override
+    public void put(TokenKey key, TokenVerificationResponse response) {
+        put(key, response, ttlMillis, null);
+    }
+
+    /**
+     * Entity tags are not kept, so entries are always revalidated unconditionally
+     */
+    @Override
+    public void put(TokenKey key, TokenVerificationResponse response, long ttlMillis, String etag) {
+        byte[] username = bytes(response.getUsername());
+        byte[] email = bytes(response.getEmail());
+        int stringBytes = length(username) + length(email);
+        if (!fits(username) || !fits(email)) {
+            return;
+        }
+        long now = clock.millis();
+        int expiry = seconds(now + ttlMillis - jitter(ttlMillis));
+        byte status = (byte) (response.getStatus() != null ? response.getStatus().ordinal() + 1 : 0);
+
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            if (stringBytes > segment.arenaEnd - segment.arenaStart) {
+                return;
+            }
+            int existing = segment.find(key.high(), key.low());
+            if (existing >= 0) {
+                segment.removeAt(existing);
+            }
+            int offset = segment.allocate(stringBytes, seconds(now));
+            segment.writeString(offset, username);
+            segment.writeString(offset + length(username), email);
+            int record = segment.insert(key.high(), key.low(), seconds(now));
+            ByteBuffer buffer = segment.buffer;
+            buffer.putInt(record + EXPIRY, expiry);
+            buffer.putInt(record + OFFSET, offset);
+            buffer.putChar(record + USERNAME_LENGTH, (char) (username != null ? username.length : NULL_LENGTH));
+            buffer.putChar(record + EMAIL_LENGTH, (char) (email != null ? email.length : NULL_LENGTH));
+            buffer.put(record + STATUS, status);
+            buffer.put(record + FLAGS, OCCUPIED);
+        }
+    }
+
+    @Override
+    public boolean needsRefresh(TokenKey key) {
+        if (refreshAfterMillis < 0) {
+            return false;
+        }
+        Segment segment = segmentFor(key);
+        long expiresAt;
+        synchronized (segment) {
+            int record = segment.find(key.high(), key.low());
+            if (record < 0) {
+                return false;
+            }
+            expiresAt = baseMillis + segment.buffer.getInt(record + EXPIRY) * 1000L;
+        }
+        long now = clock.millis();
+        return expiresAt > now && now >= expiresAt - ttlMillis + refreshAfterMillis;
+    }
+
+    @Override
+    public void invalidate(TokenKey key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            int record = segment.find(key.high(), key.low());
+            if (record >= 0) {
+                segment.removeAt(record);
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public int invalidateUser(String username) {
+        byte[] target = username.getBytes(StandardCharsets.UTF_8);
+        int removed = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                int record = 0;
+                while (record < segment.arenaStart) {
+                    if (segment.isOccupied(record) && segment.usernameEquals(record, target)) {
+                        // Removal shifts a later record into this one, so look at it again
+                        segment.removeAt(record);
+                        removed++;
+                    } else {
+                        record += RECORD_BYTES;
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.count;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the direct memory allocated by this cache in bytes
+     */
+    public long getCapacityBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.buffer.capacity();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the number of entries the tables hold before evicting, if strings do not fill the arenas first
+     */
+    public int getMaxEntries() {
+        int entries = 0;
+        for (Segment segment : segments) {
+            entries += segment.maxEntries;
+        }
+        return entries;
+    }
+
+    private long jitter(long ttlMillis) {
+        long jitterMillis = (long) (ttlMillis * jitter);
+        return jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0;
+    }
+
+    private int seconds(long epochMillis) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.floorDiv(epochMillis - baseMillis, 1000));
+    }
+
+    private Segment segmentFor(TokenKey key) {
+        return segments[(int) (key.high() >>> 32) & segmentMask];
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static boolean fits(byte[] value) {
+        return value == null || value.length < NULL_LENGTH;
+    }
+
+    private static int length(byte[] value) {
+        return value != null ? value.length : 0;
+    }
+
+    private static int length(int storedLength) {
+        return storedLength == NULL_LENGTH ? 0 : storedLength;
+    }
+
+    /**
+     * One direct buffer: a linear-probing table of records at the start, the string arena after it.
+     * Removal shifts later records of the probe sequence back, so lookups never need tombstones.
+     */
+    private static final class Segment {
+
+        private final ByteBuffer buffer;
+        private final int mask;
+        private final int maxEntries;
+        private final int arenaStart;
+        private final int arenaEnd;
+        private int arenaTop;
+        private int arenaLive;
+        private int count;
+        private int hand;
+
+        Segment(int bytes) {
+            int slots = Integer.highestOneBit(bytes / 2 / RECORD_BYTES);
+            this.buffer = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+            this.mask = slots - 1;
+            this.maxEntries = slots - slots / 4;
+            this.arenaStart = slots * RECORD_BYTES;
+            this.arenaEnd = bytes;
+            this.arenaTop = arenaStart;
+        }
+
+        int find(long high, long low) {
+            for (int slot = home(low); isOccupied(slot * RECORD_BYTES); slot = (slot + 1) & mask) {
+                int record = slot * RECORD_BYTES;
+                if (buffer.getLong(record + HIGH) == high && buffer.getLong(record + LOW) == low) {
+                    return record;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Claim an empty record for the key, evicting an entry first if the table is full
+         */
+        int insert(long high, long low, int now) {
+            while (count >= maxEntries) {
+                evict(now);
+            }
+            int slot = home(low);
+            while (isOccupied(slot * RECORD_BYTES)) {
+                slot = (slot + 1) & mask;
+            }
+            int record = slot * RECORD_BYTES;
+            buffer.putLong(record + HIGH, high);
+            buffer.putLong(record + LOW, low);
+            buffer.put(record + FLAGS, OCCUPIED);
+            count++;
+            return record;
+        }
+
+        /**
+         * Reserve arena space, compacting the arena or evicting entries when it is full
+         * @return the offset of the reserved space
+         */
+        int allocate(int length, int now) {
+            while (arenaEnd - arenaStart - arenaLive < length) {
+                evict(now);
+            }
+            if (arenaEnd - arenaTop < length) {
+                compact();
+            }
+            int offset = arenaTop;
+            arenaTop += length;
+            arenaLive += length;
+            return offset;
+        }
+
+        /**
+         * Remove the first expired or unreferenced entry after the clock hand, clearing reference marks it passes
+         */
+        private void evict(int now) {
+            while (true) {
+                int record = hand * RECORD_BYTES;
+                byte flags = buffer.get(record + FLAGS);
+                if (flags != 0) {
+                    if (buffer.getInt(record + EXPIRY) <= now || (flags & REFERENCED) == 0) {
+                        removeAt(record);
+                        return;
+                    }
+                    buffer.put(record + FLAGS, OCCUPIED);
+                }
+                hand = (hand + 1) & mask;
+            }
+        }
+
+        void removeAt(int record) {
+            arenaLive -= stringBytes(record);
+            count--;
+            int gap = record / RECORD_BYTES;
+            for (int next = (gap + 1) & mask; isOccupied(next * RECORD_BYTES); next = (next + 1) & mask) {
+                // The record may fill the gap only if the gap lies between its home slot and its current slot
+                int home = home(buffer.getLong(next * RECORD_BYTES + LOW));
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    for (int i = 0; i < RECORD_BYTES; i += Long.BYTES) {
+                        buffer.putLong(gap * RECORD_BYTES + i, buffer.getLong(next * RECORD_BYTES + i));
+                    }
+                    gap = next;
+                }
+            }
+            buffer.put(gap * RECORD_BYTES + FLAGS, (byte) 0);
+        }
+
+        /**
+         * Move the strings of live entries to the start of the arena, in their current order
+         */
+        private void compact() {
+            long[] live = new long[count];
+            int found = 0;
+            for (int record = 0; record < arenaStart; record += RECORD_BYTES) {
+                if (isOccupied(record)) {
+                    live[found++] = (long) buffer.getInt(record + OFFSET) << 32 | record;
+                }
+            }
+            Arrays.sort(live, 0, found);
+            byte[] scratch = new byte[2 * NULL_LENGTH];
+            int top = arenaStart;
+            for (int i = 0; i < found; i++) {
+                int record = (int) live[i];
+                int offset = (int) (live[i] >>> 32);
+                int length = stringBytes(record);
+                if (offset != top) {
+                    buffer.get(offset, scratch, 0, length);
+                    buffer.put(top, scratch, 0, length);
+                    buffer.putInt(record + OFFSET, top);
+                }
+                top += length;
+            }
+            arenaTop = top;
+        }
+
+        void clear() {
+            for (int record = 0; record < arenaStart; record += RECORD_BYTES) {
+                buffer.put(record + FLAGS, (byte) 0);
+            }
+            count = 0;
+            arenaTop = arenaStart;
+            arenaLive = 0;
+            hand = 0;
+        }
+
+        boolean isOccupied(int record) {
+            return buffer.get(record + FLAGS) != 0;
+        }
+
+        boolean usernameEquals(int record, byte[] username) {
+            if (buffer.getChar(record + USERNAME_LENGTH) != username.length) {
+                return false;
+            }
+            int offset = buffer.getInt(record + OFFSET);
+            for (int i = 0; i < username.length; i++) {
+                if (buffer.get(offset + i) != username[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        TokenVerificationResponse read(int record) {
+            int offset = buffer.getInt(record + OFFSET);
+            int usernameLength = buffer.getChar(record + USERNAME_LENGTH);
+            int emailLength = buffer.getChar(record + EMAIL_LENGTH);
+            String username = readString(offset, usernameLength);
+            String email = readString(offset + length(usernameLength), emailLength);
+            int status = buffer.get(record + STATUS) - 1;
+            return new TokenVerificationResponse(username, email, status >= 0 ? STATUSES[status] : null);
+        }
+
+        private String readString(int offset, int length) {
+            if (length == NULL_LENGTH) {
+                return null;
+            }
+            byte[] value = new byte[length];
+            buffer.get(offset, value);
+            return new String(value, StandardCharsets.UTF_8);
+        }
+
+        void writeString(int offset, byte[] value) {
+            if (value != null) {
+                buffer.put(offset, value);
+            }
+        }
+
+        private int stringBytes(int record) {
+            return length(buffer.getChar(record + USERNAME_LENGTH)) + length(buffer.getChar(record + EMAIL_LENGTH));
+        }
+
+        private int home(long low) {
+            return (int) low & mask;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.leveledcv.tokenAuthenticationLib.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Fixed-width cache key derived from a token.
+ * The raw token is never stored; only the first 128 bits of its SHA-256 digest are kept.
+ */
+public record TokenKey(long high, long low) {
+
+    /**
+     * Hash the given credential into a cache key
+     * @param credential the token value (without the configured prefix)
+     * @return the key for the credential
+     */
+    public static TokenKey of(String credential) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(credential.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            return new TokenKey(buffer.getLong(), buffer.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Hash the credential part of a token, ignoring the token prefix, whose scheme name is matched
+     * case-insensitively as in HTTP, so "Bearer abc", "bearer abc" and "abc" share one key
+     * @param token the token as sent in the authorization header
+     * @param prefix the configured token prefix, may be null
+     * @return the key for the credential
+     */
+    public static TokenKey of(String token, String prefix) {
+        if (prefix != null && token.regionMatches(true, 0, prefix, 0, prefix.length())) {
+            return of(token.substring(prefix.length()).trim());
+        }
+        return of(token.trim());
+    }
+
+    /**
+     * Parse a key from its hexadecimal representation
+     * @param hex 32 hexadecimal characters as produced by {@link #toHex()}
+     * @return the parsed key
+     */
+    public static TokenKey fromHex(String hex) {
+        if (hex == null || hex.length() != 32) {
+            throw new IllegalArgumentException("Token hash must be 32 hex characters");
+        }
+        return new TokenKey(HexFormat.fromHexDigitsToLong(hex, 0, 16), HexFormat.fromHexDigitsToLong(hex, 16, 32));
+    }
+
+    /**
+     * @return the key as 32 lowercase hexadecimal characters
+     */
+    public String toHex() {
+        HexFormat hex = HexFormat.of();
+        return hex.toHexDigits(high) + hex.toHexDigits(low);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high);
+    }
+
+    @Override
+    public String toString() {
+        return "TokenKey[" + toHex() + "]";
+    }
+}
@@ -0,0 +1,76 @@
+package com.leveledcv.tokenAuthenticationLib.cache;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reference-counted table of the users held by a {@link CompactVerificationCache}, so every token of a user
+ * shares one username and email. Ids start at 1; 0 marks an empty cache slot.
+ * <p>
+ * {@link #get(int)} takes no lock: callers read a record only for an entry they hold the segment lock of,
+ * and that entry's reference keeps the id from being released and reused.
+ */
+final class UserTable {
+
+    private final Map<UserRecord, Integer> ids = new HashMap<>();
+    private volatile UserRecord[] records = new UserRecord[64];
+    private int[] references = new int[64];
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    private int nextId = 1;
+
+    /**
+     * Look up or add the user and take a reference to it
+     * @return the user's id
+     */
+    synchronized int intern(String username, String email) {
+        UserRecord record = new UserRecord(username, email);
+        Integer existing = ids.get(record);
+        if (existing != null) {
+            references[existing]++;
+            return existing;
+        }
+        int id = freeCount > 0 ? freeIds[--freeCount] : nextId++;
+        UserRecord[] current = records;
+        if (id >= current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            references = Arrays.copyOf(references, current.length);
+        }
+        current[id] = record;
+        references[id] = 1;
+        records = current;
+        ids.put(record, id);
+        return id;
+    }
+
+    /**
+     * Drop a reference taken by {@link #intern}, removing the user once no entry refers to it
+     */
+    synchronized void release(int id) {
+        if (--references[id] > 0) {
+            return;
+        }
+        UserRecord[] current = records;
+        ids.remove(current[id]);
+        current[id] = null;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    UserRecord get(int id) {
+        return records[id];
+    }
+
+    /**
+     * @return the number of distinct users referenced by cache entries
+     */
+    synchronized int size() {
+        return ids.size();
+    }
+
+    record UserRecord(String username, String email) {
+    }
+}
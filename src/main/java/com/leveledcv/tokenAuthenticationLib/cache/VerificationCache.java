@@ -0,0 +1,91 @@
+package com.leveledcv.tokenAuthenticationLib.cache;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+
+/**
+ * Cache of successful token verifications, keyed by token hash
+ */
+public interface VerificationCache {
+
+    /**
+     * Look up a cached verification
+     * @param key hashed token
+     * @return the cached response, or null if absent or expired
+     */
+    TokenVerificationResponse get(TokenKey key);
+
+    /**
+     * Cache a successful verification
+     */
+    void put(TokenKey key, TokenVerificationResponse response);
+
+    /**
+     * Cache a successful verification for a lifetime set by the verification service instead of the configured one
+     * @param ttlMillis lifetime of the entry, before jitter
+     * @param etag entity tag to revalidate the entry with, or null
+     */
+    default void put(TokenKey key, TokenVerificationResponse response, long ttlMillis, String etag) {
+        put(key, response);
+    }
+
+    /**
+     * @return the entity tag the entry was cached with, or null if absent or not kept by this cache
+     */
+    default String etag(TokenKey key) {
+        return null;
+    }
+
+    /**
+     * Extend the lifetime of an entry the verification service confirmed to be unchanged
+     * @param ttlMillis new lifetime of the entry, from now
+     * @return the cached response, or null if the entry is no longer cached
+     */
+    default TokenVerificationResponse touch(TokenKey key, long ttlMillis) {
+        return null;
+    }
+
+    /**
+     * Remove a single token from the cache
+     */
+    void invalidate(TokenKey key);
+
+    /**
+     * Remove every cached token
+     */
+    void invalidateAll();
+
+    /**
+     * Remove every cached token of the given user
+     * @return the number of entries removed
+     */
+    default int invalidateUser(String username) {
+        return 0;
+    }
+
+    /**
+     * @return true if the token is cached but far enough into its time-to-live that it should be
+     * revalidated in the background while the cached value keeps being served
+     */
+    default boolean needsRefresh(TokenKey key) {
+        return false;
+    }
+
+    /**
+     * @return the number of cached entries, including ones that have expired but not yet been evicted
+     */
+    int size();
+
+    /**
+     * @return false if this cache never stores anything
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * @return a cache that never stores anything
+     */
+    static VerificationCache disabled() {
+        return DisabledVerificationCache.INSTANCE;
+    }
+}
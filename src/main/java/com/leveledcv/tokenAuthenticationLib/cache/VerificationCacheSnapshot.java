@@ -0,0 +1,260 @@
+package com.leveledcv.tokenAuthenticationLib.cache;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists the live entries of an {@link InMemoryVerificationCache} to a file, so a restarted instance starts
+ * warm instead of sending every active user to the verification service at once.
+ * <p>
+ * The snapshot holds token hashes, never raw tokens, with each entry's user fields and expiry, in a compact
+ * binary format written and read through memory-mapped I/O. It is written to a temporary file and moved into
+ * place, so readers never see a partial snapshot. Snapshots older than {@code maxAge} are ignored.
+ */
+@Slf4j
+public class VerificationCacheSnapshot implements AutoCloseable {
+
+    private static final int MAGIC = 0x54415643; // "TAVC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+    private static final int NULL_LENGTH = 0xFFFF;
+
+    private final InMemoryVerificationCache cache;
+    private final Path path;
+    private final long maxAgeMillis;
+    private final Clock clock;
+    private final CompletableFuture<Integer> restored = new CompletableFuture<>();
+    private ScheduledExecutorService scheduler;
+
+    public VerificationCacheSnapshot(InMemoryVerificationCache cache, Path path, Duration maxAge) {
+        this(cache, path, maxAge, Clock.systemUTC());
+    }
+
+    /**
+     * @param cache the cache to persist and restore
+     * @param path snapshot file
+     * @param maxAge snapshots written longer ago than this are not restored
+     */
+    public VerificationCacheSnapshot(InMemoryVerificationCache cache, Path path, Duration maxAge, Clock clock) {
+        this.cache = cache;
+        this.path = path;
+        this.maxAgeMillis = maxAge.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Restore the snapshot in the background, then save one every {@code interval}.
+     * Requests are served meanwhile; restored entries never replace ones verified since startup.
+     */
+    public synchronized void start(Duration interval) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("token-auth-snapshot-"));
+        scheduler.execute(() -> {
+            try {
+                restored.complete(load());
+            } finally {
+                restored.complete(0);
+            }
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::save, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return completes with the number of entries restored once the background restore of {@link #start}
+     * has finished, or with 0 if the snapshot is closed first
+     */
+    public CompletableFuture<Integer> restored() {
+        return restored;
+    }
+
+    /**
+     * Restore live entries from the snapshot file
+     *
+     * @return the number of entries restored
+     */
+    public int load() {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                log.warn("Ignoring verification cache snapshot {}: unrecognized format", path);
+                return 0;
+            }
+            long writtenAt = buffer.getLong();
+            if (clock.millis() - writtenAt > maxAgeMillis) {
+                log.info("Ignoring verification cache snapshot {}: older than {} ms", path, maxAgeMillis);
+                return 0;
+            }
+            int count = buffer.getInt();
+            int restored = 0;
+            for (int i = 0; i < count; i++) {
+                TokenKey key = new TokenKey(buffer.getLong(), buffer.getLong());
+                long expiresAt = buffer.getLong();
+                TokenVerificationResponse response = new TokenVerificationResponse(
+                        readString(buffer), readString(buffer), status(readString(buffer)));
+                if (cache.restore(key, response, expiresAt)) {
+                    restored++;
+                }
+            }
+            log.info("Restored {} of {} verifications from snapshot {}", restored, count, path);
+            return restored;
+        } catch (NoSuchFileException e) {
+            log.debug("No verification cache snapshot at {}", path);
+            return 0;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("Failed to restore verification cache snapshot {}", path, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Write the live entries of the cache to the snapshot file
+     *
+     * @return the number of entries written, or -1 if the snapshot could not be written
+     */
+    public synchronized int save() {
+        List<Entry> entries = new ArrayList<>(cache.size());
+        int[] size = {HEADER_SIZE};
+        cache.forEach((key, response, expiresAt) -> {
+            Entry entry = new Entry(key, expiresAt, bytes(response.getUsername()), bytes(response.getEmail()),
+                    bytes(response.getStatus() != null ? response.getStatus().name() : null));
+            if (entry.fits()) {
+                entries.add(entry);
+                size[0] += entry.size();
+            }
+        });
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                restrictToOwner(temp);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size[0]);
+                buffer.putInt(MAGIC).putInt(VERSION).putLong(clock.millis()).putInt(entries.size());
+                for (Entry entry : entries) {
+                    buffer.putLong(entry.key().high()).putLong(entry.key().low()).putLong(entry.expiresAt());
+                    writeString(buffer, entry.username());
+                    writeString(buffer, entry.email());
+                    writeString(buffer, entry.status());
+                }
+                buffer.force();
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            log.debug("Saved {} verifications to snapshot {}", entries.size(), path);
+            return entries.size();
+        } catch (IOException e) {
+            log.warn("Failed to save verification cache snapshot {}", path, e);
+            return -1;
+        }
+    }
+
+    /**
+     * Stop the periodic saves and write a final snapshot
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = scheduler;
+            scheduler = null;
+        }
+        if (running != null) {
+            running.shutdownNow();
+            restored.complete(0);
+            save();
+        }
+    }
+
+    /**
+     * The snapshot holds usernames and emails, so keep it private where the file system allows it
+     */
+    private static void restrictToOwner(Path file) throws IOException {
+        try {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            log.debug("Cannot restrict permissions of {}", file);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static void writeString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putChar((char) NULL_LENGTH);
+        } else {
+            buffer.putChar((char) value.length).put(value);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getChar();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static UserStatus status(String name) {
+        return name != null ? UserStatus.fromName(name) : null;
+    }
+
+    private record Entry(TokenKey key, long expiresAt, byte[] username, byte[] email, byte[] status) {
+
+        int size() {
+            return 16 + 8 + length(username) + length(email) + length(status);
+        }
+
+        /**
+         * @return false if a field is too long for its 16-bit length prefix
+         */
+        boolean fits() {
+            return fits(username) && fits(email) && fits(status);
+        }
+
+        private static boolean fits(byte[] value) {
+            return value == null || value.length < NULL_LENGTH;
+        }
+
+        private static int length(byte[] value) {
+            return 2 + (value != null ? value.length : 0);
+        }
+    }
+}
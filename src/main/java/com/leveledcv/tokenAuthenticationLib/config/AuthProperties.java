@@ -2,13 +2,16 @@ package com.leveledcv.tokenAuthenticationLib.config;
 
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Configuration properties for the authentication library
  */
 @Data
-@Component
 @ConfigurationProperties(prefix = "auth")
 public class AuthProperties {
 
@@ -18,6 +21,11 @@ public class AuthProperties {
      */
     private String tokenVerifyUrl = "http://localhost:8081/token/verify";
 
+    /**
+     * Verification URLs of several replicas to balance calls over; replaces token-verify-url when set
+     */
+    private List<String> tokenVerifyUrls = new ArrayList<>();
+
     /**
      * Header name to extract the token from
      * Default: Authorization
@@ -29,4 +37,674 @@ public class AuthProperties {
      * Default: Bearer
      */
     private String tokenPrefix = "Bearer ";
+
+    /**
+     * HTTP client used for verification calls
+     */
+    private final Http http = new Http();
+
+    /**
+     * Choice between the replicas in token-verify-urls
+     */
+    private final LoadBalancing loadBalancing = new LoadBalancing();
+
+    /**
+     * Hedged verification calls to a second replica
+     */
+    private final Hedging hedging = new Hedging();
+
+    /**
+     * Cache of successful verifications
+     */
+    private final Cache cache = new Cache();
+
+    /**
+     * Coalescing of concurrent verifications for the same token
+     */
+    private final Coalescing coalescing = new Coalescing();
+
+    /**
+     * Servlet filter that authenticates before Spring MVC dispatch
+     */
+    private final Filter filter = new Filter();
+
+    /**
+     * How the authenticated user is bound to request processing
+     */
+    private final Context context = new Context();
+
+    /**
+     * Batch verification
+     */
+    private final Batch batch = new Batch();
+
+    /**
+     * Circuit breaker around calls to the verification service
+     */
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * Recent verifications served while the verification service is unavailable
+     */
+    private final LastKnownGood lastKnownGood = new LastKnownGood();
+
+    /**
+     * Local verification of signed JWTs
+     */
+    private final Jwt jwt = new Jwt();
+
+    /**
+     * Revocation events that evict cached verifications
+     */
+    private final Revocation revocation = new Revocation();
+
+    /**
+     * Per-client and per-token throttling before verification
+     */
+    private final Admission admission = new Admission();
+
+    /**
+     * Time budgets for authenticating a request
+     */
+    private final Budget budget = new Budget();
+
+    @Data
+    public static class Budget {
+
+        /**
+         * Time allowed for authenticating a request when @RequireAuth sets no timeoutMs, 0 for no limit
+         * Default: 0
+         */
+        private Duration defaultTimeout = Duration.ZERO;
+
+        /**
+         * Request header with the caller's remaining time in milliseconds, which shortens the budget
+         * (e.g. x-envoy-expected-rq-timeout-ms), or unset to ignore incoming deadlines
+         */
+        private String deadlineHeader;
+
+        /**
+         * Threads running verification calls with a budget, so requests stop waiting when it runs out
+         * Default: 16
+         */
+        private int threads = 16;
+    }
+
+    @Data
+    public static class CircuitBreaker {
+
+        /**
+         * Whether verification calls go through a circuit breaker. When enabled, a token that cannot be
+         * verified because the service is unavailable is answered with 503 instead of 403.
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of recent calls the failure and slow-call rates are computed over
+         * Default: 50
+         */
+        private int slidingWindowSize = 50;
+
+        /**
+         * Calls required in the window before the breaker can open
+         * Default: 20
+         */
+        private int minimumNumberOfCalls = 20;
+
+        /**
+         * Failure percentage at which the breaker opens
+         * Default: 50
+         */
+        private float failureRateThreshold = 50;
+
+        /**
+         * Calls taking longer than this count as slow
+         * Default: 1s
+         */
+        private Duration slowCallDurationThreshold = Duration.ofSeconds(1);
+
+        /**
+         * Slow-call percentage at which the breaker opens
+         * Default: 100
+         */
+        private float slowCallRateThreshold = 100;
+
+        /**
+         * How long the breaker stays open before letting probe calls through
+         * Default: 10s
+         */
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+
+        /**
+         * Probe calls that must succeed before the breaker closes again
+         * Default: 5
+         */
+        private int permittedNumberOfCallsInHalfOpenState = 5;
+    }
+
+    @Data
+    public static class LastKnownGood {
+
+        /**
+         * Whether recent successful verifications are served while the verification service is unavailable
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of remembered verifications
+         * Default: 10000
+         */
+        private int maxSize = 10000;
+
+        /**
+         * How old a remembered verification may be and still be served
+         * Default: 5m
+         */
+        private Duration maxStaleness = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Jwt {
+
+        /**
+         * Whether JWTs are verified locally against the JWKS instead of calling the verification service
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Location of the JWKS: an http(s) URL or a file path
+         */
+        private String jwksUri;
+
+        /**
+         * How often the JWKS is reloaded in the background
+         * Default: 5m
+         */
+        private Duration refreshInterval = Duration.ofMinutes(5);
+
+        /**
+         * Minimum time between reloads triggered by tokens signed with an unknown key
+         * Default: 30s
+         */
+        private Duration minRefreshInterval = Duration.ofSeconds(30);
+
+        /**
+         * How long verification of a token signed with an unknown key waits for the reload it triggers,
+         * and startup for the first load; the loads themselves run in the background
+         * Default: 200ms
+         */
+        private Duration unknownKeyWait = Duration.ofMillis(200);
+
+        /**
+         * Tolerance applied when checking the exp and nbf claims
+         * Default: 30s
+         */
+        private Duration clockSkew = Duration.ofSeconds(30);
+
+        /**
+         * Required value of the iss claim; any issuer is accepted when unset
+         */
+        private String issuer;
+
+        /**
+         * Whether tokens that are not JWTs are verified by the verification service
+         * Default: true
+         */
+        private boolean fallbackToRemote = true;
+    }
+
+    @Data
+    public static class Admission {
+
+        /**
+         * Whether requests that miss the verification caches are rejected with 429 when over their client or
+         * token rate
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Header whose right-most entry is the client address (e.g. X-Forwarded-For set by the proxy in front
+         * of the application), or unset to use the peer address of the connection
+         */
+        private String clientAddressHeader;
+
+        /**
+         * Buckets tracked per limit; memory stays fixed and idle buckets are reused
+         * Default: 65536
+         */
+        private int maxKeys = 65_536;
+
+        /**
+         * Sustained requests per second admitted from one client address, 0 for no client limit
+         * Default: 100
+         */
+        private double clientRate = 100;
+
+        /**
+         * Requests one client address may make at once before the rate applies
+         * Default: 200
+         */
+        private int clientBurst = 200;
+
+        /**
+         * Sustained requests per second admitted for one token prefix, 0 for no token limit
+         * Default: 20
+         */
+        private double tokenRate = 20;
+
+        /**
+         * Requests one token prefix may make at once before the rate applies
+         * Default: 40
+         */
+        private int tokenBurst = 40;
+
+        /**
+         * Leading characters of the credential that select its bucket, 0 for the whole credential
+         * Default: 0
+         */
+        private int tokenPrefixLength = 0;
+    }
+
+    @Data
+    public static class Revocation {
+
+        /**
+         * Whether to subscribe to revocation events and evict matching cached verifications
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * URL of the server-sent events stream publishing revocations
+         */
+        private String eventsUrl;
+
+        /**
+         * Delay before the first reconnection attempt, doubled after each failed attempt
+         * Default: 1s
+         */
+        private Duration reconnectDelay = Duration.ofSeconds(1);
+
+        /**
+         * Upper bound of the reconnection delay
+         * Default: 30s
+         */
+        private Duration maxReconnectDelay = Duration.ofSeconds(30);
+
+        /**
+         * Time without any data, including heartbeat comments, after which the stream is considered dead
+         * Default: 60s
+         */
+        private Duration idleTimeout = Duration.ofSeconds(60);
+    }
+
+    @Data
+    public static class Batch {
+
+        /**
+         * URL of the batch verification endpoint; when unset, batches are verified token by token
+         */
+        private String url;
+
+        /**
+         * Maximum number of tokens sent in one batch request
+         * Default: 100
+         */
+        private int maxSize = 100;
+
+        /**
+         * Whether concurrent single-token verifications are gathered into batch requests.
+         * Requires auth.batch.url.
+         * Default: false
+         */
+        private boolean microBatching = false;
+
+        /**
+         * How long the first token of a micro-batch waits for others to join
+         * Default: 2ms
+         */
+        private Duration window = Duration.ofMillis(2);
+    }
+
+    @Data
+    public static class Context {
+
+        /**
+         * Carrier for the authenticated user: AUTO uses scoped values where the JVM supports them,
+         * THREAD_LOCAL always uses a ThreadLocal, SCOPED_VALUE requires scoped values
+         * Default: AUTO
+         */
+        private CarrierType carrier = CarrierType.AUTO;
+
+        /**
+         * Whether a TaskDecorator propagating the user to @Async and executor tasks is registered
+         * Default: false
+         */
+        private boolean propagateToTasks = false;
+    }
+
+    public enum CarrierType {
+        AUTO,
+        THREAD_LOCAL,
+        SCOPED_VALUE
+    }
+
+    @Data
+    public static class Filter {
+
+        /**
+         * Whether @RequireAuth handlers are authenticated by a servlet filter before dispatch
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Position of the filter in the servlet filter chain
+         * Default: 0
+         */
+        private int order = 0;
+
+        /**
+         * Whether verification runs off the container thread using async servlet processing
+         * Default: false
+         */
+        private boolean async = false;
+
+        /**
+         * Threads used for async verification
+         * Default: 16
+         */
+        private int asyncThreads = 16;
+
+        /**
+         * Pending async verifications queued before requests are rejected with 503
+         * Default: 1000
+         */
+        private int asyncQueueCapacity = 1000;
+
+        /**
+         * Time after which a pending async verification fails with 503
+         * Default: 5s
+         */
+        private Duration asyncTimeout = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class LoadBalancing {
+
+        /**
+         * Consecutive failures that take a replica out of rotation
+         * Default: 3
+         */
+        private int failureThreshold = 3;
+
+        /**
+         * How long a failing replica stays out of rotation
+         * Default: 10s
+         */
+        private Duration ejectionDuration = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Hedging {
+
+        /**
+         * Whether a slow verification call is repeated against another replica, using the first answer
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Latency percentile of recent calls after which a call is hedged
+         * Default: 0.95
+         */
+        private double percentile = 0.95;
+
+        /**
+         * Lower bound of the hedge delay
+         * Default: 5ms
+         */
+        private Duration minDelay = Duration.ofMillis(5);
+
+        /**
+         * Hedged calls allowed per hundred calls
+         * Default: 10
+         */
+        private double budgetPercent = 10;
+
+        /**
+         * Threads running hedged calls and the calls they race
+         * Default: 64
+         */
+        private int threads = 64;
+    }
+
+    @Data
+    public static class Http {
+
+        /**
+         * Maximum number of pooled connections to the verification service
+         * Default: 200
+         */
+        private int maxConnections = 200;
+
+        /**
+         * Maximum number of pooled connections per verification host
+         * Default: 50
+         */
+        private int maxConnectionsPerRoute = 50;
+
+        /**
+         * Timeout for establishing a connection
+         * Default: 1s
+         */
+        private Duration connectTimeout = Duration.ofSeconds(1);
+
+        /**
+         * Timeout for waiting on the verification response
+         * Default: 2s
+         */
+        private Duration readTimeout = Duration.ofSeconds(2);
+
+        /**
+         * Timeout for leasing a connection from the pool when all connections are busy
+         * Default: 1s
+         */
+        private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+
+        /**
+         * Idle time after which pooled keep-alive connections are closed
+         * Default: 30s
+         */
+        private Duration idleTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Cache {
+
+        /**
+         * Whether successful verifications are cached in-process
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of cached tokens
+         * Default: 10000
+         */
+        private int maxSize = 10_000;
+
+        /**
+         * Where entries are held: HEAP keeps one response object per token, COMPACT keeps primitive
+         * arrays and shares user details between a user's tokens, for millions of sessions, and OFF_HEAP
+         * keeps entries in direct memory outside the garbage-collected heap
+         * Default: HEAP
+         */
+        private CacheStore store = CacheStore.HEAP;
+
+        /**
+         * Direct memory allocated by the OFF_HEAP store, which bounds it instead of max-size
+         * Default: 256MB
+         */
+        private DataSize offHeapCapacity = DataSize.ofMegabytes(256);
+
+        /**
+         * How long a successful verification is reused before the token is verified again
+         * Default: 30s
+         */
+        private Duration ttl = Duration.ofSeconds(30);
+
+        /**
+         * Fraction of the TTL by which each entry's lifetime is randomly shortened, so entries
+         * cached together do not all expire at once
+         * Default: 0.1
+         */
+        private double jitter = 0.1;
+
+        /**
+         * Lifetimes of cached entries set by the verification service's caching headers
+         */
+        private final ResponseTtl responseTtl = new ResponseTtl();
+
+        /**
+         * Background revalidation of entries that are still being used
+         */
+        private final RefreshAhead refreshAhead = new RefreshAhead();
+
+        /**
+         * Cache of rejected tokens, sized and evicted independently of successful verifications
+         */
+        private final Negative negative = new Negative();
+
+        /**
+         * Snapshot of cached verifications persisted across restarts
+         */
+        private final Snapshot snapshot = new Snapshot();
+    }
+
+    public enum CacheStore {
+        HEAP,
+        COMPACT,
+        OFF_HEAP
+    }
+
+    @Data
+    public static class ResponseTtl {
+
+        /**
+         * Whether Cache-Control max-age, Expires and a session expiry in the body set each entry's lifetime,
+         * and refreshes send If-None-Match with the entry's ETag
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Lower bound for lifetimes set by the verification service
+         * Default: 1s
+         */
+        private Duration min = Duration.ofSeconds(1);
+
+        /**
+         * Upper bound for lifetimes set by the verification service
+         * Default: 5m
+         */
+        private Duration max = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class RefreshAhead {
+
+        /**
+         * Whether cached entries used after the threshold are revalidated in the background
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Fraction of the TTL after which a used entry is revalidated
+         * Default: 0.8
+         */
+        private double threshold = 0.8;
+
+        /**
+         * Threads performing background revalidations
+         * Default: 2
+         */
+        private int threads = 2;
+
+        /**
+         * Revalidations queued before further ones are dropped
+         * Default: 1000
+         */
+        private int queueCapacity = 1000;
+    }
+
+    @Data
+    public static class Snapshot {
+
+        /**
+         * Whether cached verifications are saved to disk and restored at startup
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Snapshot file, on storage that outlives the process
+         */
+        private String path;
+
+        /**
+         * How often the snapshot is written; it is also written on shutdown
+         * Default: 1m
+         */
+        private Duration interval = Duration.ofMinutes(1);
+
+        /**
+         * Snapshots written longer ago than this are not restored
+         * Default: 10m
+         */
+        private Duration maxAge = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Negative {
+
+        /**
+         * Whether rejected tokens are remembered and rejected locally
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of remembered rejected tokens
+         * Default: 10000
+         */
+        private int maxSize = 10_000;
+
+        /**
+         * How long a rejected token is rejected without asking the verification service again
+         * Default: 5s
+         */
+        private Duration ttl = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Coalescing {
+
+        /**
+         * Whether concurrent verifications of the same token share a single remote call
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * How long a request waits for another request's in-flight verification
+         * Default: 5s
+         */
+        private Duration waitTimeout = Duration.ofSeconds(5);
+    }
 }
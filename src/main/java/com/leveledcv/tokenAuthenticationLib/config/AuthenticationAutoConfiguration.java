@@ -1,28 +1,595 @@
 package com.leveledcv.tokenAuthenticationLib.config;
 
+import com.leveledcv.tokenAuthenticationLib.aspect.AuthenticationAspect;
+import com.leveledcv.tokenAuthenticationLib.cache.CompactVerificationCache;
+import com.leveledcv.tokenAuthenticationLib.cache.InMemoryVerificationCache;
+import com.leveledcv.tokenAuthenticationLib.cache.LastKnownGoodStore;
+import com.leveledcv.tokenAuthenticationLib.cache.NegativeVerificationCache;
+import com.leveledcv.tokenAuthenticationLib.cache.OffHeapVerificationCache;
+import com.leveledcv.tokenAuthenticationLib.cache.VerificationCache;
+import com.leveledcv.tokenAuthenticationLib.cache.VerificationCacheSnapshot;
+import com.leveledcv.tokenAuthenticationLib.context.AuthenticationContext;
+import com.leveledcv.tokenAuthenticationLib.context.AuthenticationContextCarrier;
+import com.leveledcv.tokenAuthenticationLib.context.AuthenticationContextCarrierInstaller;
+import com.leveledcv.tokenAuthenticationLib.context.AuthenticationTaskDecorator;
+import com.leveledcv.tokenAuthenticationLib.context.ScopedValueContextCarrier;
+import com.leveledcv.tokenAuthenticationLib.context.ThreadLocalContextCarrier;
+import com.leveledcv.tokenAuthenticationLib.jwt.JwksKeySource;
+import com.leveledcv.tokenAuthenticationLib.jwt.JwtTokenVerifier;
+import com.leveledcv.tokenAuthenticationLib.metrics.AuthenticationMetrics;
+import com.leveledcv.tokenAuthenticationLib.metrics.MicrometerAuthenticationMetrics;
+import com.leveledcv.tokenAuthenticationLib.reactive.ReactiveTokenVerificationService;
+import com.leveledcv.tokenAuthenticationLib.reactive.RequireAuthWebFilter;
+import com.leveledcv.tokenAuthenticationLib.revocation.HttpRevocationEventSource;
+import com.leveledcv.tokenAuthenticationLib.revocation.RevocationListener;
+import com.leveledcv.tokenAuthenticationLib.service.AdmissionThrottle;
+import com.leveledcv.tokenAuthenticationLib.service.CircuitBreaker;
+import com.leveledcv.tokenAuthenticationLib.service.DeadlineExecutor;
+import com.leveledcv.tokenAuthenticationLib.service.ResponseTtlPolicy;
+import com.leveledcv.tokenAuthenticationLib.service.TokenVerificationService;
+import com.leveledcv.tokenAuthenticationLib.service.VerificationCoalescer;
+import com.leveledcv.tokenAuthenticationLib.service.VerificationRefresher;
+import com.leveledcv.tokenAuthenticationLib.verifier.LoadBalancedTokenVerifier;
+import com.leveledcv.tokenAuthenticationLib.verifier.MicroBatchingTokenVerifier;
+import com.leveledcv.tokenAuthenticationLib.verifier.RestTemplateTokenVerifier;
+import com.leveledcv.tokenAuthenticationLib.verifier.TokenVerifier;
+import com.leveledcv.tokenAuthenticationLib.verifier.VerificationEndpoints;
+import com.leveledcv.tokenAuthenticationLib.web.RequireAuthFilter;
+import com.leveledcv.tokenAuthenticationLib.web.RequireAuthHandlerIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.netty.channel.ChannelOption;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Auto-configuration for the authentication library
+ * Auto-configuration for the authentication library. Every bean is declared here, guarded by conditions,
+ * so startup needs no classpath scanning and the configuration can be processed ahead of time.
  */
-@Configuration
+@AutoConfiguration
 @EnableAspectJAutoProxy
 @EnableConfigurationProperties(AuthProperties.class)
-@ComponentScan("com.leveledcv.tokenAuthenticationLib")
+@ImportRuntimeHints(AuthenticationRuntimeHints.class)
 public class AuthenticationAutoConfiguration {
 
     /**
-     * Provides a RestTemplate bean for making HTTP requests to the token verification service
+     * Bean name of the HTTP client used for verification calls
+     */
+    public static final String HTTP_CLIENT_BEAN_NAME = "tokenAuthHttpClient";
+
+    /**
+     * Bean name of the RestTemplate used for verification calls
+     */
+    public static final String REST_TEMPLATE_BEAN_NAME = "tokenAuthRestTemplate";
+
+    /**
+     * Provides the pooled keep-alive HTTP client for the token verification service.
+     * Only injected where explicitly qualified, so it never replaces the application's own clients.
+     */
+    @Bean(name = HTTP_CLIENT_BEAN_NAME, destroyMethod = "close", defaultCandidate = false)
+    @ConditionalOnMissingBean(name = HTTP_CLIENT_BEAN_NAME)
+    public CloseableHttpClient tokenAuthHttpClient(AuthProperties authProperties) {
+        AuthProperties.Http http = authProperties.getHttp();
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxConnections())
+                .setMaxConnPerRoute(http.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(http.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(http.getReadTimeout()))
+                        .build())
+                .build();
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(http.getConnectionRequestTimeout()))
+                .setResponseTimeout(Timeout.of(http.getReadTimeout()))
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(http.getIdleTimeout()))
+                .build();
+    }
+
+    /**
+     * Provides the RestTemplate for making HTTP requests to the token verification service.
+     * Only injected where explicitly qualified, so it never replaces the application's own RestTemplate.
+     */
+    @Bean(name = REST_TEMPLATE_BEAN_NAME, defaultCandidate = false)
+    @ConditionalOnMissingBean(name = REST_TEMPLATE_BEAN_NAME)
+    public RestTemplate tokenAuthRestTemplate(@Qualifier(HTTP_CLIENT_BEAN_NAME) CloseableHttpClient httpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    /**
+     * Provides the default transport for verification calls
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public TokenVerifier tokenVerifier(@Qualifier(REST_TEMPLATE_BEAN_NAME) RestTemplate restTemplate,
+                                       AuthProperties authProperties, VerificationEndpoints verificationEndpoints) {
+        AuthProperties.Batch batch = authProperties.getBatch();
+        TokenVerifier verifier;
+        if (verificationEndpoints.size() > 1) {
+            AuthProperties.Hedging hedging = authProperties.getHedging();
+            verifier = new LoadBalancedTokenVerifier(verificationEndpoints,
+                    url -> new RestTemplateTokenVerifier(restTemplate, url, batch.getUrl(), batch.getMaxSize()),
+                    hedging.isEnabled() ? hedging.getThreads() : 0);
+        } else {
+            verifier = new RestTemplateTokenVerifier(restTemplate, verificationEndpoints.getEndpoints().get(0).getUrl(),
+                    batch.getUrl(), batch.getMaxSize());
+        }
+        if (batch.isMicroBatching() && batch.getUrl() != null) {
+            verifier = new MicroBatchingTokenVerifier(verifier, batch.getWindow(), batch.getMaxSize());
+        }
+        AuthProperties.Jwt jwt = authProperties.getJwt();
+        if (jwt.isEnabled()) {
+            JwksKeySource keySource = new JwksKeySource(jwksLoader(jwt.getJwksUri(), restTemplate),
+                    jwt.getRefreshInterval(), jwt.getMinRefreshInterval(), jwt.getUnknownKeyWait());
+            verifier = new JwtTokenVerifier(keySource, jwt.isFallbackToRemote() ? verifier : null,
+                    authProperties.getTokenPrefix(), jwt.getIssuer(), jwt.getClockSkew());
+        }
+        return verifier;
+    }
+
+    /**
+     * Provides the replicas of the verification service, from auth.token-verify-urls or else auth.token-verify-url,
+     * with their health and latency
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public VerificationEndpoints verificationEndpoints(AuthProperties authProperties) {
+        List<String> urls = authProperties.getTokenVerifyUrls().isEmpty()
+                ? List.of(authProperties.getTokenVerifyUrl()) : authProperties.getTokenVerifyUrls();
+        AuthProperties.LoadBalancing loadBalancing = authProperties.getLoadBalancing();
+        AuthProperties.Hedging hedging = authProperties.getHedging();
+        return new VerificationEndpoints(urls, loadBalancing.getFailureThreshold(), loadBalancing.getEjectionDuration(),
+                hedging.getPercentile(), hedging.getMinDelay(), hedging.isEnabled() ? hedging.getBudgetPercent() : 0,
+                Clock.systemUTC());
+    }
+
+    private static Callable<String> jwksLoader(String jwksUri, RestTemplate restTemplate) {
+        if (jwksUri == null || jwksUri.isBlank()) {
+            throw new IllegalStateException("auth.jwt.jwks-uri is required when auth.jwt.enabled is true");
+        }
+        if (jwksUri.startsWith("http://") || jwksUri.startsWith("https://")) {
+            return () -> restTemplate.getForObject(jwksUri, String.class);
+        }
+        Path path = jwksUri.startsWith("file:") ? Path.of(URI.create(jwksUri)) : Path.of(jwksUri);
+        return () -> Files.readString(path);
+    }
+
+    /**
+     * Provides the cache of successful verifications, or a no-op cache when auth.cache.enabled is false
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public VerificationCache verificationCache(AuthProperties authProperties) {
+        AuthProperties.Cache cache = authProperties.getCache();
+        if (!cache.isEnabled()) {
+            return VerificationCache.disabled();
+        }
+        double refreshAhead = cache.getRefreshAhead().isEnabled() ? cache.getRefreshAhead().getThreshold() : 1;
+        return switch (cache.getStore()) {
+            case COMPACT -> new CompactVerificationCache(cache.getMaxSize(), cache.getTtl(), cache.getJitter(),
+                    refreshAhead);
+            case OFF_HEAP -> new OffHeapVerificationCache(cache.getOffHeapCapacity().toBytes(), cache.getTtl(),
+                    cache.getJitter(), refreshAhead);
+            case HEAP -> new InMemoryVerificationCache(cache.getMaxSize(), cache.getTtl(), cache.getJitter(),
+                    refreshAhead);
+        };
+    }
+
+    /**
+     * Restores the verification cache from disk at startup and saves it periodically and on shutdown
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "auth.cache.snapshot", name = "enabled", havingValue = "true")
+    public VerificationCacheSnapshot verificationCacheSnapshot(AuthProperties authProperties,
+                                                               VerificationCache verificationCache) {
+        AuthProperties.Snapshot snapshot = authProperties.getCache().getSnapshot();
+        if (!(verificationCache instanceof InMemoryVerificationCache cache)) {
+            throw new IllegalStateException("auth.cache.snapshot requires auth.cache.enabled and auth.cache.store=heap");
+        }
+        if (snapshot.getPath() == null || snapshot.getPath().isBlank()) {
+            throw new IllegalStateException("auth.cache.snapshot.path is required when auth.cache.snapshot.enabled is true");
+        }
+        VerificationCacheSnapshot cacheSnapshot = new VerificationCacheSnapshot(cache, Path.of(snapshot.getPath()),
+                snapshot.getMaxAge());
+        cacheSnapshot.start(snapshot.getInterval());
+        return cacheSnapshot;
+    }
+
+    /**
+     * Provides the policy deriving cache lifetimes from the verification service's caching metadata, or one that
+     * always uses auth.cache.ttl when auth.cache.response-ttl.enabled is false
      */
     @Bean
     @ConditionalOnMissingBean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public ResponseTtlPolicy responseTtlPolicy(AuthProperties authProperties) {
+        AuthProperties.Cache cache = authProperties.getCache();
+        if (!cache.isEnabled() || !cache.getResponseTtl().isEnabled()) {
+            return ResponseTtlPolicy.disabled();
+        }
+        return new ResponseTtlPolicy(cache.getTtl(), cache.getResponseTtl().getMin(), cache.getResponseTtl().getMax());
+    }
+
+    /**
+     * Provides the executor for background revalidation of cached verifications, or a no-op refresher
+     * when auth.cache.refresh-ahead.enabled is false
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public VerificationRefresher verificationRefresher(AuthProperties authProperties) {
+        AuthProperties.Cache cache = authProperties.getCache();
+        if (!cache.isEnabled() || !cache.getRefreshAhead().isEnabled()) {
+            return VerificationRefresher.disabled();
+        }
+        return new VerificationRefresher(cache.getRefreshAhead().getThreads(), cache.getRefreshAhead().getQueueCapacity());
+    }
+
+    /**
+     * Provides the pool that runs verifications with a deadline, so requests stop waiting when their
+     * time budget runs out
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public DeadlineExecutor deadlineExecutor(AuthProperties authProperties) {
+        int threads = authProperties.getBudget().getThreads();
+        return threads > 0 ? new DeadlineExecutor(threads) : DeadlineExecutor.disabled();
+    }
+
+    /**
+     * Provides the cache of rejected tokens, or a no-op cache when auth.cache.negative.enabled is false
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public NegativeVerificationCache negativeVerificationCache(AuthProperties authProperties) {
+        AuthProperties.Negative negative = authProperties.getCache().getNegative();
+        if (!negative.isEnabled()) {
+            return NegativeVerificationCache.disabled();
+        }
+        return new NegativeVerificationCache(negative.getMaxSize(), negative.getTtl());
+    }
+
+    /**
+     * Provides the coalescer that shares in-flight verifications between concurrent requests for the same token
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public VerificationCoalescer verificationCoalescer(AuthProperties authProperties) {
+        AuthProperties.Coalescing coalescing = authProperties.getCoalescing();
+        if (!coalescing.isEnabled()) {
+            return VerificationCoalescer.disabled();
+        }
+        return new VerificationCoalescer(coalescing.getWaitTimeout());
+    }
+
+    /**
+     * Provides the circuit breaker around verification calls, or a breaker that never opens
+     * when auth.circuit-breaker.enabled is false
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CircuitBreaker tokenVerificationCircuitBreaker(AuthProperties authProperties) {
+        AuthProperties.CircuitBreaker breaker = authProperties.getCircuitBreaker();
+        if (!breaker.isEnabled()) {
+            return CircuitBreaker.disabled();
+        }
+        return CircuitBreaker.builder()
+                .windowSize(breaker.getSlidingWindowSize())
+                .minimumCalls(breaker.getMinimumNumberOfCalls())
+                .failureRateThreshold(breaker.getFailureRateThreshold())
+                .slowCallDuration(breaker.getSlowCallDurationThreshold())
+                .slowCallRateThreshold(breaker.getSlowCallRateThreshold())
+                .openDuration(breaker.getWaitDurationInOpenState())
+                .halfOpenCalls(breaker.getPermittedNumberOfCallsInHalfOpenState())
+                .build();
+    }
+
+    /**
+     * Provides the per-client and per-token throttle charged by verifications that miss the caches,
+     * or a throttle that admits everything when auth.admission.enabled is false
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public AdmissionThrottle admissionThrottle(AuthProperties authProperties) {
+        AuthProperties.Admission admission = authProperties.getAdmission();
+        if (!admission.isEnabled()) {
+            return AdmissionThrottle.disabled();
+        }
+        return AdmissionThrottle.builder()
+                .maxKeys(admission.getMaxKeys())
+                .clientLimit(admission.getClientRate(), admission.getClientBurst())
+                .tokenLimit(admission.getTokenRate(), admission.getTokenBurst())
+                .tokenPrefix(authProperties.getTokenPrefix())
+                .tokenPrefixLength(admission.getTokenPrefixLength())
+                .build();
+    }
+
+    /**
+     * Provides the store of verifications served during outages, or a no-op store
+     * when auth.last-known-good.enabled is false
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public LastKnownGoodStore lastKnownGoodStore(AuthProperties authProperties) {
+        AuthProperties.LastKnownGood lastKnownGood = authProperties.getLastKnownGood();
+        if (!lastKnownGood.isEnabled()) {
+            return LastKnownGoodStore.disabled();
+        }
+        return new LastKnownGoodStore(lastKnownGood.getMaxSize(), lastKnownGood.getMaxStaleness());
+    }
+
+    /**
+     * Subscribes to revocation events and evicts revoked tokens and users from the verification caches
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "auth.revocation", name = "enabled", havingValue = "true")
+    public RevocationListener revocationListener(AuthProperties authProperties, VerificationCache verificationCache,
+                                                 LastKnownGoodStore lastKnownGoodStore,
+                                                 ObjectProvider<VerificationCacheSnapshot> cacheSnapshot) {
+        AuthProperties.Revocation revocation = authProperties.getRevocation();
+        if (revocation.getEventsUrl() == null || revocation.getEventsUrl().isBlank()) {
+            throw new IllegalStateException("auth.revocation.events-url is required when auth.revocation.enabled is true");
+        }
+        HttpRevocationEventSource source = new HttpRevocationEventSource(revocation.getEventsUrl(),
+                authProperties.getHttp().getConnectTimeout(), revocation.getIdleTimeout());
+        // Connect only once the snapshot is restored, so the first resync evicts what it brought back
+        VerificationCacheSnapshot snapshot = cacheSnapshot.getIfAvailable();
+        return new RevocationListener(source, verificationCache, lastKnownGoodStore,
+                revocation.getReconnectDelay(), revocation.getMaxReconnectDelay(),
+                snapshot != null ? snapshot.restored() : CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Provides the service that verifies tokens through the caches, the circuit breaker and the transport
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public TokenVerificationService tokenVerificationService(AuthProperties authProperties, TokenVerifier tokenVerifier,
+                                                             VerificationCache verificationCache,
+                                                             NegativeVerificationCache negativeVerificationCache,
+                                                             VerificationCoalescer verificationCoalescer,
+                                                             CircuitBreaker circuitBreaker,
+                                                             LastKnownGoodStore lastKnownGoodStore,
+                                                             VerificationRefresher verificationRefresher,
+                                                             AuthenticationMetrics authenticationMetrics,
+                                                             ResponseTtlPolicy responseTtlPolicy,
+                                                             DeadlineExecutor deadlineExecutor,
+                                                             AdmissionThrottle admissionThrottle) {
+        return TokenVerificationService.builder(authProperties, tokenVerifier)
+                .verificationCache(verificationCache)
+                .negativeCache(negativeVerificationCache)
+                .coalescer(verificationCoalescer)
+                .circuitBreaker(circuitBreaker)
+                .lastKnownGood(lastKnownGoodStore)
+                .refresher(verificationRefresher)
+                .metrics(authenticationMetrics)
+                .ttlPolicy(responseTtlPolicy)
+                .deadlineExecutor(deadlineExecutor)
+                .admissionThrottle(admissionThrottle)
+                .build();
+    }
+
+    /**
+     * Authenticates calls to @RequireAuth methods in servlet applications
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public AuthenticationAspect authenticationAspect(TokenVerificationService tokenVerificationService,
+                                                     AuthProperties authProperties,
+                                                     AuthenticationMetrics authenticationMetrics) {
+        return new AuthenticationAspect(tokenVerificationService, authProperties, authenticationMetrics);
+    }
+
+    /**
+     * Provides tracing of verification calls; replaced by {@link MetricsConfiguration} when Micrometer is present
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public AuthenticationMetrics authenticationMetrics(ObjectProvider<ObservationRegistry> observationRegistry) {
+        return new AuthenticationMetrics(observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
+    }
+
+    /**
+     * Selects the carrier that binds the authenticated user to request processing
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public AuthenticationContextCarrier authenticationContextCarrier(AuthProperties authProperties) {
+        AuthProperties.CarrierType type = authProperties.getContext().getCarrier();
+        boolean useScopedValue = type == AuthProperties.CarrierType.SCOPED_VALUE
+                || (type == AuthProperties.CarrierType.AUTO && ScopedValueContextCarrier.isSupported());
+        return useScopedValue ? new ScopedValueContextCarrier() : new ThreadLocalContextCarrier();
+    }
+
+    /**
+     * Installs the carrier into {@link AuthenticationContext} while this context runs, restoring the previous
+     * carrier when it closes
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public AuthenticationContextCarrierInstaller authenticationContextCarrierInstaller(
+            AuthenticationContextCarrier authenticationContextCarrier) {
+        return new AuthenticationContextCarrierInstaller(authenticationContextCarrier);
+    }
+
+    /**
+     * Propagates the authenticated user to @Async methods and tasks run by Spring-managed executors.
+     * Opt-in, since the decorator applies to every executor Spring Boot configures.
+     */
+    @Bean
+    @ConditionalOnMissingBean(TaskDecorator.class)
+    @ConditionalOnProperty(prefix = "auth.context", name = "propagate-to-tasks", havingValue = "true")
+    public AuthenticationTaskDecorator authenticationTaskDecorator() {
+        return new AuthenticationTaskDecorator();
+    }
+
+    /**
+     * Micrometer meters for the authentication path, registered when the application has a MeterRegistry
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    static class MetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public AuthenticationMetrics micrometerAuthenticationMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+                                                                     ObjectProvider<ObservationRegistry> observationRegistry) {
+            ObservationRegistry observations = observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP);
+            MeterRegistry meters = meterRegistry.getIfAvailable();
+            if (meters == null) {
+                return new AuthenticationMetrics(observations);
+            }
+            return new MicrometerAuthenticationMetrics(meters, observations);
+        }
+    }
+
+    /**
+     * Non-blocking verification and @RequireAuth support for WebFlux applications
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    @ConditionalOnClass(WebClient.class)
+    static class ReactiveConfiguration {
+
+        /**
+         * Bean name of the WebClient used for verification calls
+         */
+        static final String WEB_CLIENT_BEAN_NAME = "tokenAuthWebClient";
+
+        /**
+         * Provides the pooled non-blocking client for the token verification service.
+         * Only injected where explicitly qualified, so it never replaces the application's own clients.
+         */
+        @Bean(name = WEB_CLIENT_BEAN_NAME, defaultCandidate = false)
+        @ConditionalOnMissingBean(name = WEB_CLIENT_BEAN_NAME)
+        public WebClient tokenAuthWebClient(AuthProperties authProperties,
+                                            ObjectProvider<ObservationRegistry> observationRegistry) {
+            AuthProperties.Http http = authProperties.getHttp();
+
+            ConnectionProvider connectionProvider = ConnectionProvider.builder("token-auth")
+                    .maxConnections(http.getMaxConnections())
+                    .pendingAcquireTimeout(http.getConnectionRequestTimeout())
+                    .maxIdleTime(http.getIdleTimeout())
+                    .build();
+
+            HttpClient httpClient = HttpClient.create(connectionProvider)
+                    .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) http.getConnectTimeout().toMillis())
+                    .responseTimeout(http.getReadTimeout());
+
+            return WebClient.builder()
+                    .clientConnector(new ReactorClientHttpConnector(httpClient))
+                    .observationRegistry(observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP))
+                    .build();
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public ReactiveTokenVerificationService reactiveTokenVerificationService(
+                AuthProperties authProperties,
+                @Qualifier(WEB_CLIENT_BEAN_NAME) WebClient webClient,
+                VerificationCache verificationCache,
+                NegativeVerificationCache negativeVerificationCache,
+                TokenVerifier tokenVerifier,
+                CircuitBreaker circuitBreaker,
+                LastKnownGoodStore lastKnownGoodStore,
+                AuthenticationMetrics authenticationMetrics,
+                VerificationEndpoints verificationEndpoints,
+                ResponseTtlPolicy responseTtlPolicy,
+                AdmissionThrottle admissionThrottle) {
+            return ReactiveTokenVerificationService.builder(authProperties, webClient)
+                    .verificationCache(verificationCache)
+                    .negativeCache(negativeVerificationCache)
+                    .jwtVerifier(tokenVerifier instanceof JwtTokenVerifier jwt ? jwt : null)
+                    .circuitBreaker(circuitBreaker)
+                    .lastKnownGood(lastKnownGoodStore)
+                    .metrics(authenticationMetrics)
+                    .endpoints(verificationEndpoints)
+                    .ttlPolicy(responseTtlPolicy)
+                    .admissionThrottle(admissionThrottle)
+                    .build();
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public RequireAuthWebFilter requireAuthWebFilter(
+                @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping,
+                ReactiveTokenVerificationService reactiveTokenVerificationService,
+                AuthProperties authProperties,
+                AuthenticationMetrics authenticationMetrics) {
+            return new RequireAuthWebFilter(handlerMapping, reactiveTokenVerificationService, authProperties,
+                    authenticationMetrics);
+        }
+    }
+
+    /**
+     * Servlet filter mode that authenticates @RequireAuth handlers before Spring MVC dispatch
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(prefix = "auth.filter", name = "enabled", havingValue = "true")
+    static class ServletFilterConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public RequireAuthHandlerIndex requireAuthHandlerIndex(
+                @Qualifier("requestMappingHandlerMapping")
+                org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping handlerMapping) {
+            return new RequireAuthHandlerIndex(handlerMapping);
+        }
+
+        @Bean
+        public FilterRegistrationBean<RequireAuthFilter> requireAuthFilter(RequireAuthHandlerIndex handlerIndex,
+                                                                           TokenVerificationService tokenVerificationService,
+                                                                           AuthProperties authProperties,
+                                                                           AuthenticationMetrics authenticationMetrics) {
+            FilterRegistrationBean<RequireAuthFilter> registration = new FilterRegistrationBean<>(
+                    new RequireAuthFilter(handlerIndex, tokenVerificationService, authProperties, authenticationMetrics));
+            registration.setOrder(authProperties.getFilter().getOrder());
+            registration.setAsyncSupported(true);
+            return registration;
+        }
     }
 }
@@ -0,0 +1,32 @@
+package com.leveledcv.tokenAuthenticationLib.config;
+
+import com.leveledcv.tokenAuthenticationLib.annotations.RequireAuth;
+import com.leveledcv.tokenAuthenticationLib.aspect.AuthenticationAspect;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.User;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection hints for GraalVM native images: the models applications serialize with Jackson,
+ * the @RequireAuth aspect and annotation, and the optional {@code java.lang.ScopedValue} API
+ * that {@link com.leveledcv.tokenAuthenticationLib.context.ScopedValueContextCarrier} looks up by name.
+ */
+class AuthenticationRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                TokenVerificationResponse.class, User.class);
+
+        hints.reflection().registerType(AuthenticationAspect.class, MemberCategory.INVOKE_DECLARED_METHODS);
+        hints.reflection().registerType(RequireAuth.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        hints.reflection().registerTypeIfPresent(classLoader, "java.lang.ScopedValue",
+                MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerTypeIfPresent(classLoader, "java.lang.ScopedValue$Carrier",
+                MemberCategory.INVOKE_PUBLIC_METHODS);
+    }
+}
@@ -3,24 +3,61 @@ package com.leveledcv.tokenAuthenticationLib.context;
 import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
 
 /**
- * Thread-local context to store authentication information for the current request
+ * Context to store authentication information for the current request.
+ * The user is bound through an {@link AuthenticationContextCarrier}: a {@link ThreadLocal} by default,
+ * or a scoped value on JVMs that support it.
  */
 public class AuthenticationContext {
 
-    private static final ThreadLocal<TokenVerificationResponse> userContext = new ThreadLocal<>();
+    /**
+     * Request attribute holding the user once the request has been authenticated,
+     * so later stages of the same request reuse the verification
+     */
+    public static final String REQUEST_ATTRIBUTE = AuthenticationContext.class.getName() + ".USER";
+
+    private static final ThreadLocalContextCarrier threadLocalCarrier = new ThreadLocalContextCarrier();
+
+    private static volatile AuthenticationContextCarrier carrier = threadLocalCarrier;
+
+    /**
+     * Replace the carrier used by {@link #callWithUser}
+     * @param contextCarrier the carrier, or null to restore the default ThreadLocal carrier
+     */
+    public static void setCarrier(AuthenticationContextCarrier contextCarrier) {
+        carrier = contextCarrier != null ? contextCarrier : threadLocalCarrier;
+    }
+
+    /**
+     * @return the carrier used by {@link #callWithUser}
+     */
+    public static AuthenticationContextCarrier getCarrier() {
+        return carrier;
+    }
+
+    /**
+     * Run an action with the given user as the current user, restoring the previous user afterwards
+     */
+    public static <T, X extends Throwable> T callWithUser(TokenVerificationResponse user,
+                                                           AuthenticationContextCarrier.Action<T, X> action) throws X {
+        return carrier.callWith(user, action);
+    }
 
     /**
-     * Set the current user information
+     * Set the current user information for the current thread
      */
     public static void setCurrentUser(TokenVerificationResponse user) {
-        userContext.set(user);
+        threadLocalCarrier.set(user);
     }
 
     /**
      * Get the current user information
      */
     public static TokenVerificationResponse getCurrentUser() {
-        return userContext.get();
+        TokenVerificationResponse user = carrier.current();
+        if (user == null && carrier != threadLocalCarrier) {
+            user = threadLocalCarrier.current();
+        }
+        return user;
     }
 
     /**
@@ -48,9 +85,9 @@ public class AuthenticationContext {
     }
 
     /**
-     * Clear the current user context
+     * Clear the current user set with {@link #setCurrentUser} for the current thread
      */
     public static void clear() {
-        userContext.remove();
+        threadLocalCarrier.clear();
     }
 }
@@ -0,0 +1,31 @@
+package com.leveledcv.tokenAuthenticationLib.context;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+
+/**
+ * Strategy for binding the authenticated user to the code that runs on behalf of a request
+ */
+public interface AuthenticationContextCarrier {
+
+    /**
+     * @return the user bound to the current execution, or null if none
+     */
+    TokenVerificationResponse current();
+
+    /**
+     * Run an action with the given user bound, restoring the previous binding afterwards
+     *
+     * @param user the user to bind
+     * @param action the action to run
+     * @return the action's result
+     */
+    <T, X extends Throwable> T callWith(TokenVerificationResponse user, Action<T, X> action) throws X;
+
+    /**
+     * Unit of work run with a user bound
+     */
+    @FunctionalInterface
+    interface Action<T, X extends Throwable> {
+        T run() throws X;
+    }
+}
@@ -0,0 +1,32 @@
+package com.leveledcv.tokenAuthenticationLib.context;
+
+/**
+ * Installs a carrier into {@link AuthenticationContext} for the lifetime of an application context.
+ * Closing it restores the carrier that was installed before, unless another context has replaced it since,
+ * so a context that is closed does not leave its carrier behind for the next one.
+ */
+public class AuthenticationContextCarrierInstaller implements AutoCloseable {
+
+    private final AuthenticationContextCarrier carrier;
+    private final AuthenticationContextCarrier previous;
+
+    /**
+     * @param carrier the carrier to install
+     */
+    public AuthenticationContextCarrierInstaller(AuthenticationContextCarrier carrier) {
+        this.carrier = carrier;
+        this.previous = AuthenticationContext.getCarrier();
+        AuthenticationContext.setCarrier(carrier);
+    }
+
+    public AuthenticationContextCarrier getCarrier() {
+        return carrier;
+    }
+
+    @Override
+    public void close() {
+        if (AuthenticationContext.getCarrier() == carrier) {
+            AuthenticationContext.setCarrier(previous);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.leveledcv.tokenAuthenticationLib.context;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executor that runs each task with the user that was authenticated when the task was submitted.
+ * Use it for {@code CompletableFuture} stages and other hand-rolled fan-out:
+ * <pre>
+ * CompletableFuture.supplyAsync(this::loadProfile, AuthenticationContextExecutor.wrap(executor));
+ * </pre>
+ */
+public class AuthenticationContextExecutor implements Executor {
+
+    private final Executor delegate;
+    private final AuthenticationTaskDecorator decorator = new AuthenticationTaskDecorator();
+
+    private AuthenticationContextExecutor(Executor delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Wrap an executor so tasks inherit the submitting thread's authenticated user
+     */
+    public static Executor wrap(Executor delegate) {
+        return delegate instanceof AuthenticationContextExecutor ? delegate : new AuthenticationContextExecutor(delegate);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(decorator.decorate(command));
+    }
+}
@@ -0,0 +1,23 @@
+package com.leveledcv.tokenAuthenticationLib.context;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Propagates the authenticated user to tasks run by Spring task executors, e.g. @Async methods.
+ * Registered automatically when the application does not define its own TaskDecorator.
+ */
+public class AuthenticationTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        TokenVerificationResponse user = AuthenticationContext.getCurrentUser();
+        if (user == null) {
+            return runnable;
+        }
+        return () -> AuthenticationContext.callWithUser(user, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+}
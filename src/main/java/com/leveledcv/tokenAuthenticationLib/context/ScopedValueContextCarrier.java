@@ -0,0 +1,101 @@
+package com.leveledcv.tokenAuthenticationLib.context;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Carrier backed by {@code java.lang.ScopedValue} (JDK 21+).
+ * Bindings are inherited by structured-concurrency subtasks and cost nothing per thread,
+ * which suits large numbers of virtual threads. The API is accessed reflectively because
+ * the library is compiled for JDK 17.
+ */
+public class ScopedValueContextCarrier implements AuthenticationContextCarrier {
+
+    private static final MethodHandle NEW_INSTANCE;
+    private static final MethodHandle IS_BOUND;
+    private static final MethodHandle GET;
+    private static final MethodHandle WHERE;
+    private static final MethodHandle RUN;
+
+    static {
+        MethodHandle newInstance = null;
+        MethodHandle isBound = null;
+        MethodHandle get = null;
+        MethodHandle where = null;
+        MethodHandle run = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> scopedValue = Class.forName("java.lang.ScopedValue");
+            Class<?> carrier = Class.forName("java.lang.ScopedValue$Carrier");
+            newInstance = lookup.findStatic(scopedValue, "newInstance", MethodType.methodType(scopedValue));
+            isBound = lookup.findVirtual(scopedValue, "isBound", MethodType.methodType(boolean.class));
+            get = lookup.findVirtual(scopedValue, "get", MethodType.methodType(Object.class));
+            where = lookup.findStatic(scopedValue, "where", MethodType.methodType(carrier, scopedValue, Object.class));
+            run = lookup.findVirtual(carrier, "run", MethodType.methodType(void.class, Runnable.class));
+            // Fails on JDKs where ScopedValue is a preview API that has not been enabled
+            newInstance.invoke();
+        } catch (Throwable e) {
+            newInstance = null;
+        }
+        NEW_INSTANCE = newInstance;
+        IS_BOUND = isBound;
+        GET = get;
+        WHERE = where;
+        RUN = run;
+    }
+
+    private final Object scopedValue;
+
+    public ScopedValueContextCarrier() {
+        if (!isSupported()) {
+            throw new IllegalStateException("ScopedValue is not available on this JVM");
+        }
+        try {
+            this.scopedValue = NEW_INSTANCE.invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to create ScopedValue", e);
+        }
+    }
+
+    /**
+     * @return true if the running JVM supports scoped values
+     */
+    public static boolean isSupported() {
+        return NEW_INSTANCE != null;
+    }
+
+    @Override
+    public TokenVerificationResponse current() {
+        try {
+            return (boolean) IS_BOUND.invoke(scopedValue) ? (TokenVerificationResponse) GET.invoke(scopedValue) : null;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to read ScopedValue", e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T, X extends Throwable> T callWith(TokenVerificationResponse user, Action<T, X> action) throws X {
+        Object[] result = new Object[1];
+        Throwable[] failure = new Throwable[1];
+        Runnable body = () -> {
+            try {
+                result[0] = action.run();
+            } catch (Throwable e) {
+                failure[0] = e;
+            }
+        };
+        try {
+            RUN.invoke(WHERE.invoke(scopedValue, user), body);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to bind ScopedValue", e);
+        }
+        if (failure[0] != null) {
+            throw (X) failure[0];
+        }
+        return (T) result[0];
+    }
+}
@@ -0,0 +1,39 @@
+package com.leveledcv.tokenAuthenticationLib.context;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+
+/**
+ * Carrier that keeps the user in a {@link ThreadLocal}
+ */
+public class ThreadLocalContextCarrier implements AuthenticationContextCarrier {
+
+    private final ThreadLocal<TokenVerificationResponse> userContext = new ThreadLocal<>();
+
+    @Override
+    public TokenVerificationResponse current() {
+        return userContext.get();
+    }
+
+    @Override
+    public <T, X extends Throwable> T callWith(TokenVerificationResponse user, Action<T, X> action) throws X {
+        TokenVerificationResponse previous = userContext.get();
+        userContext.set(user);
+        try {
+            return action.run();
+        } finally {
+            if (previous != null) {
+                userContext.set(previous);
+            } else {
+                userContext.remove();
+            }
+        }
+    }
+
+    void set(TokenVerificationResponse user) {
+        userContext.set(user);
+    }
+
+    void clear() {
+        userContext.remove();
+    }
+}
@@ -0,0 +1,88 @@
+package com.leveledcv.tokenAuthenticationLib.jwt;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Converts JSON Web Keys (RFC 7517) into JDK public keys.
+ * Supports RSA, EC (P-256, P-384, P-521) and OKP (Ed25519, Ed448) keys.
+ */
+final class JwkParser {
+
+    private static final byte[] ED25519_X509_PREFIX = hex("302a300506032b6570032100");
+    private static final byte[] ED448_X509_PREFIX = hex("3043300506032b6571033a00");
+
+    private JwkParser() {
+    }
+
+    /**
+     * @return the public key, or null if the key type or curve is not supported
+     */
+    static PublicKey parse(Map<?, ?> jwk) throws GeneralSecurityException {
+        Object kty = jwk.get("kty");
+        if ("RSA".equals(kty)) {
+            RSAPublicKeySpec spec = new RSAPublicKeySpec(unsigned(jwk, "n"), unsigned(jwk, "e"));
+            return KeyFactory.getInstance("RSA").generatePublic(spec);
+        }
+        if ("EC".equals(kty)) {
+            String curve = switch (String.valueOf(jwk.get("crv"))) {
+                case "P-256" -> "secp256r1";
+                case "P-384" -> "secp384r1";
+                case "P-521" -> "secp521r1";
+                default -> null;
+            };
+            if (curve == null) {
+                return null;
+            }
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec(curve));
+            ECPoint point = new ECPoint(unsigned(jwk, "x"), unsigned(jwk, "y"));
+            ECPublicKeySpec spec = new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class));
+            return KeyFactory.getInstance("EC").generatePublic(spec);
+        }
+        if ("OKP".equals(kty)) {
+            byte[] prefix = switch (String.valueOf(jwk.get("crv"))) {
+                case "Ed25519" -> ED25519_X509_PREFIX;
+                case "Ed448" -> ED448_X509_PREFIX;
+                default -> null;
+            };
+            if (prefix == null) {
+                return null;
+            }
+            byte[] x = decode(jwk, "x");
+            byte[] encoded = new byte[prefix.length + x.length];
+            System.arraycopy(prefix, 0, encoded, 0, prefix.length);
+            System.arraycopy(x, 0, encoded, prefix.length, x.length);
+            return KeyFactory.getInstance("EdDSA").generatePublic(new X509EncodedKeySpec(encoded));
+        }
+        return null;
+    }
+
+    private static BigInteger unsigned(Map<?, ?> jwk, String member) {
+        return new BigInteger(1, decode(jwk, member));
+    }
+
+    private static byte[] decode(Map<?, ?> jwk, String member) {
+        Object value = jwk.get(member);
+        if (!(value instanceof String encoded)) {
+            throw new IllegalArgumentException("JWK is missing member: " + member);
+        }
+        return Base64.getUrlDecoder().decode(encoded);
+    }
+
+    private static byte[] hex(String hex) {
+        return HexFormat.of().parseHex(hex);
+    }
+}
@@ -0,0 +1,175 @@
+package com.leveledcv.tokenAuthenticationLib.jwt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JSON Web Key Set loaded from a file or URL, cached in memory and refreshed in the background.
+ * A lookup for an unknown key id triggers an early refresh, at most once per {@code minRefreshInterval},
+ * so rotated keys are picked up without waiting for the next scheduled refresh. Every load, the first one
+ * included, runs on the background thread; the constructor and a lookup wait for it at most {@code unknownKeyWait}.
+ */
+@Slf4j
+public class JwksKeySource implements AutoCloseable {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Callable<String> loader;
+    private final long minRefreshIntervalNanos;
+    private final long unknownKeyWaitNanos;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong lastRefresh = new AtomicLong(System.nanoTime());
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile CompletableFuture<Void> pendingRefresh = CompletableFuture.completedFuture(null);
+
+    /**
+     * @param loader returns the JWKS document
+     * @param refreshInterval how often the key set is reloaded
+     * @param minRefreshInterval minimum time between reloads triggered by unknown key ids
+     */
+    public JwksKeySource(Callable<String> loader, Duration refreshInterval, Duration minRefreshInterval) {
+        this(loader, refreshInterval, minRefreshInterval, Duration.ofMillis(200));
+    }
+
+    /**
+     * @param unknownKeyWait how long a lookup for an unknown key id waits for the refresh it triggers,
+     *                       and the constructor for the first load
+     */
+    public JwksKeySource(Callable<String> loader, Duration refreshInterval, Duration minRefreshInterval,
+                         Duration unknownKeyWait) {
+        this.loader = loader;
+        this.minRefreshIntervalNanos = minRefreshInterval.toNanos();
+        this.unknownKeyWaitNanos = unknownKeyWait.toNanos();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("token-auth-jwks-"));
+        // A slow JWKS endpoint holds up startup no longer than an unknown key holds up a request; if the first
+        // load is still running, lookups wait for it the same way
+        pendingRefresh = CompletableFuture.runAsync(this::refresh, scheduler);
+        await(pendingRefresh);
+        long interval = refreshInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Look up a key by id. When the token carries no key id and the set holds a single key, that key is used.
+     *
+     * @param keyId the JWS "kid" header, may be null
+     * @return the key, or null if no such key is known
+     */
+    public PublicKey getKey(String keyId) {
+        PublicKey key = find(keys, keyId);
+        if (key == null) {
+            CompletableFuture<Void> refresh = requestRefresh();
+            if (refresh != null && await(refresh)) {
+                key = find(keys, keyId);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * @return true if the key set holds at least one key
+     */
+    public boolean isLoaded() {
+        return !keys.isEmpty();
+    }
+
+    private static PublicKey find(Map<String, PublicKey> keys, String keyId) {
+        if (keyId != null) {
+            return keys.get(keyId);
+        }
+        return keys.size() == 1 ? keys.values().iterator().next() : null;
+    }
+
+    /**
+     * @return the refresh in progress or newly scheduled, or null if the key set was refreshed too recently
+     */
+    private CompletableFuture<Void> requestRefresh() {
+        CompletableFuture<Void> pending = pendingRefresh;
+        if (!pending.isDone()) {
+            return pending;
+        }
+        long last = lastRefresh.get();
+        long now = System.nanoTime();
+        if (now - last < minRefreshIntervalNanos || !lastRefresh.compareAndSet(last, now)) {
+            return null;
+        }
+        try {
+            pending = CompletableFuture.runAsync(this::refresh, scheduler);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+        pendingRefresh = pending;
+        return pending;
+    }
+
+    /**
+     * @return true if the refresh finished within the wait
+     */
+    private boolean await(CompletableFuture<Void> refresh) {
+        try {
+            refresh.get(unknownKeyWaitNanos, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException | ExecutionException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void refresh() {
+        try {
+            Map<?, ?> document = objectMapper.readValue(loader.call(), Map.class);
+            Map<String, PublicKey> loaded = new HashMap<>();
+            if (document.get("keys") instanceof List<?> jwks) {
+                for (Object jwk : jwks) {
+                    if (jwk instanceof Map<?, ?> jwkMap) {
+                        addKey(loaded, jwkMap);
+                    }
+                }
+            }
+            keys = Map.copyOf(loaded);
+            lastRefresh.set(System.nanoTime());
+            log.debug("Loaded {} keys from JWKS", loaded.size());
+        } catch (Exception e) {
+            log.warn("Failed to load JWKS, keeping {} previously loaded keys", keys.size(), e);
+        }
+    }
+
+    private static void addKey(Map<String, PublicKey> keys, Map<?, ?> jwk) {
+        if (jwk.get("use") != null && !"sig".equals(jwk.get("use"))) {
+            return;
+        }
+        try {
+            PublicKey key = JwkParser.parse(jwk);
+            if (key != null) {
+                Object kid = jwk.get("kid");
+                keys.put(kid != null ? kid.toString() : "", key);
+            }
+        } catch (Exception e) {
+            log.warn("Skipping invalid JWK with kid {}", jwk.get("kid"), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
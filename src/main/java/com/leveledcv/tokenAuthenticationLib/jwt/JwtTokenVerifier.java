@@ -0,0 +1,283 @@
+package com.leveledcv.tokenAuthenticationLib.jwt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.verifier.TokenResponseParser;
+import com.leveledcv.tokenAuthenticationLib.verifier.TokenVerificationException;
+import com.leveledcv.tokenAuthenticationLib.verifier.TokenVerifier;
+import com.leveledcv.tokenAuthenticationLib.verifier.VerificationResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.EdECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verifies signed JWTs locally against keys from a {@link JwksKeySource}, without a network call.
+ * Supports RS256/384/512, ES256/384/512 and EdDSA signatures and checks the exp and nbf claims.
+ * The username, email and status claims map to the response like the service's JSON body,
+ * with sub used when there is no username claim.
+ * Tokens that are not JWTs are passed to the delegate, typically the remote verifier.
+ */
+@Slf4j
+public class JwtTokenVerifier implements TokenVerifier, AutoCloseable {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final JwksKeySource keySource;
+    private final TokenVerifier delegate;
+    private final String tokenPrefix;
+    private final String issuer;
+    private final Duration clockSkew;
+    private final Clock clock;
+
+    /**
+     * @param keySource keys used to check signatures
+     * @param delegate verifier for tokens that are not JWTs, or null to reject them
+     * @param tokenPrefix prefix stripped before the token is parsed, e.g. "Bearer "
+     * @param issuer required value of the iss claim, or null to accept any issuer
+     * @param clockSkew tolerance applied to exp and nbf
+     */
+    public JwtTokenVerifier(JwksKeySource keySource, TokenVerifier delegate, String tokenPrefix,
+                            String issuer, Duration clockSkew) {
+        this(keySource, delegate, tokenPrefix, issuer, clockSkew, Clock.systemUTC());
+    }
+
+    public JwtTokenVerifier(JwksKeySource keySource, TokenVerifier delegate, String tokenPrefix,
+                            String issuer, Duration clockSkew, Clock clock) {
+        this.keySource = keySource;
+        this.delegate = delegate;
+        this.tokenPrefix = tokenPrefix;
+        this.issuer = issuer;
+        this.clockSkew = clockSkew;
+        this.clock = clock;
+    }
+
+    @Override
+    public TokenVerificationResponse verify(String token) {
+        String[] parts = split(token);
+        if (parts == null) {
+            return delegate != null ? delegate.verify(token) : null;
+        }
+        return verifyJwt(parts).response();
+    }
+
+    /**
+     * A verified JWT reports its exp claim as the session expiry
+     */
+    @Override
+    public VerificationResult verifyWithMetadata(String token, String etag) {
+        String[] parts = split(token);
+        if (parts == null) {
+            return delegate != null ? delegate.verifyWithMetadata(token, etag) : VerificationResult.of(null);
+        }
+        return verifyJwt(parts);
+    }
+
+    @Override
+    public Map<String, TokenVerificationResponse> verifyAll(List<String> tokens) {
+        Map<String, TokenVerificationResponse> results = new HashMap<>();
+        List<String> opaque = new ArrayList<>();
+        for (String token : tokens) {
+            String[] parts = split(token);
+            if (parts == null) {
+                opaque.add(token);
+                continue;
+            }
+            TokenVerificationResponse response = verifyJwt(parts).response();
+            if (response != null) {
+                results.put(token, response);
+            }
+        }
+        if (!opaque.isEmpty() && delegate != null) {
+            results.putAll(delegate.verifyAll(opaque));
+        }
+        return results;
+    }
+
+    /**
+     * @return true if the token is a compact JWS verified locally rather than by the delegate
+     */
+    public boolean isJwt(String token) {
+        return split(token) != null;
+    }
+
+    /**
+     * @return the three encoded JWS segments, or null if the token is not a compact JWS
+     */
+    private String[] split(String token) {
+        if (token == null) {
+            return null;
+        }
+        String jwt = token;
+        if (tokenPrefix != null && !tokenPrefix.isEmpty() && jwt.startsWith(tokenPrefix)) {
+            jwt = jwt.substring(tokenPrefix.length());
+        }
+        jwt = jwt.trim();
+        int first = jwt.indexOf('.');
+        int second = first < 0 ? -1 : jwt.indexOf('.', first + 1);
+        if (second < 0 || jwt.indexOf('.', second + 1) >= 0 || !jwt.startsWith("eyJ")) {
+            return null;
+        }
+        return new String[]{jwt.substring(0, first), jwt.substring(first + 1, second), jwt.substring(second + 1)};
+    }
+
+    private VerificationResult verifyJwt(String[] parts) {
+        Map<?, ?> header;
+        byte[] payload;
+        Map<?, ?> claims;
+        byte[] signature;
+        try {
+            header = decodeJson(parts[0]);
+            payload = Base64.getUrlDecoder().decode(parts[1]);
+            claims = objectMapper.readValue(payload, Map.class);
+            signature = Base64.getUrlDecoder().decode(parts[2]);
+        } catch (Exception e) {
+            log.debug("Rejecting malformed JWT", e);
+            return VerificationResult.of(null);
+        }
+
+        Object kid = header.get("kid");
+        PublicKey key = keySource.getKey(kid != null ? kid.toString() : null);
+        if (key == null) {
+            if (!keySource.isLoaded()) {
+                throw new TokenVerificationException("No JWKS keys available to verify JWT");
+            }
+            log.debug("Rejecting JWT signed with unknown key {}", kid);
+            return VerificationResult.of(null);
+        }
+
+        String algorithm = String.valueOf(header.get("alg"));
+        if (!verifySignature(algorithm, key, parts, signature)) {
+            log.debug("Rejecting JWT with invalid {} signature", algorithm);
+            return VerificationResult.of(null);
+        }
+        if (!claimsValid(claims)) {
+            return VerificationResult.of(null);
+        }
+        // The user fields are read the same way as from a verification service response
+        TokenVerificationResponse response;
+        try {
+            response = TokenResponseParser.read(payload);
+        } catch (IOException e) {
+            log.debug("Rejecting malformed JWT", e);
+            return VerificationResult.of(null);
+        }
+        if (response == null) {
+            log.debug("Rejecting JWT with a session-not-found error claim");
+            return VerificationResult.of(null);
+        }
+        if (response.getUsername() == null && claims.get("sub") != null) {
+            response.setUsername(claims.get("sub").toString());
+        }
+        long expiresAt = ((Number) claims.get("exp")).longValue() * 1000;
+        return new VerificationResult(response, -1, expiresAt, null, false);
+    }
+
+    private boolean verifySignature(String algorithm, PublicKey key, String[] parts, byte[] signature) {
+        String jcaAlgorithm = switch (algorithm) {
+            case "RS256" -> key instanceof RSAPublicKey ? "SHA256withRSA" : null;
+            case "RS384" -> key instanceof RSAPublicKey ? "SHA384withRSA" : null;
+            case "RS512" -> key instanceof RSAPublicKey ? "SHA512withRSA" : null;
+            case "ES256" -> onCurve(key, 256, signature) ? "SHA256withECDSA" : null;
+            case "ES384" -> onCurve(key, 384, signature) ? "SHA384withECDSA" : null;
+            case "ES512" -> onCurve(key, 521, signature) ? "SHA512withECDSA" : null;
+            case "EdDSA" -> key instanceof EdECPublicKey ? "EdDSA" : null;
+            default -> null;
+        };
+        if (jcaAlgorithm == null) {
+            return false;
+        }
+        try {
+            Signature verifier = Signature.getInstance(jcaAlgorithm);
+            verifier.initVerify(key);
+            verifier.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+            return verifier.verify(key instanceof ECPublicKey ? joseToDer(signature) : signature);
+        } catch (Exception e) {
+            log.debug("JWT signature check failed", e);
+            return false;
+        }
+    }
+
+    /**
+     * ESxxx names both the hash and the curve (RFC 7518, section 3.4): the key must be on P-256, P-384 or P-521
+     * respectively, and the signature must be r and s of that curve's size
+     */
+    private static boolean onCurve(PublicKey key, int fieldSize, byte[] signature) {
+        return key instanceof ECPublicKey ec
+                && ec.getParams().getCurve().getField().getFieldSize() == fieldSize
+                && signature.length == 2 * ((fieldSize + 7) / 8);
+    }
+
+    private boolean claimsValid(Map<?, ?> claims) {
+        long now = clock.instant().getEpochSecond();
+        long skew = clockSkew.toSeconds();
+        if (!(claims.get("exp") instanceof Number exp) || now - skew >= exp.longValue()) {
+            log.debug("Rejecting expired JWT");
+            return false;
+        }
+        if (claims.get("nbf") instanceof Number nbf && now + skew < nbf.longValue()) {
+            log.debug("Rejecting JWT that is not yet valid");
+            return false;
+        }
+        if (issuer != null && !issuer.equals(claims.get("iss"))) {
+            log.debug("Rejecting JWT from issuer {}", claims.get("iss"));
+            return false;
+        }
+        return true;
+    }
+
+    private static Map<?, ?> decodeJson(String segment) throws IOException {
+        return objectMapper.readValue(Base64.getUrlDecoder().decode(segment), Map.class);
+    }
+
+    /**
+     * Convert a JWS ECDSA signature (r and s concatenated) into the DER sequence expected by the JDK
+     */
+    static byte[] joseToDer(byte[] signature) {
+        int half = signature.length / 2;
+        byte[] r = derInteger(signature, 0, half);
+        byte[] s = derInteger(signature, half, half);
+        int contentLength = r.length + s.length;
+        byte[] lengthBytes = contentLength < 128
+                ? new byte[]{(byte) contentLength}
+                : new byte[]{(byte) 0x81, (byte) contentLength};
+        byte[] der = new byte[1 + lengthBytes.length + contentLength];
+        der[0] = 0x30;
+        System.arraycopy(lengthBytes, 0, der, 1, lengthBytes.length);
+        System.arraycopy(r, 0, der, 1 + lengthBytes.length, r.length);
+        System.arraycopy(s, 0, der, 1 + lengthBytes.length + r.length, s.length);
+        return der;
+    }
+
+    private static byte[] derInteger(byte[] source, int offset, int length) {
+        byte[] value = new BigInteger(1, Arrays.copyOfRange(source, offset, offset + length))
+                .toByteArray();
+        byte[] encoded = new byte[2 + value.length];
+        encoded[0] = 0x02;
+        encoded[1] = (byte) value.length;
+        System.arraycopy(value, 0, encoded, 2, value.length);
+        return encoded;
+    }
+
+    @Override
+    public void close() throws Exception {
+        keySource.close();
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.leveledcv.tokenAuthenticationLib.metrics;
+
+import com.leveledcv.tokenAuthenticationLib.verifier.TokenVerificationException;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.http.HttpStatusCode;
+
+import java.util.function.Supplier;
+
+/**
+ * Instrumentation hooks on the authentication path. This base class only wraps remote calls in an
+ * {@link Observation}, so traces show the time spent in authentication; {@link MicrometerAuthenticationMetrics}
+ * also records meters when Micrometer is on the classpath.
+ */
+public class AuthenticationMetrics {
+
+    /**
+     * Name of the observation around each call to the verification service
+     */
+    public static final String REMOTE_CALL_OBSERVATION = "auth.verification.remote";
+
+    private static final AuthenticationMetrics NOOP = new AuthenticationMetrics(ObservationRegistry.NOOP);
+
+    /**
+     * Result of a call to the verification service
+     */
+    public enum Outcome {
+        SUCCESS("success"),
+        SESSION_NOT_FOUND("session-not-found"),
+        PARSE_FAILURE("parse-failure"),
+        TRANSPORT_ERROR("transport-error");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        /**
+         * @return the outcome of a verification that failed with the given exception
+         */
+        public static Outcome of(Throwable failure) {
+            return failure instanceof TokenVerificationException e
+                    && e.getReason() == TokenVerificationException.Reason.INVALID_RESPONSE
+                    ? PARSE_FAILURE : TRANSPORT_ERROR;
+        }
+    }
+
+    /**
+     * Why a request was rejected without a verification call
+     */
+    public enum Rejection {
+        MISSING_HEADER("missing-header"),
+        EMPTY_TOKEN("empty-token"),
+        CLIENT_THROTTLED("client-throttled"),
+        TOKEN_THROTTLED("token-throttled");
+
+        private final String tag;
+
+        Rejection(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    /**
+     * How the authentication of a @RequireAuth call ended
+     */
+    public enum AuthenticationOutcome {
+        AUTHENTICATED("authenticated"),
+        FORBIDDEN("forbidden"),
+        THROTTLED("throttled"),
+        UNAVAILABLE("unavailable"),
+        ERROR("error");
+
+        private final String tag;
+
+        AuthenticationOutcome(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        /**
+         * @return the outcome of an authentication that failed with the given status
+         */
+        public static AuthenticationOutcome of(HttpStatusCode status) {
+            return switch (status.value()) {
+                case 403 -> FORBIDDEN;
+                case 429 -> THROTTLED;
+                case 503 -> UNAVAILABLE;
+                default -> ERROR;
+            };
+        }
+    }
+
+    private final ObservationRegistry observationRegistry;
+
+    public AuthenticationMetrics(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * @return instrumentation that records nothing
+     */
+    public static AuthenticationMetrics noop() {
+        return NOOP;
+    }
+
+    /**
+     * Run a call to the verification service inside an observation
+     */
+    public <T> T observeRemoteCall(Supplier<T> call) {
+        return Observation.createNotStarted(REMOTE_CALL_OBSERVATION, observationRegistry)
+                .contextualName("token verification")
+                .observe(call);
+    }
+
+    /**
+     * Mark the start of a verification call
+     *
+     * @return the start time to pass to {@link #verificationFinished}
+     */
+    public long verificationStarted() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Mark the end of a verification call started with {@link #verificationStarted}
+     */
+    public void verificationFinished(long startNanos, Outcome outcome) {
+    }
+
+    /**
+     * Count a request rejected without a verification call
+     */
+    public void rejected(Rejection rejection) {
+    }
+
+    /**
+     * Count a verification abandoned because the request's deadline passed
+     *
+     * @param servedStale whether the last-known-good result was served instead of failing the request
+     */
+    public void deadlineExceeded(boolean servedStale) {
+    }
+
+    /**
+     * Record the time taken to authenticate a @RequireAuth call, including any verification it waited for,
+     * whether the call was let through or refused
+     */
+    public void authenticationFinished(long startNanos, AuthenticationOutcome outcome) {
+    }
+}
@@ -0,0 +1,98 @@
+package com.leveledcv.tokenAuthenticationLib.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.ObservationRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records authentication meters in a {@link MeterRegistry}:
+ * <ul>
+ *     <li>{@code auth.verification}: latency of verification calls, tagged by outcome, with percentiles</li>
+ *     <li>{@code auth.verification.inflight}: verification calls currently in progress</li>
+ *     <li>{@code auth.rejections}: requests rejected without a verification call, tagged by reason</li>
+ *     <li>{@code auth.deadline.exceeded}: verifications abandoned when the request's deadline passed, tagged by
+ *     whether a last-known-good result was served</li>
+ *     <li>{@code auth.authentication}: latency of authenticating @RequireAuth calls, verification included,
+ *     tagged by outcome</li>
+ * </ul>
+ */
+public class MicrometerAuthenticationMetrics extends AuthenticationMetrics {
+
+    private final Map<Outcome, Timer> verificationTimers = new EnumMap<>(Outcome.class);
+    private final Map<Rejection, Counter> rejectionCounters = new EnumMap<>(Rejection.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter deadlineServedStale;
+    private final Counter deadlineFailed;
+    private final Map<AuthenticationOutcome, Timer> authenticationTimers = new EnumMap<>(AuthenticationOutcome.class);
+
+    public MicrometerAuthenticationMetrics(MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+        super(observationRegistry);
+        for (Outcome outcome : Outcome.values()) {
+            verificationTimers.put(outcome, Timer.builder("auth.verification")
+                    .description("Latency of token verification calls")
+                    .tag("outcome", outcome.getTag())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        for (Rejection rejection : Rejection.values()) {
+            rejectionCounters.put(rejection, Counter.builder("auth.rejections")
+                    .description("Requests rejected without a token verification call")
+                    .tag("reason", rejection.getTag())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("auth.verification.inflight", inFlight, AtomicInteger::get)
+                .description("Token verification calls in progress")
+                .register(meterRegistry);
+        deadlineServedStale = deadlineCounter(meterRegistry, "last-known-good");
+        deadlineFailed = deadlineCounter(meterRegistry, "none");
+        for (AuthenticationOutcome outcome : AuthenticationOutcome.values()) {
+            authenticationTimers.put(outcome, Timer.builder("auth.authentication")
+                    .description("Time taken to authenticate @RequireAuth calls")
+                    .tag("outcome", outcome.getTag())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static Counter deadlineCounter(MeterRegistry meterRegistry, String fallback) {
+        return Counter.builder("auth.deadline.exceeded")
+                .description("Token verifications abandoned because the request's deadline passed")
+                .tag("fallback", fallback)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public long verificationStarted() {
+        inFlight.incrementAndGet();
+        return super.verificationStarted();
+    }
+
+    @Override
+    public void verificationFinished(long startNanos, Outcome outcome) {
+        inFlight.decrementAndGet();
+        verificationTimers.get(outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void rejected(Rejection rejection) {
+        rejectionCounters.get(rejection).increment();
+    }
+
+    @Override
+    public void deadlineExceeded(boolean servedStale) {
+        (servedStale ? deadlineServedStale : deadlineFailed).increment();
+    }
+
+    @Override
+    public void authenticationFinished(long startNanos, AuthenticationOutcome outcome) {
+        authenticationTimers.get(outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -2,6 +2,9 @@ package com.leveledcv.tokenAuthenticationLib.models.enums;
 
 import lombok.Getter;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Enumeration representing the various states of a user account in the authentication system.
  * This enum provides a clear, standardized way to represent user account status across the application.
@@ -63,6 +66,16 @@ public enum UserStatus {
      */
     REQUIRES_ADDITIONAL_VERIFICATION("Requires Additional Verification", "Additional verification required to fully activate account.");
 
+    private static final Map<String, UserStatus> BY_NAME;
+
+    static {
+        Map<String, UserStatus> byName = new HashMap<>();
+        for (UserStatus status : values()) {
+            byName.put(status.name(), status);
+        }
+        BY_NAME = Map.copyOf(byName);
+    }
+
     private final String displayName;
     private final String description;
 
@@ -71,6 +84,16 @@ public enum UserStatus {
         this.description = description;
     }
 
+    /**
+     * Looks up a status by name from a precomputed table. Unlike {@link #valueOf(String)},
+     * an unknown name does not throw.
+     * @param name the enum constant name, e.g. "ACTIVE"
+     * @return the status, or null if the name is null or unknown
+     */
+    public static UserStatus fromName(String name) {
+        return name != null ? BY_NAME.get(name) : null;
+    }
+
     /**
      * Checks if the user can log in with this status.
      * @return true if login is allowed, false otherwise
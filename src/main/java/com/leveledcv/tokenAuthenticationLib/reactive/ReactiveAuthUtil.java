@@ -0,0 +1,44 @@
+package com.leveledcv.tokenAuthenticationLib.reactive;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.User;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import reactor.core.publisher.Mono;
+
+/**
+ * Utility class to access authenticated user information in WebFlux controllers.
+ * Each method completes empty if the request is not authenticated.
+ */
+public final class ReactiveAuthUtil {
+
+    private ReactiveAuthUtil() {
+    }
+
+    /**
+     * Get the current authenticated user as a User object
+     */
+    public static Mono<User> getUser() {
+        return getCurrentUser().map(user -> new User(user.getUsername(), user.getEmail(), user.getStatus()));
+    }
+
+    /**
+     * Get the complete user information for the current authenticated user
+     */
+    public static Mono<TokenVerificationResponse> getCurrentUser() {
+        return ReactiveAuthenticationContext.getCurrentUser();
+    }
+
+    /**
+     * Get the username of the current authenticated user
+     */
+    public static Mono<String> getUsername() {
+        return getCurrentUser().mapNotNull(TokenVerificationResponse::getUsername);
+    }
+
+    /**
+     * Get the status of the current authenticated user
+     */
+    public static Mono<UserStatus> getStatus() {
+        return getCurrentUser().mapNotNull(TokenVerificationResponse::getStatus);
+    }
+}
@@ -0,0 +1,31 @@
+package com.leveledcv.tokenAuthenticationLib.reactive;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Reactor {@link Context} counterpart of {@link com.leveledcv.tokenAuthenticationLib.context.AuthenticationContext}
+ * for WebFlux applications, where a request is not bound to a single thread
+ */
+public final class ReactiveAuthenticationContext {
+
+    private static final Class<TokenVerificationResponse> USER_KEY = TokenVerificationResponse.class;
+
+    private ReactiveAuthenticationContext() {
+    }
+
+    /**
+     * Get the current user information from the subscriber context
+     */
+    public static Mono<TokenVerificationResponse> getCurrentUser() {
+        return Mono.deferContextual(context -> Mono.justOrEmpty(context.getOrEmpty(USER_KEY)));
+    }
+
+    /**
+     * Create a context that carries the given user, for use with {@code contextWrite}
+     */
+    public static Context withUser(TokenVerificationResponse user) {
+        return Context.of(USER_KEY, user);
+    }
+}
@@ -0,0 +1,428 @@
+package com.leveledcv.tokenAuthenticationLib.reactive;
+
+import com.leveledcv.tokenAuthenticationLib.cache.LastKnownGoodStore;
+import com.leveledcv.tokenAuthenticationLib.cache.NegativeVerificationCache;
+import com.leveledcv.tokenAuthenticationLib.cache.TokenKey;
+import com.leveledcv.tokenAuthenticationLib.cache.VerificationCache;
+import com.leveledcv.tokenAuthenticationLib.config.AuthProperties;
+import com.leveledcv.tokenAuthenticationLib.jwt.JwtTokenVerifier;
+import com.leveledcv.tokenAuthenticationLib.metrics.AuthenticationMetrics;
+import com.leveledcv.tokenAuthenticationLib.metrics.AuthenticationMetrics.Outcome;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.service.AdmissionRejectedException;
+import com.leveledcv.tokenAuthenticationLib.service.AdmissionThrottle;
+import com.leveledcv.tokenAuthenticationLib.service.CircuitBreaker;
+import com.leveledcv.tokenAuthenticationLib.service.Deadline;
+import com.leveledcv.tokenAuthenticationLib.service.ResponseTtlPolicy;
+import com.leveledcv.tokenAuthenticationLib.service.VerificationUnavailableException;
+import com.leveledcv.tokenAuthenticationLib.verifier.CacheHeaders;
+import com.leveledcv.tokenAuthenticationLib.verifier.TokenResponseParser;
+import com.leveledcv.tokenAuthenticationLib.verifier.TokenVerificationException;
+import com.leveledcv.tokenAuthenticationLib.verifier.VerificationEndpoints;
+import com.leveledcv.tokenAuthenticationLib.verifier.VerificationResult;
+import com.leveledcv.tokenAuthenticationLib.verifier.VerificationStatus;
+import com.leveledcv.tokenAuthenticationLib.verifier.VerificationEndpoints.Endpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking counterpart of {@link com.leveledcv.tokenAuthenticationLib.service.TokenVerificationService}.
+ * Shares the verification caches with the servlet path and, when auth.coalescing.enabled is set, coalesces
+ * concurrent verifications of the same token.
+ */
+@Slf4j
+public class ReactiveTokenVerificationService {
+
+    private final AuthProperties authProperties;
+    private final WebClient webClient;
+    private final VerificationCache verificationCache;
+    private final NegativeVerificationCache negativeCache;
+    private final JwtTokenVerifier jwtVerifier;
+    private final CircuitBreaker circuitBreaker;
+    private final LastKnownGoodStore lastKnownGood;
+    private final AuthenticationMetrics metrics;
+    private final VerificationEndpoints endpoints;
+    private final ResponseTtlPolicy ttlPolicy;
+    private final AdmissionThrottle admissionThrottle;
+    private final ConcurrentMap<TokenKey, Mono<TokenVerificationResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Set<TokenKey> refreshing = ConcurrentHashMap.newKeySet();
+
+    private ReactiveTokenVerificationService(Builder builder) {
+        this.authProperties = builder.authProperties;
+        this.webClient = builder.webClient;
+        this.verificationCache = builder.verificationCache;
+        this.negativeCache = builder.negativeCache;
+        this.jwtVerifier = builder.jwtVerifier;
+        this.circuitBreaker = builder.circuitBreaker;
+        this.lastKnownGood = builder.lastKnownGood;
+        this.metrics = builder.metrics;
+        this.endpoints = builder.endpoints != null
+                ? builder.endpoints : new VerificationEndpoints(List.of(builder.authProperties.getTokenVerifyUrl()));
+        this.ttlPolicy = builder.ttlPolicy;
+        this.admissionThrottle = builder.admissionThrottle;
+    }
+
+    /**
+     * @param webClient client the verification service is called with
+     * @return a builder of a service that verifies every token remotely at auth.token-verify-url,
+     * with every optional collaborator disabled
+     */
+    public static Builder builder(AuthProperties authProperties, WebClient webClient) {
+        return new Builder(authProperties, webClient);
+    }
+
+    /**
+     * Verifies the provided token without blocking
+     *
+     * @param token The authentication token to verify
+     * @return the user information, or an empty Mono if the token is invalid; fails with
+     * {@link VerificationUnavailableException} if the circuit breaker is enabled, the verification service
+     * is unavailable and there is no last-known-good result
+     */
+    public Mono<TokenVerificationResponse> verifyToken(String token) {
+        return verifyToken(token, Deadline.none());
+    }
+
+    /**
+     * Verifies the provided token without blocking, giving up on the remote call or the local JWT check when the
+     * deadline passes.
+     * A cached verification is always served; past the deadline, the last-known-good result is served if there
+     * is one, otherwise the Mono fails with {@link VerificationUnavailableException}.
+     *
+     * @param token The authentication token to verify
+     * @param deadline time by which the verification must be answered
+     */
+    public Mono<TokenVerificationResponse> verifyToken(String token, Deadline deadline) {
+        return verifyToken(token, deadline, null);
+    }
+
+    /**
+     * Verifies the provided token as above, charging the admission throttle when the token misses the caches.
+     * Requests answered from the caches are never throttled; throttled ones fail with
+     * {@link AdmissionRejectedException}.
+     *
+     * @param token The authentication token to verify
+     * @param deadline time by which the verification must be answered
+     * @param clientAddress address of the caller, or null if unknown
+     */
+    public Mono<TokenVerificationResponse> verifyToken(String token, Deadline deadline, String clientAddress) {
+        TokenKey key = TokenKey.of(token, authProperties.getTokenPrefix());
+        if (negativeCache.contains(key)) {
+            log.debug("Token rejected from negative cache");
+            return Mono.empty();
+        }
+
+        TokenVerificationResponse cached = verificationCache.get(key);
+        if (cached != null) {
+            log.debug("Token verification served from cache");
+            if (verificationCache.needsRefresh(key) && refreshing.add(key)) {
+                // Revalidate in the background, at most once at a time per token whether or not coalescing is
+                // enabled; callers keep getting the cached value meanwhile
+                coalesced(token, key)
+                        .doFinally(signal -> refreshing.remove(key))
+                        .subscribe(response -> { }, e -> log.debug("Background token revalidation failed", e));
+            }
+            return Mono.just(cached);
+        }
+
+        AdmissionThrottle.Decision decision = admissionThrottle.admit(clientAddress, token);
+        if (decision != AdmissionThrottle.Decision.ADMITTED) {
+            return Mono.error(new AdmissionRejectedException(decision));
+        }
+
+        if (jwtVerifier != null && jwtVerifier.isJwt(token)) {
+            // Signature checks and a wait for a JWKS reload must not run on the event loop
+            return withinDeadline(key, deadline, Mono.fromCallable(() -> jwtVerifier.verify(token))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .onErrorResume(e -> {
+                        log.error("Error during token verification", e);
+                        return e instanceof TokenVerificationException ? keysUnavailable(key, e) : Mono.empty();
+                    }));
+        }
+
+        return withinDeadline(key, deadline, Mono.defer(() -> coalesced(token, key)));
+    }
+
+    private Mono<TokenVerificationResponse> withinDeadline(TokenKey key, Deadline deadline,
+                                                           Mono<TokenVerificationResponse> verification) {
+        if (!deadline.isBounded()) {
+            return verification;
+        }
+        if (deadline.isExpired()) {
+            return deadlinePassed(key);
+        }
+        // Detached, so giving up at the deadline does not cancel the verification: like an abandoned call on the
+        // servlet stack, it still completes, reports to the breaker and caches its answer for the next request
+        Mono<TokenVerificationResponse> detached = Mono.defer(() -> Mono.fromFuture(verification.toFuture(), true));
+        return detached.timeout(Duration.ofNanos(deadline.remainingNanos()), Mono.defer(() -> deadlinePassed(key)));
+    }
+
+    private Mono<TokenVerificationResponse> deadlinePassed(TokenKey key) {
+        TokenVerificationResponse stale = lastKnownGood.get(key);
+        metrics.deadlineExceeded(stale != null);
+        if (stale != null) {
+            log.warn("Token verification deadline passed, serving last known good result");
+            return Mono.just(stale);
+        }
+        return Mono.error(new VerificationUnavailableException("Token verification deadline passed"));
+    }
+
+    private Mono<TokenVerificationResponse> coalesced(String token, TokenKey key) {
+        if (!authProperties.getCoalescing().isEnabled()) {
+            return verifyRemotely(token, key);
+        }
+        return inFlight.computeIfAbsent(key, k -> verifyRemotely(token, k)
+                .doFinally(signal -> inFlight.remove(k))
+                .cache());
+    }
+
+    private Mono<TokenVerificationResponse> verifyRemotely(String token, TokenKey key) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                return unavailable(key, null);
+            }
+            long start = metrics.verificationStarted();
+            AtomicBoolean recorded = new AtomicBoolean();
+            return exchange(token, key)
+                    .doOnSuccess(response -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            circuitBreaker.onSuccess(System.nanoTime() - start);
+                            metrics.verificationFinished(start,
+                                    response != null ? Outcome.SUCCESS : Outcome.SESSION_NOT_FOUND);
+                        }
+                    })
+                    .onErrorResume(e -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            circuitBreaker.onFailure(System.nanoTime() - start);
+                            metrics.verificationFinished(start, Outcome.of(e));
+                        }
+                        log.error("Error during token verification", e);
+                        return unavailable(key, e);
+                    })
+                    .doOnCancel(() -> {
+                        // A deadline or a disconnected client cancelled the call; hand its permit back, or a
+                        // half-open breaker would wait for a probe that never reports
+                        if (recorded.compareAndSet(false, true)) {
+                            circuitBreaker.release();
+                        }
+                    });
+        });
+    }
+
+    private Mono<TokenVerificationResponse> exchange(String token, TokenKey key) {
+        return Mono.defer(() -> {
+            Endpoint endpoint = endpoints.choose(null);
+            long start = endpoints.callStarted(endpoint);
+            return call(endpoint, token, key)
+                    .doOnSuccess(response -> endpoints.onSuccess(endpoint, start))
+                    .doOnError(e -> endpoints.onFailure(endpoint, start))
+                    .doOnCancel(() -> endpoints.callAbandoned(endpoint));
+        });
+    }
+
+    private Mono<TokenVerificationResponse> call(Endpoint endpoint, String token, TokenKey key) {
+        // Revalidate a cached entry conditionally, so an unchanged verification comes back without a body
+        String etag = ttlPolicy.isEnabled() ? verificationCache.etag(key) : null;
+        return webClient.get()
+                .uri(endpoint.getUrl())
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .headers(headers -> {
+                    if (etag != null) {
+                        headers.setIfNoneMatch(etag);
+                    }
+                })
+                .retrieve()
+                // A rejected token is an answer, not a failure of the service
+                .onStatus(VerificationStatus::rejectsToken, response -> Mono.empty())
+                .toEntity(byte[].class)
+                .flatMap(entity -> {
+                    if (VerificationStatus.rejectsToken(entity.getStatusCode())) {
+                        log.debug("Token verification failed with status: {}", entity.getStatusCode());
+                        return rejected(key);
+                    }
+                    long maxAge = CacheHeaders.maxAgeMillis(entity.getHeaders(), System.currentTimeMillis());
+                    if (entity.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                        return revalidated(endpoint, token, key, etag,
+                                VerificationResult.notModified(maxAge, entity.getHeaders().getETag()));
+                    }
+                    byte[] body = entity.getBody();
+                    if (body == null) {
+                        return Mono.empty();
+                    }
+                    TokenResponseParser.Body parsed;
+                    try {
+                        parsed = TokenResponseParser.readBody(body);
+                    } catch (IOException e) {
+                        return Mono.error(new TokenVerificationException("Failed to parse token verification response",
+                                e, TokenVerificationException.Reason.INVALID_RESPONSE));
+                    }
+                    TokenVerificationResponse response = parsed.user();
+                    if (response == null) {
+                        log.debug("Token verification failed: Session not found");
+                        return rejected(key);
+                    }
+                    VerificationResult result = new VerificationResult(response, maxAge, parsed.expiresAt(),
+                            entity.getHeaders().getETag(), false);
+                    ttlPolicy.put(verificationCache, key, result);
+                    ttlPolicy.putLastKnownGood(lastKnownGood, key, result);
+                    return Mono.just(response);
+                });
+    }
+
+    private Mono<TokenVerificationResponse> rejected(TokenKey key) {
+        // A background refresh may find that a cached token has since been revoked
+        verificationCache.invalidate(key);
+        negativeCache.put(key);
+        lastKnownGood.invalidate(key);
+        return Mono.empty();
+    }
+
+    /**
+     * Extend a cached entry the verification service answered with 304 Not Modified
+     */
+    private Mono<TokenVerificationResponse> revalidated(Endpoint endpoint, String token, TokenKey key, String etag,
+                                                        VerificationResult result) {
+        if (etag == null) {
+            return Mono.error(new TokenVerificationException("Unexpected 304 Not Modified to an unconditional request",
+                    null, TokenVerificationException.Reason.INVALID_RESPONSE));
+        }
+        TokenVerificationResponse cached = verificationCache.touch(key, Math.max(0, ttlPolicy.ttlMillis(result)));
+        if (cached == null) {
+            // Evicted while being revalidated; verify again without an entity tag
+            return call(endpoint, token, key);
+        }
+        log.debug("Cached token verification revalidated");
+        return Mono.just(cached);
+    }
+
+    /**
+     * Answer a JWT that could not be checked because no signing keys are loaded: the token was never judged
+     * invalid, so it fails with 503 unless there is a last-known-good result
+     */
+    private Mono<TokenVerificationResponse> keysUnavailable(TokenKey key, Throwable cause) {
+        TokenVerificationResponse stale = lastKnownGood.get(key);
+        if (stale != null) {
+            log.warn("JWKS keys unavailable, serving last known good result");
+            return Mono.just(stale);
+        }
+        return Mono.error(new VerificationUnavailableException("No JWKS keys available to verify JWT", cause));
+    }
+
+    private Mono<TokenVerificationResponse> unavailable(TokenKey key, Throwable cause) {
+        TokenVerificationResponse stale = lastKnownGood.get(key);
+        if (stale != null) {
+            log.warn("Verification service unavailable, serving last known good result");
+            return Mono.just(stale);
+        }
+        if (circuitBreaker.isEnabled()) {
+            return Mono.error(new VerificationUnavailableException(cause == null
+                    ? "Token verification circuit is open" : "Token verification service unavailable", cause));
+        }
+        return Mono.empty();
+    }
+
+    /**
+     * Collaborators of a {@link ReactiveTokenVerificationService}; any left unset are disabled
+     */
+    public static class Builder {
+
+        private final AuthProperties authProperties;
+        private final WebClient webClient;
+        private VerificationCache verificationCache = VerificationCache.disabled();
+        private NegativeVerificationCache negativeCache = NegativeVerificationCache.disabled();
+        private JwtTokenVerifier jwtVerifier;
+        private CircuitBreaker circuitBreaker = CircuitBreaker.disabled();
+        private LastKnownGoodStore lastKnownGood = LastKnownGoodStore.disabled();
+        private AuthenticationMetrics metrics = AuthenticationMetrics.noop();
+        private VerificationEndpoints endpoints;
+        private ResponseTtlPolicy ttlPolicy = ResponseTtlPolicy.disabled();
+        private AdmissionThrottle admissionThrottle = AdmissionThrottle.disabled();
+
+        private Builder(AuthProperties authProperties, WebClient webClient) {
+            this.authProperties = authProperties;
+            this.webClient = webClient;
+        }
+
+        /**
+         * @param verificationCache cache shared with the servlet path
+         */
+        public Builder verificationCache(VerificationCache verificationCache) {
+            this.verificationCache = verificationCache;
+            return this;
+        }
+
+        public Builder negativeCache(NegativeVerificationCache negativeCache) {
+            this.negativeCache = negativeCache;
+            return this;
+        }
+
+        /**
+         * @param jwtVerifier verifies JWTs locally, or null to verify every token remotely
+         */
+        public Builder jwtVerifier(JwtTokenVerifier jwtVerifier) {
+            this.jwtVerifier = jwtVerifier;
+            return this;
+        }
+
+        /**
+         * @param circuitBreaker breaker shared with the servlet path
+         */
+        public Builder circuitBreaker(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        /**
+         * @param lastKnownGood results served while the verification service is unavailable
+         */
+        public Builder lastKnownGood(LastKnownGoodStore lastKnownGood) {
+            this.lastKnownGood = lastKnownGood;
+            return this;
+        }
+
+        public Builder metrics(AuthenticationMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * @param endpoints replicas of the verification service calls are balanced over
+         */
+        public Builder endpoints(VerificationEndpoints endpoints) {
+            this.endpoints = endpoints;
+            return this;
+        }
+
+        /**
+         * @param ttlPolicy lifetime of cached verifications from the caching metadata the verification service sends
+         */
+        public Builder ttlPolicy(ResponseTtlPolicy ttlPolicy) {
+            this.ttlPolicy = ttlPolicy;
+            return this;
+        }
+
+        /**
+         * @param admissionThrottle per-client and per-token limit charged only by verifications that miss the caches
+         */
+        public Builder admissionThrottle(AdmissionThrottle admissionThrottle) {
+            this.admissionThrottle = admissionThrottle;
+            return this;
+        }
+
+        public ReactiveTokenVerificationService build() {
+            return new ReactiveTokenVerificationService(this);
+        }
+    }
+}
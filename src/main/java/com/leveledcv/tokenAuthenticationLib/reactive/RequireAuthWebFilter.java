@@ -0,0 +1,140 @@
+package com.leveledcv.tokenAuthenticationLib.reactive;
+
+import com.leveledcv.tokenAuthenticationLib.annotations.RequireAuth;
+import com.leveledcv.tokenAuthenticationLib.config.AuthProperties;
+import com.leveledcv.tokenAuthenticationLib.metrics.AuthenticationMetrics;
+import com.leveledcv.tokenAuthenticationLib.metrics.AuthenticationMetrics.Rejection;
+import com.leveledcv.tokenAuthenticationLib.service.AdmissionRejectedException;
+import com.leveledcv.tokenAuthenticationLib.service.Deadline;
+import com.leveledcv.tokenAuthenticationLib.service.VerificationUnavailableException;
+import com.leveledcv.tokenAuthenticationLib.util.ClientAddresses;
+import com.leveledcv.tokenAuthenticationLib.util.TokenHeaders;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebFlux filter that authenticates requests routed to handlers annotated with @RequireAuth.
+ * The verified user is carried in the Reactor context and read with {@link ReactiveAuthUtil}.
+ */
+@Slf4j
+public class RequireAuthWebFilter implements WebFilter, Ordered {
+
+    private final RequestMappingHandlerMapping handlerMapping;
+    private final ReactiveTokenVerificationService tokenVerificationService;
+    private final AuthProperties authProperties;
+    private final AuthenticationMetrics metrics;
+    private final Map<Method, Optional<RequireAuth>> requireAuths = new ConcurrentHashMap<>();
+
+    public RequireAuthWebFilter(RequestMappingHandlerMapping handlerMapping,
+                                ReactiveTokenVerificationService tokenVerificationService,
+                                AuthProperties authProperties) {
+        this(handlerMapping, tokenVerificationService, authProperties, AuthenticationMetrics.noop());
+    }
+
+    public RequireAuthWebFilter(RequestMappingHandlerMapping handlerMapping,
+                                ReactiveTokenVerificationService tokenVerificationService,
+                                AuthProperties authProperties, AuthenticationMetrics metrics) {
+        this.handlerMapping = handlerMapping;
+        this.tokenVerificationService = tokenVerificationService;
+        this.authProperties = authProperties;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return handlerMapping.getHandler(exchange)
+                .map(this::findRequireAuth)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(requireAuth -> requireAuth.isPresent()
+                        ? authenticate(exchange, chain, requireAuth.get()) : chain.filter(exchange));
+    }
+
+    private Mono<Void> authenticate(ServerWebExchange exchange, WebFilterChain chain, RequireAuth requireAuth) {
+        // Extract token from header
+        String authHeader = exchange.getRequest().getHeaders().getFirst(authProperties.getTokenHeader());
+        if (authHeader == null || authHeader.isEmpty()) {
+            log.debug("No authorization header found");
+            metrics.rejected(Rejection.MISSING_HEADER);
+            return Mono.error(new ResponseStatusException(HttpStatus.FORBIDDEN, "Authorization header is missing"));
+        }
+
+        String token = TokenHeaders.toToken(authHeader, authProperties.getTokenPrefix());
+
+        // Blank credentials are rejected locally, without a verification call
+        if (token.isEmpty()) {
+            log.debug("Empty token found");
+            metrics.rejected(Rejection.EMPTY_TOKEN);
+            return Mono.error(new ResponseStatusException(HttpStatus.FORBIDDEN, "Invalid authorization token"));
+        }
+
+        // Verify token within the endpoint's time budget and the caller's deadline
+        Deadline deadline = Deadline.forRequest(requireAuth, authProperties.getBudget(),
+                exchange.getRequest().getHeaders()::getFirst);
+        return tokenVerificationService.verifyToken(token, deadline, clientAddress(exchange))
+                .onErrorMap(AdmissionRejectedException.class, e -> {
+                    log.debug("Request throttled: {}", e.getDecision());
+                    metrics.rejected(e.getDecision().getRejection());
+                    return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many authentication attempts");
+                })
+                .onErrorMap(VerificationUnavailableException.class, e -> {
+                    log.warn("Token verification unavailable: {}", e.getMessage());
+                    return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Authentication service unavailable");
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.debug("Token verification failed");
+                    return Mono.error(new ResponseStatusException(HttpStatus.FORBIDDEN, "Invalid or expired token"));
+                }))
+                .flatMap(userInfo -> {
+                    log.debug("Authentication successful for user: {}", userInfo.getUsername());
+                    return chain.filter(exchange)
+                            .contextWrite(ReactiveAuthenticationContext.withUser(userInfo));
+                });
+    }
+
+    private String clientAddress(ServerWebExchange exchange) {
+        String header = authProperties.getAdmission().getClientAddressHeader();
+        return ClientAddresses.resolve(header != null ? exchange.getRequest().getHeaders().getFirst(header) : null,
+                peerAddress(exchange));
+    }
+
+    private static String peerAddress(ServerWebExchange exchange) {
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        if (remoteAddress == null) {
+            return null;
+        }
+        return remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress() : remoteAddress.getHostString();
+    }
+
+    /**
+     * @return the @RequireAuth of the handler, from the method or else its controller class
+     */
+    private Optional<RequireAuth> findRequireAuth(Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return Optional.empty();
+        }
+        return requireAuths.computeIfAbsent(handlerMethod.getMethod(), method -> Optional.ofNullable(
+                AnnotatedElementUtils.findMergedAnnotation(method, RequireAuth.class))
+                .or(() -> Optional.ofNullable(
+                        AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), RequireAuth.class))));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 100;
+    }
+}
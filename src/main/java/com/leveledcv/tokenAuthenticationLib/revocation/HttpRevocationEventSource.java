@@ -0,0 +1,80 @@
+package com.leveledcv.tokenAuthenticationLib.revocation;
+
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+
+/**
+ * Opens a server-sent events stream over HTTP.
+ * The connection is dedicated to the stream rather than taken from the verification client's pool,
+ * and its socket timeout acts as the idle timeout, so a silently dropped connection is detected.
+ */
+public class HttpRevocationEventSource implements RevocationListener.EventSource, AutoCloseable {
+
+    private final String url;
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * @param url URL of the event stream
+     * @param connectTimeout timeout for establishing the connection
+     * @param idleTimeout time without any data after which the stream is considered dead
+     */
+    public HttpRevocationEventSource(String url, Duration connectTimeout, Duration idleTimeout) {
+        this.url = url;
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(Timeout.of(connectTimeout))
+                                .setSocketTimeout(Timeout.of(idleTimeout))
+                                .build())
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.of(idleTimeout))
+                        .build())
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    @Override
+    public InputStream open(String lastEventId) throws IOException {
+        HttpGet request = new HttpGet(url);
+        request.setHeader("Accept", "text/event-stream");
+        request.setHeader("Cache-Control", "no-cache");
+        if (lastEventId != null) {
+            request.setHeader("Last-Event-ID", lastEventId);
+        }
+        ClassicHttpResponse response = httpClient.executeOpen(null, request, null);
+        HttpEntity entity = response.getEntity();
+        if (response.getCode() != HttpStatus.SC_OK || entity == null) {
+            request.cancel();
+            response.close();
+            throw new IOException("Revocation stream returned HTTP " + response.getCode());
+        }
+        return new FilterInputStream(entity.getContent()) {
+            @Override
+            public void close() throws IOException {
+                // Abort the connection instead of draining a stream that never ends; this also
+                // unblocks a read in progress on another thread
+                request.cancel();
+                response.close();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+}
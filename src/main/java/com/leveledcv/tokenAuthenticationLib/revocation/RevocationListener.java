@@ -0,0 +1,250 @@
+package com.leveledcv.tokenAuthenticationLib.revocation;
+
+import com.leveledcv.tokenAuthenticationLib.cache.LastKnownGoodStore;
+import com.leveledcv.tokenAuthenticationLib.cache.TokenKey;
+import com.leveledcv.tokenAuthenticationLib.cache.VerificationCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Subscribes to a server-sent events stream of revocations and evicts the matching entries from the local
+ * verification caches, so verifications can be cached for long TTLs without outliving a logout or lockout.
+ * <p>
+ * Understood events, one value per data line:
+ * <ul>
+ *     <li>{@code revoke-token}: token hash as produced by {@link TokenKey#toHex()}</li>
+ *     <li>{@code revoke-user}: username whose cached tokens are all evicted</li>
+ *     <li>{@code resync}: evict everything</li>
+ * </ul>
+ * Revocations published while disconnected are lost, so every (re)connection evicts the verification cache.
+ * The last-known-good store is kept, since the stream tends to drop while the identity stack is down, which is
+ * when the store is needed; revocations replayed on reconnect still evict from it.
+ * <p>
+ * The first connection waits for {@code restored}, e.g. the restore of a cache snapshot, so entries restored
+ * from before the instance started are evicted by the first resync rather than outliving revocations
+ * published while the instance was down.
+ */
+@Slf4j
+public class RevocationListener implements AutoCloseable {
+
+    public static final String REVOKE_TOKEN = "revoke-token";
+    public static final String REVOKE_USER = "revoke-user";
+    public static final String RESYNC = "resync";
+
+    private final EventSource source;
+    private final VerificationCache verificationCache;
+    private final LastKnownGoodStore lastKnownGood;
+    private final long reconnectDelayMillis;
+    private final long maxReconnectDelayMillis;
+    private final CompletableFuture<?> restored;
+    private final Thread thread;
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+
+    private volatile boolean running = true;
+    private volatile InputStream stream;
+    private String lastEventId;
+
+    /**
+     * @param source opens the event stream
+     * @param verificationCache cache to evict revoked tokens from
+     * @param lastKnownGood store to evict revoked tokens from
+     * @param reconnectDelay delay before the first reconnection attempt, doubled after each failed attempt
+     * @param maxReconnectDelay upper bound of the reconnection delay
+     */
+    public RevocationListener(EventSource source, VerificationCache verificationCache, LastKnownGoodStore lastKnownGood,
+                              Duration reconnectDelay, Duration maxReconnectDelay) {
+        this(source, verificationCache, lastKnownGood, reconnectDelay, maxReconnectDelay,
+                CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * @param restored completes when the verification cache has been restored, e.g. from a snapshot;
+     * the stream is not opened before
+     */
+    public RevocationListener(EventSource source, VerificationCache verificationCache, LastKnownGoodStore lastKnownGood,
+                              Duration reconnectDelay, Duration maxReconnectDelay, CompletableFuture<?> restored) {
+        this.source = source;
+        this.restored = restored;
+        this.verificationCache = verificationCache;
+        this.lastKnownGood = lastKnownGood;
+        this.reconnectDelayMillis = reconnectDelay.toMillis();
+        this.maxReconnectDelayMillis = Math.max(maxReconnectDelay.toMillis(), reconnectDelayMillis);
+        this.thread = new CustomizableThreadFactory("token-auth-revocation-").newThread(this::run);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Opens the event stream
+     */
+    @FunctionalInterface
+    public interface EventSource {
+
+        /**
+         * @param lastEventId id of the last event received, or null on the first connection
+         * @return the UTF-8 event stream; a read that times out or fails makes the listener reconnect
+         */
+        InputStream open(String lastEventId) throws IOException;
+    }
+
+    private void run() {
+        try {
+            restored.get();
+        } catch (InterruptedException e) {
+            return;
+        } catch (ExecutionException e) {
+            log.debug("Cache restore failed, connecting to the revocation stream anyway", e);
+        }
+        long delay = reconnectDelayMillis;
+        while (running) {
+            try (InputStream in = source.open(lastEventId)) {
+                stream = in;
+                delay = reconnectDelayMillis;
+                resync("connected", false);
+                read(in);
+                if (running) {
+                    log.warn("Revocation stream closed by the server");
+                }
+            } catch (IOException | RuntimeException e) {
+                if (running) {
+                    log.warn("Revocation stream failed: {}", e.toString());
+                }
+            } finally {
+                stream = null;
+            }
+            if (!running) {
+                return;
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                return;
+            }
+            delay = Math.min(delay * 2, maxReconnectDelayMillis);
+        }
+    }
+
+    private void read(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String event = null;
+        String id = null;
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                // A blank line ends the event
+                if (data.length() > 0 || event != null) {
+                    dispatch(event, data.toString());
+                }
+                if (id != null) {
+                    lastEventId = id;
+                }
+                event = null;
+                id = null;
+                data.setLength(0);
+                continue;
+            }
+            if (line.startsWith(":")) {
+                // Heartbeat comment
+                continue;
+            }
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(line.startsWith(": ", colon) ? colon + 2 : colon + 1);
+            switch (field) {
+                case "event" -> event = value;
+                case "id" -> id = value;
+                case "data" -> {
+                    if (data.length() > 0) {
+                        data.append('\n');
+                    }
+                    data.append(value);
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    private void dispatch(String event, String data) {
+        try {
+            switch (event != null ? event : "message") {
+                case REVOKE_TOKEN -> data.lines().map(String::trim).filter(hex -> !hex.isEmpty()).forEach(hex -> {
+                    TokenKey key = TokenKey.fromHex(hex);
+                    verificationCache.invalidate(key);
+                    lastKnownGood.invalidate(key);
+                });
+                case REVOKE_USER -> data.lines().map(String::trim).filter(user -> !user.isEmpty()).forEach(user -> {
+                    int evicted = verificationCache.invalidateUser(user) + lastKnownGood.invalidateUser(user);
+                    log.debug("Revoked {} cached verifications of user {}", evicted, user);
+                });
+                case RESYNC -> resync("requested by the server", true);
+                default -> {
+                    log.debug("Ignoring revocation event {}", event);
+                    return;
+                }
+            }
+            applied.increment();
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed revocation event {}: {}", event, e.getMessage());
+        }
+    }
+
+    private void resync(String reason, boolean includeLastKnownGood) {
+        log.info("Evicting all cached verifications, revocation stream {}", reason);
+        verificationCache.invalidateAll();
+        if (includeLastKnownGood) {
+            lastKnownGood.invalidateAll();
+        }
+        resyncs.increment();
+    }
+
+    /**
+     * @return true while the event stream is open
+     */
+    public boolean isConnected() {
+        return stream != null;
+    }
+
+    /**
+     * @return number of revocation events applied
+     */
+    public long getAppliedCount() {
+        return applied.sum();
+    }
+
+    /**
+     * @return number of times the verification cache was emptied
+     */
+    public long getResyncCount() {
+        return resyncs.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        InputStream in = stream;
+        try {
+            if (in != null) {
+                in.close();
+            }
+            if (source instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        } catch (Exception e) {
+            log.debug("Failed to close revocation stream", e);
+        }
+        thread.interrupt();
+    }
+}
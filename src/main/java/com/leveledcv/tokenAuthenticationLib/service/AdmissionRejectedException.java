@@ -0,0 +1,22 @@
+package com.leveledcv.tokenAuthenticationLib.service;
+
+/**
+ * Thrown when a token missed the verification caches and its client or the token itself is over the
+ * admission rate, so it is not verified. Answered with 429.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final AdmissionThrottle.Decision decision;
+
+    public AdmissionRejectedException(AdmissionThrottle.Decision decision) {
+        super("Token verification throttled: " + decision);
+        this.decision = decision;
+    }
+
+    /**
+     * @return which limit the request was over
+     */
+    public AdmissionThrottle.Decision getDecision() {
+        return decision;
+    }
+}
@@ -0,0 +1,305 @@
+package com.leveledcv.tokenAuthenticationLib.service;
+
+import com.leveledcv.tokenAuthenticationLib.metrics.AuthenticationMetrics.Rejection;
+
+import java.time.Clock;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local admission check run before a token that missed the caches is verified: a token bucket per client address
+ * and one per token prefix, so a single client or a single stolen token cannot flood the verification service.
+ * <p>
+ * Buckets live in fixed-size tables of packed {@code long} slots updated with compare-and-set, so memory is
+ * bounded by {@code maxKeys} and the check takes no lock. A bucket that has refilled completely is
+ * indistinguishable from a new one, so its slot is reused by the next key that hashes there; idle keys are
+ * evicted without a sweeper. When every candidate slot is busy, the key shares a bucket with its neighbour,
+ * which can only throttle earlier, never later.
+ */
+public class AdmissionThrottle {
+
+    /**
+     * Result of an admission check
+     */
+    public enum Decision {
+        ADMITTED(null),
+        CLIENT_THROTTLED(Rejection.CLIENT_THROTTLED),
+        TOKEN_THROTTLED(Rejection.TOKEN_THROTTLED);
+
+        private final Rejection rejection;
+
+        Decision(Rejection rejection) {
+            this.rejection = rejection;
+        }
+
+        /**
+         * @return the metrics reason for a throttled request, or null if it was admitted
+         */
+        public Rejection getRejection() {
+            return rejection;
+        }
+    }
+
+    private static final AdmissionThrottle DISABLED = new AdmissionThrottle();
+
+    private final boolean enabled;
+    private final BucketTable clientBuckets;
+    private final BucketTable tokenBuckets;
+    private final String tokenPrefix;
+    private final int tokenPrefixLength;
+    private final long seed;
+    private final Clock clock;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder clientThrottled = new LongAdder();
+    private final LongAdder tokenThrottled = new LongAdder();
+
+    private AdmissionThrottle(Builder builder) {
+        this.enabled = true;
+        this.clientBuckets = builder.clientRate > 0
+                ? new BucketTable(builder.maxKeys, builder.clientRate, builder.clientBurst) : null;
+        this.tokenBuckets = builder.tokenRate > 0
+                ? new BucketTable(builder.maxKeys, builder.tokenRate, builder.tokenBurst) : null;
+        this.tokenPrefix = builder.tokenPrefix;
+        this.tokenPrefixLength = builder.tokenPrefixLength;
+        this.seed = ThreadLocalRandom.current().nextLong();
+        this.clock = builder.clock;
+    }
+
+    private AdmissionThrottle() {
+        this.enabled = false;
+        this.clientBuckets = null;
+        this.tokenBuckets = null;
+        this.tokenPrefix = null;
+        this.tokenPrefixLength = 0;
+        this.seed = 0;
+        this.clock = null;
+    }
+
+    /**
+     * @return a throttle that admits every request
+     */
+    public static AdmissionThrottle disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * @return a builder of an enabled throttle, with neither limit set
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Take one request from the buckets of the client and of the token
+     *
+     * @param clientAddress address of the caller, or null if unknown
+     * @param token the token as sent for verification
+     */
+    public Decision admit(String clientAddress, String token) {
+        if (!enabled) {
+            return Decision.ADMITTED;
+        }
+        long now = clock.millis() * 1000;
+        if (clientBuckets != null && clientAddress != null
+                && !clientBuckets.tryAcquire(hash(clientAddress, 0, clientAddress.length()), now)) {
+            clientThrottled.increment();
+            return Decision.CLIENT_THROTTLED;
+        }
+        if (tokenBuckets != null) {
+            int start = tokenPrefix != null && token.regionMatches(true, 0, tokenPrefix, 0, tokenPrefix.length())
+                    ? tokenPrefix.length() : 0;
+            int end = tokenPrefixLength > 0 ? Math.min(start + tokenPrefixLength, token.length()) : token.length();
+            if (!tokenBuckets.tryAcquire(hash(token, start, end), now)) {
+                tokenThrottled.increment();
+                return Decision.TOKEN_THROTTLED;
+            }
+        }
+        admitted.increment();
+        return Decision.ADMITTED;
+    }
+
+    /**
+     * Seeded 64-bit hash of the characters from {@code start} to {@code end}, without copying them.
+     * The seed keeps callers from choosing keys that collide with someone else's bucket.
+     */
+    private long hash(String value, int start, int end) {
+        long h = seed;
+        for (int i = start; i < end; i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        // Murmur3 finalizer, so both the slot index and the fingerprint bits are well mixed
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getAdmittedCount() {
+        return admitted.sum();
+    }
+
+    public long getClientThrottledCount() {
+        return clientThrottled.sum();
+    }
+
+    public long getTokenThrottledCount() {
+        return tokenThrottled.sum();
+    }
+
+    /**
+     * Limits of an enabled {@link AdmissionThrottle}
+     */
+    public static class Builder {
+
+        private int maxKeys = 65_536;
+        private double clientRate;
+        private int clientBurst;
+        private double tokenRate;
+        private int tokenBurst;
+        private String tokenPrefix;
+        private int tokenPrefixLength;
+        private Clock clock = Clock.systemUTC();
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxKeys slots in each bucket table, rounded up to a power of two
+         */
+        public Builder maxKeys(int maxKeys) {
+            this.maxKeys = maxKeys;
+            return this;
+        }
+
+        /**
+         * @param rate sustained requests per second admitted per client address, or 0 for no client limit
+         * @param burst requests a client address may make at once before the rate applies
+         */
+        public Builder clientLimit(double rate, int burst) {
+            this.clientRate = rate;
+            this.clientBurst = burst;
+            return this;
+        }
+
+        /**
+         * @param rate sustained requests per second admitted per token prefix, or 0 for no token limit
+         * @param burst requests a token prefix may make at once before the rate applies
+         */
+        public Builder tokenLimit(double rate, int burst) {
+            this.tokenRate = rate;
+            this.tokenBurst = burst;
+            return this;
+        }
+
+        /**
+         * @param tokenPrefix the configured token prefix, which is not part of the credential; may be null
+         */
+        public Builder tokenPrefix(String tokenPrefix) {
+            this.tokenPrefix = tokenPrefix;
+            return this;
+        }
+
+        /**
+         * @param tokenPrefixLength leading characters of the credential that identify its bucket,
+         *                          or 0 for all of them
+         */
+        public Builder tokenPrefixLength(int tokenPrefixLength) {
+            this.tokenPrefixLength = tokenPrefixLength;
+            return this;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public AdmissionThrottle build() {
+            return new AdmissionThrottle(this);
+        }
+    }
+
+    /**
+     * Open-addressed table of token buckets using the generic cell rate algorithm: each slot packs a key
+     * fingerprint (high 24 bits) with the bucket's theoretical arrival time in microseconds (low 40 bits),
+     * so one compare-and-set both claims a slot and takes a token from it.
+     */
+    static final class BucketTable {
+
+        private static final int PROBES = 4;
+        private static final int TIME_BITS = 40;
+        private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+
+        private final AtomicLongArray slots;
+        private final int mask;
+        private final long intervalMicros;
+        private final long toleranceMicros;
+
+        BucketTable(int maxKeys, double rate, int burst) {
+            int size = Integer.highestOneBit(Math.max(PROBES, maxKeys - 1)) << 1;
+            this.slots = new AtomicLongArray(size);
+            this.mask = size - 1;
+            this.intervalMicros = Math.max(1, (long) (1_000_000 / rate));
+            // Stays far below half the time range, so wrapped timestamps are still ordered correctly
+            this.toleranceMicros = Math.min(intervalMicros * Math.max(0, burst - 1), 1L << (TIME_BITS - 2));
+        }
+
+        boolean tryAcquire(long hash, long nowMicros) {
+            long fingerprint = hash >>> TIME_BITS;
+            long now = nowMicros & TIME_MASK;
+            int index = (int) hash & mask;
+            while (true) {
+                int slot = findSlot(index, fingerprint, now);
+                long current = slots.get(slot);
+                long arrival = isIdle(current, now) ? now : current & TIME_MASK;
+                long next = (arrival + intervalMicros) & TIME_MASK;
+                if (ahead(next, now) > toleranceMicros + intervalMicros) {
+                    return false;
+                }
+                long owner = slot == index && (current >>> TIME_BITS) != fingerprint && !isIdle(current, now)
+                        ? current >>> TIME_BITS : fingerprint;
+                if (slots.compareAndSet(slot, current, owner << TIME_BITS | next)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * @return the slot holding this key, else the first idle candidate, else the home slot to share
+         */
+        private int findSlot(int index, long fingerprint, long now) {
+            int idle = -1;
+            for (int i = 0; i < PROBES; i++) {
+                int slot = (index + i) & mask;
+                long value = slots.get(slot);
+                if (value >>> TIME_BITS == fingerprint && !isIdle(value, now)) {
+                    return slot;
+                }
+                if (idle < 0 && isIdle(value, now)) {
+                    idle = slot;
+                }
+            }
+            return idle >= 0 ? idle : index;
+        }
+
+        /**
+         * A bucket is idle once it has refilled. Arrival times further ahead than any bucket can be are left
+         * over from a previous lap of the 40-bit clock and count as idle too.
+         */
+        private boolean isIdle(long value, long now) {
+            long ahead = ahead(value & TIME_MASK, now);
+            return ahead <= 0 || ahead > toleranceMicros + intervalMicros;
+        }
+
+        private static long ahead(long time, long now) {
+            // Difference modulo 2^40, sign-extended
+            return ((time - now) << (64 - TIME_BITS)) >> (64 - TIME_BITS);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.leveledcv.tokenAuthenticationLib.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Count-based circuit breaker around calls to the verification service.
+ * Opens when the failure rate or slow-call rate over the last {@code windowSize} calls reaches its threshold,
+ * rejects calls while open, then lets a few probe calls through (half-open) to decide whether to close again.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final CircuitBreaker DISABLED = new CircuitBreaker();
+
+    private final boolean enabled;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final float failureRateThreshold;
+    private final long slowCallNanos;
+    private final float slowCallRateThreshold;
+    private final long openMillis;
+    private final int halfOpenCalls;
+    private final Clock clock;
+
+    // Outcomes of the last windowSize calls while closed: bit 0 = failed, bit 1 = slow
+    private final byte[] window;
+    private int windowIndex;
+    private int recordedCalls;
+    private int failedCalls;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    private CircuitBreaker(Builder builder) {
+        this.enabled = true;
+        this.windowSize = builder.windowSize;
+        this.minimumCalls = Math.min(builder.minimumCalls, builder.windowSize);
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallNanos = builder.slowCallDuration.toNanos();
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.openMillis = builder.openDuration.toMillis();
+        this.halfOpenCalls = Math.max(1, builder.halfOpenCalls);
+        this.clock = builder.clock;
+        this.window = new byte[builder.windowSize];
+    }
+
+    private CircuitBreaker() {
+        this.enabled = false;
+        this.windowSize = 0;
+        this.minimumCalls = 0;
+        this.failureRateThreshold = 0;
+        this.slowCallNanos = 0;
+        this.slowCallRateThreshold = 0;
+        this.openMillis = 0;
+        this.halfOpenCalls = 0;
+        this.clock = null;
+        this.window = null;
+    }
+
+    /**
+     * @return a breaker that never opens
+     */
+    public static CircuitBreaker disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * @return a builder of an enabled breaker, with the defaults of auth.circuit-breaker
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Ask to make a call. Every permitted call must be followed by {@link #onSuccess}, {@link #onFailure}
+     * or, if it was abandoned before completing, {@link #release}.
+     *
+     * @return true if the call may proceed, false if the breaker is open
+     */
+    public boolean tryAcquire() {
+        if (!enabled) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN) {
+                if (clock.millis() - openedAt < openMillis) {
+                    return false;
+                }
+                log.info("Token verification circuit half-open, probing the verification service");
+                state = State.HALF_OPEN;
+                halfOpenPermits = halfOpenCalls;
+                halfOpenSuccesses = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenPermits == 0) {
+                    return false;
+                }
+                halfOpenPermits--;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Record a call that completed, whether or not the token was accepted
+     */
+    public void onSuccess(long durationNanos) {
+        record(false, durationNanos);
+    }
+
+    /**
+     * Record a call that failed, e.g. because the service was unreachable
+     */
+    public void onFailure(long durationNanos) {
+        record(true, durationNanos);
+    }
+
+    /**
+     * Return the permit of a call abandoned before it completed, e.g. cancelled when its caller gave up.
+     * No outcome is recorded; while half-open, the permit goes to another probe.
+     */
+    public void release() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            if (state == State.HALF_OPEN && halfOpenPermits + halfOpenSuccesses < halfOpenCalls) {
+                halfOpenPermits++;
+            }
+        }
+    }
+
+    private void record(boolean failed, long durationNanos) {
+        if (!enabled) {
+            return;
+        }
+        boolean slow = durationNanos > slowCallNanos;
+        synchronized (this) {
+            if (state == State.HALF_OPEN) {
+                if (failed || slow) {
+                    log.warn("Token verification circuit re-opened after a failed probe");
+                    open();
+                } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                    log.info("Token verification circuit closed");
+                    state = State.CLOSED;
+                    resetWindow();
+                }
+                return;
+            }
+            if (state == State.OPEN) {
+                return;
+            }
+
+            if (recordedCalls == windowSize) {
+                byte evicted = window[windowIndex];
+                failedCalls -= evicted & 1;
+                slowCalls -= (evicted >> 1) & 1;
+            } else {
+                recordedCalls++;
+            }
+            window[windowIndex] = (byte) ((failed ? 1 : 0) | (slow ? 2 : 0));
+            windowIndex = (windowIndex + 1) % windowSize;
+            failedCalls += failed ? 1 : 0;
+            slowCalls += slow ? 1 : 0;
+
+            if (recordedCalls >= minimumCalls
+                    && (failedCalls * 100f / recordedCalls >= failureRateThreshold
+                    || slowCalls * 100f / recordedCalls >= slowCallRateThreshold)) {
+                log.warn("Token verification circuit opened after {} failed and {} slow of the last {} calls",
+                        failedCalls, slowCalls, recordedCalls);
+                open();
+            }
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.millis();
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        recordedCalls = 0;
+        failedCalls = 0;
+        slowCalls = 0;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Thresholds of an enabled {@link CircuitBreaker}
+     */
+    public static class Builder {
+
+        private int windowSize = 50;
+        private int minimumCalls = 20;
+        private float failureRateThreshold = 50;
+        private Duration slowCallDuration = Duration.ofSeconds(1);
+        private float slowCallRateThreshold = 100;
+        private Duration openDuration = Duration.ofSeconds(10);
+        private int halfOpenCalls = 5;
+        private Clock clock = Clock.systemUTC();
+
+        private Builder() {
+        }
+
+        /**
+         * @param windowSize number of recent calls the rates are computed over
+         */
+        public Builder windowSize(int windowSize) {
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * @param minimumCalls calls required in the window before the breaker can open
+         */
+        public Builder minimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * @param failureRateThreshold failure percentage at which the breaker opens
+         */
+        public Builder failureRateThreshold(float failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * @param slowCallDuration calls taking longer than this are slow
+         */
+        public Builder slowCallDuration(Duration slowCallDuration) {
+            this.slowCallDuration = slowCallDuration;
+            return this;
+        }
+
+        /**
+         * @param slowCallRateThreshold slow-call percentage at which the breaker opens
+         */
+        public Builder slowCallRateThreshold(float slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            return this;
+        }
+
+        /**
+         * @param openDuration how long the breaker stays open before probing
+         */
+        public Builder openDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        /**
+         * @param halfOpenCalls probe calls that must succeed before the breaker closes
+         */
+        public Builder halfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+            return this;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public CircuitBreaker build() {
+            return new CircuitBreaker(this);
+        }
+    }
+}
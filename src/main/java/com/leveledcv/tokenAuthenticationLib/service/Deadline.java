@@ -0,0 +1,93 @@
+package com.leveledcv.tokenAuthenticationLib.service;
+
+import com.leveledcv.tokenAuthenticationLib.annotations.RequireAuth;
+import com.leveledcv.tokenAuthenticationLib.config.AuthProperties;
+
+import java.time.Duration;
+import java.util.function.UnaryOperator;
+
+/**
+ * Point in time by which a request must be authenticated, on the monotonic clock
+ */
+public final class Deadline {
+
+    private static final Deadline NONE = new Deadline(false, 0);
+
+    private final boolean bounded;
+    private final long nanoTime;
+
+    private Deadline(boolean bounded, long nanoTime) {
+        this.bounded = bounded;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @return a deadline that never passes
+     */
+    public static Deadline none() {
+        return NONE;
+    }
+
+    /**
+     * @return a deadline the given time from now
+     */
+    public static Deadline after(Duration timeout) {
+        return new Deadline(true, System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * Resolve the deadline of a request from the endpoint's budget and the caller's remaining time
+     *
+     * @param requireAuth the annotation of the handler, whose timeoutMs overrides the default budget
+     * @param budget the configured default budget and deadline header
+     * @param headers looks up a request header by name
+     * @return the earlier of the two deadlines, or {@link #none()} if neither is set
+     */
+    public static Deadline forRequest(RequireAuth requireAuth, AuthProperties.Budget budget,
+                                      UnaryOperator<String> headers) {
+        long timeoutMillis = requireAuth != null && requireAuth.timeoutMs() >= 0
+                ? requireAuth.timeoutMs() : budget.getDefaultTimeout().toMillis();
+        Deadline deadline = timeoutMillis > 0 ? after(Duration.ofMillis(timeoutMillis)) : NONE;
+
+        String remaining = budget.getDeadlineHeader() != null ? headers.apply(budget.getDeadlineHeader()) : null;
+        if (remaining != null) {
+            try {
+                long remainingMillis = Long.parseLong(remaining.trim());
+                if (remainingMillis >= 0) {
+                    deadline = deadline.min(after(Duration.ofMillis(remainingMillis)));
+                }
+            } catch (NumberFormatException e) {
+                // A malformed deadline from the caller is ignored rather than failing the request
+            }
+        }
+        return deadline;
+    }
+
+    /**
+     * @return whichever of the two deadlines passes first
+     */
+    public Deadline min(Deadline other) {
+        if (!other.bounded) {
+            return this;
+        }
+        return !bounded || other.nanoTime - nanoTime < 0 ? other : this;
+    }
+
+    /**
+     * @return false if this deadline never passes
+     */
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * @return nanoseconds left before the deadline, 0 once it has passed, or Long.MAX_VALUE if unbounded
+     */
+    public long remainingNanos() {
+        return bounded ? Math.max(0, nanoTime - System.nanoTime()) : Long.MAX_VALUE;
+    }
+
+    public boolean isExpired() {
+        return bounded && nanoTime - System.nanoTime() <= 0;
+    }
+}
@@ -0,0 +1,88 @@
+package com.leveledcv.tokenAuthenticationLib.service;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs verifications that have a deadline on a bounded pool, so the request thread stops waiting when the
+ * deadline passes. An abandoned verification keeps running and still updates the caches when it answers.
+ * Verifications that find every thread busy fail at once rather than queueing past their deadline.
+ */
+public class DeadlineExecutor implements AutoCloseable {
+
+    private static final DeadlineExecutor DISABLED = new DeadlineExecutor();
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param threads threads running verifications with a deadline
+     */
+    public DeadlineExecutor(int threads) {
+        this.executor = new ThreadPoolExecutor(0, threads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                new CustomizableThreadFactory("token-auth-deadline-"));
+    }
+
+    private DeadlineExecutor() {
+        this.executor = null;
+    }
+
+    /**
+     * @return an executor that runs verifications on the caller's thread, failing only those whose deadline
+     * passed before they started
+     */
+    public static DeadlineExecutor disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Run the verification, waiting for it until the deadline
+     *
+     * @return the verification result
+     * @throws TimeoutException if the deadline passed, or no thread was free to run the verification
+     */
+    public <T> T call(Supplier<T> verification, Deadline deadline) throws TimeoutException {
+        if (deadline.isExpired()) {
+            throw new TimeoutException("Deadline passed before verification started");
+        }
+        if (executor == null || !deadline.isBounded()) {
+            return verification.get();
+        }
+
+        CompletableFuture<T> pending;
+        try {
+            pending = CompletableFuture.supplyAsync(verification, executor);
+        } catch (RejectedExecutionException e) {
+            throw new TimeoutException("No thread free to verify within the deadline");
+        }
+        try {
+            return pending.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while waiting for verification");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Token verification failed", e.getCause());
+        }
+    }
+
+    public boolean isEnabled() {
+        return executor != null;
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
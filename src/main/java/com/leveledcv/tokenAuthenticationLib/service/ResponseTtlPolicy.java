@@ -0,0 +1,114 @@
+package com.leveledcv.tokenAuthenticationLib.service;
+
+import com.leveledcv.tokenAuthenticationLib.cache.LastKnownGoodStore;
+import com.leveledcv.tokenAuthenticationLib.cache.TokenKey;
+import com.leveledcv.tokenAuthenticationLib.cache.VerificationCache;
+import com.leveledcv.tokenAuthenticationLib.verifier.VerificationResult;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Derives how long a verification is cached from what the verification service said about it.
+ * {@code Cache-Control: max-age} or {@code Expires} replace the configured TTL, clamped to the configured bounds,
+ * and a cached entry never outlives the session expiry stated in the body. An explicit {@code no-store},
+ * {@code no-cache} or zero lifetime keeps the answer out of the cache and out of the last-known-good store.
+ */
+public class ResponseTtlPolicy {
+
+    private static final ResponseTtlPolicy DISABLED = new ResponseTtlPolicy();
+
+    private final boolean enabled;
+    private final long defaultTtlMillis;
+    private final long minTtlMillis;
+    private final long maxTtlMillis;
+    private final Clock clock;
+
+    public ResponseTtlPolicy(Duration defaultTtl, Duration minTtl, Duration maxTtl) {
+        this(defaultTtl, minTtl, maxTtl, Clock.systemUTC());
+    }
+
+    /**
+     * @param defaultTtl lifetime of answers the service says nothing about
+     * @param minTtl lower bound for lifetimes set by the service
+     * @param maxTtl upper bound for lifetimes set by the service
+     */
+    public ResponseTtlPolicy(Duration defaultTtl, Duration minTtl, Duration maxTtl, Clock clock) {
+        if (minTtl.compareTo(maxTtl) > 0) {
+            throw new IllegalArgumentException("minTtl must not exceed maxTtl");
+        }
+        this.enabled = true;
+        this.defaultTtlMillis = defaultTtl.toMillis();
+        this.minTtlMillis = minTtl.toMillis();
+        this.maxTtlMillis = maxTtl.toMillis();
+        this.clock = clock;
+    }
+
+    private ResponseTtlPolicy() {
+        this.enabled = false;
+        this.defaultTtlMillis = -1;
+        this.minTtlMillis = 0;
+        this.maxTtlMillis = 0;
+        this.clock = null;
+    }
+
+    /**
+     * @return a policy that always uses the cache's configured TTL
+     */
+    public static ResponseTtlPolicy disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * @return false if response metadata is ignored
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the lifetime in millis to cache the result for, 0 if it must not be cached,
+     * or -1 to use the cache's configured TTL
+     */
+    public long ttlMillis(VerificationResult result) {
+        if (!enabled) {
+            return -1;
+        }
+        long maxAge = result.maxAgeMillis();
+        if (maxAge == 0) {
+            return 0;
+        }
+        long ttl = maxAge > 0 ? Math.min(maxTtlMillis, Math.max(minTtlMillis, maxAge)) : defaultTtlMillis;
+        if (result.expiresAt() >= 0) {
+            ttl = Math.max(0, Math.min(ttl, result.expiresAt() - clock.millis()));
+        }
+        return ttl;
+    }
+
+    /**
+     * Cache a successful verification for the lifetime derived from its metadata, or drop any cached
+     * entry for the token if the result must not be cached
+     */
+    public void put(VerificationCache cache, TokenKey key, VerificationResult result) {
+        long ttl = ttlMillis(result);
+        if (ttl < 0) {
+            cache.put(key, result.response());
+        } else if (ttl == 0) {
+            cache.invalidate(key);
+        } else {
+            cache.put(key, result.response(), ttl, result.etag());
+        }
+    }
+
+    /**
+     * Keep a successful verification as the token's last-known-good result, unless the service said it must
+     * not be stored; then any earlier result for the token is dropped as well, so it is not served in an outage
+     */
+    public void putLastKnownGood(LastKnownGoodStore store, TokenKey key, VerificationResult result) {
+        if (ttlMillis(result) == 0) {
+            store.invalidate(key);
+        } else {
+            store.put(key, result.response());
+        }
+    }
+}
@@ -1,99 +1,483 @@
 package com.leveledcv.tokenAuthenticationLib.service;
 
+import com.leveledcv.tokenAuthenticationLib.cache.LastKnownGoodStore;
+import com.leveledcv.tokenAuthenticationLib.cache.NegativeVerificationCache;
+import com.leveledcv.tokenAuthenticationLib.cache.TokenKey;
+import com.leveledcv.tokenAuthenticationLib.cache.VerificationCache;
 import com.leveledcv.tokenAuthenticationLib.config.AuthProperties;
+import com.leveledcv.tokenAuthenticationLib.metrics.AuthenticationMetrics;
+import com.leveledcv.tokenAuthenticationLib.metrics.AuthenticationMetrics.Outcome;
 import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
-import lombok.RequiredArgsConstructor;
+import com.leveledcv.tokenAuthenticationLib.verifier.RestTemplateTokenVerifier;
+import com.leveledcv.tokenAuthenticationLib.verifier.TokenVerifier;
+import com.leveledcv.tokenAuthenticationLib.verifier.VerificationResult;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
-import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 /**
  * Service responsible for verifying authentication tokens
  */
-@Service
-@RequiredArgsConstructor
 @Slf4j
 public class TokenVerificationService {
 
     private final AuthProperties authProperties;
-    private final RestTemplate restTemplate;
+    private final TokenVerifier tokenVerifier;
+    private final VerificationCache verificationCache;
+    private final NegativeVerificationCache negativeCache;
+    private final VerificationCoalescer coalescer;
+    private final CircuitBreaker circuitBreaker;
+    private final LastKnownGoodStore lastKnownGood;
+    private final VerificationRefresher refresher;
+    private final AuthenticationMetrics metrics;
+    private final ResponseTtlPolicy ttlPolicy;
+    private final DeadlineExecutor deadlineExecutor;
+    private final AdmissionThrottle admissionThrottle;
+
+    public TokenVerificationService(AuthProperties authProperties, RestTemplate restTemplate) {
+        this(builder(authProperties,
+                new RestTemplateTokenVerifier(restTemplate, authProperties.getTokenVerifyUrl())));
+    }
+
+    private TokenVerificationService(Builder builder) {
+        this.authProperties = builder.authProperties;
+        this.tokenVerifier = builder.tokenVerifier;
+        this.verificationCache = builder.verificationCache;
+        this.negativeCache = builder.negativeCache;
+        this.coalescer = builder.coalescer;
+        this.circuitBreaker = builder.circuitBreaker;
+        this.lastKnownGood = builder.lastKnownGood;
+        this.refresher = builder.refresher;
+        this.metrics = builder.metrics;
+        this.ttlPolicy = builder.ttlPolicy;
+        this.deadlineExecutor = builder.deadlineExecutor;
+        this.admissionThrottle = builder.admissionThrottle;
+    }
 
     /**
-     * Verifies the provided token by making a call to the configured verification service
+     * @param tokenVerifier performs the remote verification of tokens that miss the caches
+     * @return a builder of a service with every optional collaborator disabled
+     */
+    public static Builder builder(AuthProperties authProperties, TokenVerifier tokenVerifier) {
+        return new Builder(authProperties, tokenVerifier);
+    }
+
+    /**
+     * Verifies the provided token, answering from the verification caches when possible
+     * and otherwise making a call to the configured verification service
      *
      * @param token The authentication token to verify
      * @return TokenVerificationResponse if token is valid, null if invalid
+     * @throws VerificationUnavailableException if the circuit breaker is enabled, the verification service
+     *                                          is unavailable and there is no last-known-good result
      */
     public TokenVerificationResponse verifyToken(String token) {
+        return verifyToken(token, Deadline.none());
+    }
+
+    /**
+     * Verifies the provided token, giving up on the remote call when the deadline passes. A cached verification
+     * is always served; past the deadline, the last-known-good result is served if there is one.
+     *
+     * @param token The authentication token to verify
+     * @param deadline time by which the verification must be answered
+     * @return TokenVerificationResponse if token is valid, null if invalid
+     * @throws VerificationUnavailableException if the deadline passed and there is no last-known-good result,
+     *                                          or the verification service is unavailable as above
+     */
+    public TokenVerificationResponse verifyToken(String token, Deadline deadline) {
+        return verifyToken(token, deadline, null);
+    }
+
+    /**
+     * Verifies the provided token as above, charging the admission throttle when the token misses the caches.
+     * Requests answered from the caches are never throttled.
+     *
+     * @param token The authentication token to verify
+     * @param deadline time by which the verification must be answered
+     * @param clientAddress address of the caller, or null if unknown
+     * @return TokenVerificationResponse if token is valid, null if invalid
+     * @throws AdmissionRejectedException if the client or the token is over its admission rate
+     * @throws VerificationUnavailableException as above
+     */
+    public TokenVerificationResponse verifyToken(String token, Deadline deadline, String clientAddress) {
+        if (!verificationCache.isEnabled() && !negativeCache.isEnabled() && !coalescer.isEnabled()
+                && !lastKnownGood.isEnabled()) {
+            admit(clientAddress, token);
+            return withinDeadline(null, deadline, () -> coalescer.verify(null, () -> verifyRemotely(token, null)));
+        }
+
+        TokenKey key = keyFor(token);
+        if (negativeCache.contains(key)) {
+            log.debug("Token rejected from negative cache");
+            return null;
+        }
+
+        TokenVerificationResponse cached = verificationCache.get(key);
+        if (cached != null) {
+            log.debug("Token verification served from cache");
+            if (refresher.isEnabled() && verificationCache.needsRefresh(key)) {
+                refresher.refresh(key, () -> verifyRemotely(token, key));
+            }
+            return cached;
+        }
+
+        admit(clientAddress, token);
+        return withinDeadline(key, deadline, () -> coalesced(token, key));
+    }
+
+    /**
+     * Verify remotely, or wait for the verification of the same token already in flight. A caller that gives up
+     * waiting gets the last-known-good result if there is one.
+     */
+    private TokenVerificationResponse coalesced(String token, TokenKey key) {
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", token);
-
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<Object> response = restTemplate.exchange(
-                authProperties.getTokenVerifyUrl(),
-                HttpMethod.GET,
-                entity,
-                Object.class
-            );
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                Object responseBody = response.getBody();
-
-                // Check if response contains error
-                if (responseBody instanceof Map<?, ?> responseMap) {
-                    if (responseMap.containsKey("error") &&
-                        "Session not found".equals(responseMap.get("error"))) {
-                        log.debug("Token verification failed: Session not found");
-                        return null;
-                    }
-
-                    // Parse successful response
-                    try {
-                        return parseTokenResponse(responseMap);
-                    } catch (Exception e) {
-                        log.error("Failed to parse token verification response", e);
-                        return null;
-                    }
-                }
+            return coalescer.verify(key, () -> verifyRemotely(token, key));
+        } catch (VerificationUnavailableException e) {
+            TokenVerificationResponse stale = lastKnownGood.get(key);
+            if (stale != null) {
+                log.warn("Token verification unavailable, serving last known good result");
+                return stale;
             }
+            throw e;
+        }
+    }
 
-            log.debug("Token verification failed with status: {}", response.getStatusCode());
-            return null;
+    private void admit(String clientAddress, String token) {
+        AdmissionThrottle.Decision decision = admissionThrottle.admit(clientAddress, token);
+        if (decision != AdmissionThrottle.Decision.ADMITTED) {
+            throw new AdmissionRejectedException(decision);
+        }
+    }
+
+    private TokenVerificationResponse withinDeadline(TokenKey key, Deadline deadline,
+                                                     Supplier<TokenVerificationResponse> verification) {
+        if (!deadline.isBounded()) {
+            return verification.get();
+        }
+        try {
+            return deadlineExecutor.call(verification, deadline);
+        } catch (TimeoutException e) {
+            // The remote call, if it started, carries on and caches its answer for the next request
+            TokenVerificationResponse stale = key != null ? lastKnownGood.get(key) : null;
+            metrics.deadlineExceeded(stale != null);
+            if (stale != null) {
+                log.warn("Token verification deadline passed, serving last known good result");
+                return stale;
+            }
+            throw new VerificationUnavailableException("Token verification deadline passed", e);
+        }
+    }
+
+    /**
+     * Verifies several tokens, answering from the verification caches where possible
+     * and verifying the rest with as few remote calls as the transport allows
+     *
+     * @param tokens The authentication tokens to verify
+     * @return the user information for each valid token; invalid tokens are absent
+     * @throws VerificationUnavailableException as for {@link #verifyToken(String)}, if a token that missed the
+     * caches could not be verified and has no last-known-good result
+     */
+    public Map<String, TokenVerificationResponse> verifyTokens(Collection<String> tokens) {
+        return verifyTokens(tokens, Deadline.none(), null);
+    }
+
+    /**
+     * Verifies several tokens as above, charging the admission throttle for each token that misses the caches
+     * and giving up on the remote call when the deadline passes
+     *
+     * @param tokens The authentication tokens to verify
+     * @param deadline time by which the tokens must be verified
+     * @param clientAddress address of the caller, or null if unknown
+     * @return the user information for each valid token; invalid tokens are absent
+     * @throws AdmissionRejectedException if the client or a token that missed the caches is over its admission rate
+     * @throws VerificationUnavailableException if the deadline passed, or the circuit breaker is enabled and the
+     * verification service is unavailable, and a token that missed the caches has no last-known-good result
+     */
+    public Map<String, TokenVerificationResponse> verifyTokens(Collection<String> tokens, Deadline deadline,
+                                                               String clientAddress) {
+        Map<String, TokenVerificationResponse> results = new HashMap<>();
+        Map<String, TokenKey> misses = new LinkedHashMap<>();
+        for (String token : tokens) {
+            if (results.containsKey(token) || misses.containsKey(token)) {
+                continue;
+            }
+            TokenKey key = keyFor(token);
+            if (negativeCache.contains(key)) {
+                continue;
+            }
+            TokenVerificationResponse cached = verificationCache.get(key);
+            if (cached != null) {
+                results.put(token, cached);
+            } else {
+                misses.put(token, key);
+            }
+        }
+
+        if (misses.isEmpty()) {
+            return results;
+        }
+        for (String token : misses.keySet()) {
+            admit(clientAddress, token);
+        }
+
+        Map<String, TokenVerificationResponse> verified;
+        if (!deadline.isBounded()) {
+            verified = verifyBatchRemotely(misses);
+        } else {
+            try {
+                verified = deadlineExecutor.call(() -> verifyBatchRemotely(misses), deadline);
+            } catch (TimeoutException e) {
+                // The batch call, if it started, carries on and caches its answers for the next request
+                metrics.deadlineExceeded(misses.values().stream().allMatch(key -> lastKnownGood.get(key) != null));
+                return lastKnownGood(results, misses,
+                        new VerificationUnavailableException("Token verification deadline passed", e));
+            }
+        }
 
+        if (verified == null) {
+            return lastKnownGood(results, misses, circuitBreaker.isEnabled()
+                    ? new VerificationUnavailableException("Token verification service unavailable") : null);
+        }
+        results.putAll(verified);
+        return results;
+    }
+
+    /**
+     * Verify the tokens in as few remote calls as the transport allows and update the caches with the answers
+     *
+     * @return the user information for each valid token, or null if the batch could not be verified
+     */
+    private Map<String, TokenVerificationResponse> verifyBatchRemotely(Map<String, TokenKey> misses) {
+        if (!circuitBreaker.tryAcquire()) {
+            return null;
+        }
+        List<String> batch = new ArrayList<>(misses.keySet());
+        Map<String, TokenVerificationResponse> verified;
+        long start = metrics.verificationStarted();
+        try {
+            verified = metrics.observeRemoteCall(() -> tokenVerifier.verifyAll(batch));
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            metrics.verificationFinished(start, Outcome.SUCCESS);
         } catch (Exception e) {
-            log.error("Error during token verification", e);
+            circuitBreaker.onFailure(System.nanoTime() - start);
+            metrics.verificationFinished(start, Outcome.of(e));
+            log.error("Error during batch token verification", e);
             return null;
         }
+
+        Map<String, TokenVerificationResponse> results = new HashMap<>();
+        misses.forEach((token, key) -> {
+            TokenVerificationResponse response = verified.get(token);
+            if (response != null) {
+                verificationCache.put(key, response);
+                lastKnownGood.put(key, response);
+                results.put(token, response);
+            } else {
+                negativeCache.put(key);
+                lastKnownGood.invalidate(key);
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Answer the tokens of a batch that could not be verified with their last-known-good results
+     *
+     * @param unavailable thrown if a token has no last-known-good result, or null to leave such tokens out
+     */
+    private Map<String, TokenVerificationResponse> lastKnownGood(Map<String, TokenVerificationResponse> results,
+                                                                 Map<String, TokenKey> misses,
+                                                                 VerificationUnavailableException unavailable) {
+        for (Map.Entry<String, TokenKey> miss : misses.entrySet()) {
+            TokenVerificationResponse stale = lastKnownGood.get(miss.getValue());
+            if (stale != null) {
+                log.warn("Batch token verification unavailable, serving last known good result");
+                results.put(miss.getKey(), stale);
+            } else if (unavailable != null) {
+                throw unavailable;
+            }
+        }
+        return results;
     }
 
-    private TokenVerificationResponse parseTokenResponse(Map<?, ?> responseMap) {
-        TokenVerificationResponse response = new TokenVerificationResponse();
+    /**
+     * Hash the credential part of the token, ignoring the configured prefix
+     */
+    TokenKey keyFor(String token) {
+        return TokenKey.of(token, authProperties.getTokenPrefix());
+    }
 
-        if (responseMap.get("username") != null) {
-            response.setUsername(responseMap.get("username").toString());
+    private TokenVerificationResponse verifyRemotely(String token, TokenKey key) {
+        if (!circuitBreaker.tryAcquire()) {
+            return unavailable(key, null);
         }
 
-        if (responseMap.get("email") != null) {
-            response.setEmail(responseMap.get("email").toString());
+        // Revalidate a cached entry conditionally, so an unchanged verification comes back without a body
+        String etag = ttlPolicy.isEnabled() && key != null ? verificationCache.etag(key) : null;
+        VerificationResult result;
+        long start = metrics.verificationStarted();
+        try {
+            result = metrics.observeRemoteCall(() -> ttlPolicy.isEnabled()
+                    ? tokenVerifier.verifyWithMetadata(token, etag)
+                    : VerificationResult.of(tokenVerifier.verify(token)));
+        } catch (Exception e) {
+            circuitBreaker.onFailure(System.nanoTime() - start);
+            metrics.verificationFinished(start, Outcome.of(e));
+            log.error("Error during token verification", e);
+            return unavailable(key, e);
         }
+        circuitBreaker.onSuccess(System.nanoTime() - start);
+        TokenVerificationResponse response = result.response();
+        metrics.verificationFinished(start, response != null || result.notModified()
+                ? Outcome.SUCCESS : Outcome.SESSION_NOT_FOUND);
 
-        if (responseMap.get("status") != null) {
-            try {
-                String statusStr = responseMap.get("status").toString();
-                response.setStatus(com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus.valueOf(statusStr));
-            } catch (IllegalArgumentException e) {
-                log.warn("Unknown user status: {}", responseMap.get("status"));
+        if (result.notModified()) {
+            if (etag == null) {
+                log.warn("Token verification service answered an unconditional request with 304 Not Modified");
+                return unavailable(key, null);
             }
+            TokenVerificationResponse cached = verificationCache.touch(key, Math.max(0, ttlPolicy.ttlMillis(result)));
+            if (cached != null) {
+                log.debug("Cached token verification revalidated");
+                return cached;
+            }
+            // Evicted while being revalidated; verify again without an entity tag
+            return verifyRemotely(token, key);
         }
 
+        if (key != null) {
+            if (response != null) {
+                ttlPolicy.put(verificationCache, key, result);
+                ttlPolicy.putLastKnownGood(lastKnownGood, key, result);
+            } else {
+                // A background refresh may find that a cached token has since been revoked
+                verificationCache.invalidate(key);
+                negativeCache.put(key);
+                lastKnownGood.invalidate(key);
+            }
+        }
         return response;
     }
+
+    /**
+     * Answer a verification the service could not perform: with the last-known-good result if there is one,
+     * otherwise by failing with 503 when the circuit breaker is enabled, or rejecting the token as before
+     */
+    private TokenVerificationResponse unavailable(TokenKey key, Exception cause) {
+        TokenVerificationResponse stale = key != null ? lastKnownGood.get(key) : null;
+        if (stale != null) {
+            log.warn("Verification service unavailable, serving last known good result");
+            return stale;
+        }
+        if (circuitBreaker.isEnabled()) {
+            throw new VerificationUnavailableException(cause == null
+                    ? "Token verification circuit is open" : "Token verification service unavailable", cause);
+        }
+        return null;
+    }
+
+    /**
+     * Collaborators of a {@link TokenVerificationService}; any left unset are disabled
+     */
+    public static class Builder {
+
+        private final AuthProperties authProperties;
+        private final TokenVerifier tokenVerifier;
+        private VerificationCache verificationCache = VerificationCache.disabled();
+        private NegativeVerificationCache negativeCache = NegativeVerificationCache.disabled();
+        private VerificationCoalescer coalescer = VerificationCoalescer.disabled();
+        private CircuitBreaker circuitBreaker = CircuitBreaker.disabled();
+        private LastKnownGoodStore lastKnownGood = LastKnownGoodStore.disabled();
+        private VerificationRefresher refresher = VerificationRefresher.disabled();
+        private AuthenticationMetrics metrics = AuthenticationMetrics.noop();
+        private ResponseTtlPolicy ttlPolicy = ResponseTtlPolicy.disabled();
+        private DeadlineExecutor deadlineExecutor = DeadlineExecutor.disabled();
+        private AdmissionThrottle admissionThrottle = AdmissionThrottle.disabled();
+
+        private Builder(AuthProperties authProperties, TokenVerifier tokenVerifier) {
+            this.authProperties = authProperties;
+            this.tokenVerifier = tokenVerifier;
+        }
+
+        public Builder verificationCache(VerificationCache verificationCache) {
+            this.verificationCache = verificationCache;
+            return this;
+        }
+
+        public Builder negativeCache(NegativeVerificationCache negativeCache) {
+            this.negativeCache = negativeCache;
+            return this;
+        }
+
+        /**
+         * @param coalescer shares one remote verification among concurrent requests for the same token
+         */
+        public Builder coalescer(VerificationCoalescer coalescer) {
+            this.coalescer = coalescer;
+            return this;
+        }
+
+        public Builder circuitBreaker(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        /**
+         * @param lastKnownGood results served while the verification service is unavailable
+         */
+        public Builder lastKnownGood(LastKnownGoodStore lastKnownGood) {
+            this.lastKnownGood = lastKnownGood;
+            return this;
+        }
+
+        /**
+         * @param refresher re-verifies hot cached entries in the background before they expire
+         */
+        public Builder refresher(VerificationRefresher refresher) {
+            this.refresher = refresher;
+            return this;
+        }
+
+        public Builder metrics(AuthenticationMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * @param ttlPolicy lifetime of cached verifications from the caching metadata the verification service sends
+         */
+        public Builder ttlPolicy(ResponseTtlPolicy ttlPolicy) {
+            this.ttlPolicy = ttlPolicy;
+            return this;
+        }
+
+        /**
+         * @param deadlineExecutor runs verifications with a deadline, so callers stop waiting when it passes
+         */
+        public Builder deadlineExecutor(DeadlineExecutor deadlineExecutor) {
+            this.deadlineExecutor = deadlineExecutor;
+            return this;
+        }
+
+        /**
+         * @param admissionThrottle per-client and per-token limit charged only by verifications that miss the caches
+         */
+        public Builder admissionThrottle(AdmissionThrottle admissionThrottle) {
+            this.admissionThrottle = admissionThrottle;
+            return this;
+        }
+
+        public TokenVerificationService build() {
+            return new TokenVerificationService(this);
+        }
+    }
 }
@@ -0,0 +1,126 @@
+package com.leveledcv.tokenAuthenticationLib.service;
+
+import com.leveledcv.tokenAuthenticationLib.cache.TokenKey;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent verifications of the same token into a single remote call.
+ * The first caller for a token performs the verification; callers arriving while it is
+ * in flight wait for its result instead of issuing their own call.
+ */
+@Slf4j
+public class VerificationCoalescer {
+
+    private final ConcurrentMap<TokenKey, CompletableFuture<TokenVerificationResponse>> inFlight = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final long waitTimeoutNanos;
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param waitTimeout how long a caller waits for an in-flight verification before giving up
+     */
+    public VerificationCoalescer(Duration waitTimeout) {
+        this(true, waitTimeout);
+    }
+
+    private VerificationCoalescer(boolean enabled, Duration waitTimeout) {
+        this.enabled = enabled;
+        this.waitTimeoutNanos = waitTimeout.toNanos();
+    }
+
+    /**
+     * @return a coalescer that issues every verification separately
+     */
+    public static VerificationCoalescer disabled() {
+        return new VerificationCoalescer(false, Duration.ZERO);
+    }
+
+    /**
+     * Run the verification for the token, or join one already in flight
+     *
+     * @param key hashed token, or null to skip coalescing
+     * @param verification the remote verification
+     * @return the verification result
+     * @throws VerificationUnavailableException if waiting for an in-flight verification timed out or was
+     *                                          interrupted, since the token was never judged invalid
+     */
+    public TokenVerificationResponse verify(TokenKey key, Supplier<TokenVerificationResponse> verification) {
+        if (!enabled || key == null) {
+            issued.increment();
+            return verification.get();
+        }
+
+        CompletableFuture<TokenVerificationResponse> pending = new CompletableFuture<>();
+        CompletableFuture<TokenVerificationResponse> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        issued.increment();
+        try {
+            TokenVerificationResponse response = verification.get();
+            pending.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    private TokenVerificationResponse await(CompletableFuture<TokenVerificationResponse> pending) {
+        try {
+            return pending.get(waitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Timed out waiting for in-flight token verification");
+            throw new VerificationUnavailableException("Timed out waiting for in-flight token verification", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VerificationUnavailableException("Interrupted waiting for in-flight token verification", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Token verification failed", e.getCause());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return number of verifications that resulted in a remote call
+     */
+    public long getIssuedCount() {
+        return issued.sum();
+    }
+
+    /**
+     * @return number of verifications that joined an in-flight call instead of making their own
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return number of tokens currently being verified
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,103 @@
+package com.leveledcv.tokenAuthenticationLib.service;
+
+import com.leveledcv.tokenAuthenticationLib.cache.TokenKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Revalidates cached verifications in the background, on a bounded executor, so request threads keep
+ * being served from the cache instead of waiting for a remote call when a hot token's entry expires.
+ * A token is refreshed at most once at a time; refreshes that do not fit in the queue are dropped.
+ */
+@Slf4j
+public class VerificationRefresher implements AutoCloseable {
+
+    private static final VerificationRefresher DISABLED = new VerificationRefresher();
+
+    private final ThreadPoolExecutor executor;
+    private final Set<TokenKey> pending = ConcurrentHashMap.newKeySet();
+    private final LongAdder refreshed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param threads threads performing refreshes
+     * @param queueCapacity refreshes queued before further ones are dropped
+     */
+    public VerificationRefresher(int threads, int queueCapacity) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("token-auth-refresh-"));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    private VerificationRefresher() {
+        this.executor = null;
+    }
+
+    /**
+     * @return a refresher that never refreshes
+     */
+    public static VerificationRefresher disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Schedule a background revalidation of the token unless one is already pending
+     *
+     * @param key hashed token
+     * @param verification the remote verification, which updates the caches itself
+     */
+    public void refresh(TokenKey key, Runnable verification) {
+        if (executor == null || !pending.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    verification.run();
+                    refreshed.increment();
+                } catch (RuntimeException e) {
+                    log.debug("Background token revalidation failed", e);
+                } finally {
+                    pending.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(key);
+            dropped.increment();
+            log.debug("Background token revalidation dropped, refresh queue is full");
+        }
+    }
+
+    public boolean isEnabled() {
+        return executor != null;
+    }
+
+    /**
+     * @return number of completed background revalidations
+     */
+    public long getRefreshedCount() {
+        return refreshed.sum();
+    }
+
+    /**
+     * @return number of revalidations dropped because the queue was full
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.leveledcv.tokenAuthenticationLib.service;
+
+/**
+ * Thrown when a token cannot be verified because the verification service is failing or the
+ * circuit breaker is open, and no last-known-good result exists. Answered with 503, not 403,
+ * since the token itself was never judged invalid.
+ */
+public class VerificationUnavailableException extends RuntimeException {
+
+    public VerificationUnavailableException(String message) {
+        super(message);
+    }
+
+    public VerificationUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
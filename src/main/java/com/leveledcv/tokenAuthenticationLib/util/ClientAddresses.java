@@ -0,0 +1,29 @@
+package com.leveledcv.tokenAuthenticationLib.util;
+
+/**
+ * Helpers for identifying the caller a request is charged to by the admission throttle
+ */
+public final class ClientAddresses {
+
+    private ClientAddresses() {
+    }
+
+    /**
+     * Pick the client address from a forwarding header such as X-Forwarded-For, falling back to the peer address.
+     * The right-most entry is used, since it was appended by the proxy in front of the application; entries to
+     * its left are supplied by the caller and can be forged.
+     *
+     * @param forwarded the comma-separated header value, or null if there is none or no header is configured
+     * @param remoteAddress the address of the peer connection, may be null
+     * @return the address to charge the request to, or null if unknown
+     */
+    public static String resolve(String forwarded, String remoteAddress) {
+        if (forwarded != null) {
+            String address = forwarded.substring(forwarded.lastIndexOf(',') + 1).trim();
+            if (!address.isEmpty()) {
+                return address;
+            }
+        }
+        return remoteAddress;
+    }
+}
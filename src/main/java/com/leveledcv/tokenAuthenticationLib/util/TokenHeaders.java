@@ -0,0 +1,29 @@
+package com.leveledcv.tokenAuthenticationLib.util;
+
+/**
+ * Helpers for reading the token out of the authorization header
+ */
+public final class TokenHeaders {
+
+    private TokenHeaders() {
+    }
+
+    /**
+     * Turn the header value into the token sent for verification.
+     * Whitespace after the prefix is removed; a prefix with no credential yields an empty string.
+     * A header without the prefix is sent as it is.
+     *
+     * @param authHeader the non-empty header value
+     * @param prefix the configured token prefix
+     * @return the token including the prefix, or an empty string if there is no credential
+     */
+    public static String toToken(String authHeader, String prefix) {
+        String token = authHeader;
+        if (authHeader.startsWith(prefix)) {
+            String credential = authHeader.substring(prefix.length()).trim();
+            // Add the prefix back for the verification call
+            token = credential.isEmpty() ? credential : prefix + credential;
+        }
+        return token.isBlank() ? "" : token;
+    }
+}
@@ -0,0 +1,66 @@
+package com.leveledcv.tokenAuthenticationLib.verifier;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Reads how long a verification may be reused from the HTTP caching headers of the response
+ */
+public final class CacheHeaders {
+
+    private CacheHeaders() {
+    }
+
+    /**
+     * {@code Cache-Control: max-age}, less the {@code Age} header, takes precedence over {@code Expires},
+     * which is taken relative to the {@code Date} header if there is one. {@code no-store}, {@code no-cache}
+     * and an unparseable {@code Expires} mean the answer must not be reused.
+     *
+     * @param now current time in epoch millis, used when the response has no {@code Date} header
+     * @return the lifetime in millis, 0 if the answer must not be cached, -1 if the headers do not say
+     */
+    public static long maxAgeMillis(HttpHeaders headers, long now) {
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null) {
+            for (String directive : cacheControl.split(",")) {
+                String name = directive.trim().toLowerCase();
+                if (name.equals("no-store") || name.equals("no-cache")) {
+                    return 0;
+                }
+                if (name.startsWith("max-age=")) {
+                    try {
+                        long maxAge = Long.parseLong(name.substring("max-age=".length()).replace("\"", ""));
+                        return Math.max(0, maxAge - age(headers)) * 1000;
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+        }
+        if (headers.getFirst(HttpHeaders.EXPIRES) != null) {
+            long expires = headers.getExpires();
+            long date = date(headers);
+            return expires < 0 ? 0 : Math.max(0, expires - (date >= 0 ? date : now));
+        }
+        return -1;
+    }
+
+    private static long date(HttpHeaders headers) {
+        try {
+            return headers.getDate();
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static long age(HttpHeaders headers) {
+        String age = headers.getFirst(HttpHeaders.AGE);
+        if (age == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(age.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.leveledcv.tokenAuthenticationLib.verifier;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.verifier.VerificationEndpoints.Endpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Spreads verification calls over several replicas of the verification service, chosen by
+ * {@link VerificationEndpoints}. With hedging enabled, a call that has not answered within the observed
+ * latency percentile is repeated against another replica, within the hedge budget, and whichever answers
+ * first is used; the other call is left to finish in the background. Once hedging is active, calls run on the
+ * hedge pool, so the caller is free to return as soon as either of them answers.
+ */
+@Slf4j
+public class LoadBalancedTokenVerifier implements TokenVerifier, AutoCloseable {
+
+    private final VerificationEndpoints endpoints;
+    private final Map<Endpoint, TokenVerifier> verifiers = new IdentityHashMap<>();
+    private final ThreadPoolExecutor hedgeExecutor;
+    private final AtomicLong hedgedCalls = new AtomicLong();
+
+    /**
+     * @param endpoints the replicas and their health
+     * @param verifierForUrl creates the verifier that calls one replica
+     * @param hedgeThreads threads that run hedged calls and the calls they race, or 0 to disable hedging
+     */
+    public LoadBalancedTokenVerifier(VerificationEndpoints endpoints, Function<String, TokenVerifier> verifierForUrl,
+                                     int hedgeThreads) {
+        this.endpoints = endpoints;
+        for (Endpoint endpoint : endpoints.getEndpoints()) {
+            verifiers.put(endpoint, verifierForUrl.apply(endpoint.getUrl()));
+        }
+        this.hedgeExecutor = hedgeThreads > 0 && endpoints.size() > 1
+                ? new ThreadPoolExecutor(0, hedgeThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                        new CustomizableThreadFactory("token-auth-hedge-"), new ThreadPoolExecutor.CallerRunsPolicy())
+                : null;
+    }
+
+    @Override
+    public TokenVerificationResponse verify(String token) {
+        return hedged(verifier -> verifier.verify(token));
+    }
+
+    @Override
+    public VerificationResult verifyWithMetadata(String token, String etag) {
+        return hedged(verifier -> verifier.verifyWithMetadata(token, etag));
+    }
+
+    private <T> T hedged(Function<TokenVerifier, T> verification) {
+        Endpoint primary = endpoints.choose(null);
+        long hedgeDelay = endpoints.getHedgeDelayNanos();
+        if (hedgeExecutor == null || hedgeDelay < 0) {
+            return call(primary, () -> verification.apply(verifiers.get(primary)));
+        }
+
+        CompletableFuture<T> first = submit(primary, verification);
+        try {
+            return first.get(hedgeDelay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (!endpoints.tryAcquireHedge()) {
+                return await(first);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TokenVerificationException("Interrupted while waiting for token verification", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+
+        Endpoint secondary = endpoints.choose(primary);
+        log.debug("Hedging token verification sent to {} with {}", primary, secondary);
+        hedgedCalls.incrementAndGet();
+        CompletableFuture<T> second = submit(secondary, verification);
+        return await(firstAnswer(first, second));
+    }
+
+    @Override
+    public Map<String, TokenVerificationResponse> verifyAll(List<String> tokens) {
+        Endpoint endpoint = endpoints.choose(null);
+        return call(endpoint, () -> verifiers.get(endpoint).verifyAll(tokens));
+    }
+
+    private <T> CompletableFuture<T> submit(Endpoint endpoint, Function<TokenVerifier, T> verification) {
+        return CompletableFuture.supplyAsync(() -> call(endpoint, () -> verification.apply(verifiers.get(endpoint))),
+                hedgeExecutor);
+    }
+
+    private <T> T call(Endpoint endpoint, Supplier<T> call) {
+        long start = endpoints.callStarted(endpoint);
+        try {
+            T result = call.get();
+            endpoints.onSuccess(endpoint, start);
+            return result;
+        } catch (RuntimeException e) {
+            endpoints.onFailure(endpoint, start);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the first of the two calls to answer; fails only if both fail
+     */
+    private static <T> CompletableFuture<T> firstAnswer(CompletableFuture<T> first, CompletableFuture<T> second) {
+        CompletableFuture<T> answer = new CompletableFuture<>();
+        first.whenComplete((response, failure) -> {
+            if (failure == null) {
+                answer.complete(response);
+            } else {
+                second.whenComplete((other, otherFailure) -> {
+                    if (otherFailure == null) {
+                        answer.complete(other);
+                    } else {
+                        answer.completeExceptionally(failure);
+                    }
+                });
+            }
+        });
+        second.whenComplete((response, failure) -> {
+            if (failure == null) {
+                answer.complete(response);
+            }
+        });
+        return answer;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TokenVerificationException("Interrupted while waiting for token verification", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause() instanceof CompletionException completion
+                ? completion.getCause() : e.getCause();
+        if (cause instanceof TokenVerificationException verificationException) {
+            return verificationException;
+        }
+        return new TokenVerificationException("Token verification failed", cause);
+    }
+
+    public VerificationEndpoints getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * @return the number of calls that were hedged
+     */
+    public long getHedgedCount() {
+        return hedgedCalls.get();
+    }
+
+    @Override
+    public void close() {
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdown();
+        }
+    }
+}
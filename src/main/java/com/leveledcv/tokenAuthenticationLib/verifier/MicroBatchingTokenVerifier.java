@@ -0,0 +1,119 @@
+package com.leveledcv.tokenAuthenticationLib.verifier;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gathers concurrent single-token verifications for a short window, or until enough tokens are pending,
+ * and sends them to the delegate as one {@link TokenVerifier#verifyAll} call.
+ * Batches closed by the window are sent from a small pool of flush threads;
+ * batches closed by reaching the size limit are sent from the caller that filled them.
+ */
+@Slf4j
+public class MicroBatchingTokenVerifier implements TokenVerifier, AutoCloseable {
+
+    private static final int FLUSH_THREADS = 4;
+
+    private final TokenVerifier delegate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private List<Pending> pending = new ArrayList<>();
+
+    /**
+     * @param delegate verifier that performs the batch calls
+     * @param window how long the first token of a batch waits for others to join
+     * @param maxBatchSize number of pending tokens that triggers an immediate flush
+     */
+    public MicroBatchingTokenVerifier(TokenVerifier delegate, Duration window, int maxBatchSize) {
+        this.delegate = delegate;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newScheduledThreadPool(FLUSH_THREADS, new CustomizableThreadFactory("token-auth-batch-"));
+    }
+
+    @Override
+    public TokenVerificationResponse verify(String token) {
+        Pending request = new Pending(token, new CompletableFuture<>());
+        List<Pending> full = null;
+        synchronized (this) {
+            pending.add(request);
+            if (pending.size() >= maxBatchSize) {
+                full = pending;
+                pending = new ArrayList<>();
+            } else if (pending.size() == 1) {
+                List<Pending> batch = pending;
+                scheduler.schedule(() -> flushIfCurrent(batch), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) {
+            flush(full);
+        }
+
+        try {
+            return request.result().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TokenVerificationException("Interrupted while waiting for batch verification", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TokenVerificationException verificationException) {
+                throw verificationException;
+            }
+            throw new TokenVerificationException("Batch verification failed", e.getCause());
+        }
+    }
+
+    @Override
+    public Map<String, TokenVerificationResponse> verifyAll(List<String> tokens) {
+        return delegate.verifyAll(tokens);
+    }
+
+    private void flushIfCurrent(List<Pending> batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                // Already flushed because it filled up
+                return;
+            }
+            pending = new ArrayList<>();
+        }
+        flush(batch);
+    }
+
+    private void flush(List<Pending> batch) {
+        List<String> tokens = batch.stream().map(Pending::token).distinct().toList();
+        log.debug("Verifying batch of {} tokens", tokens.size());
+        try {
+            Map<String, TokenVerificationResponse> results = delegate.verifyAll(tokens);
+            for (Pending request : batch) {
+                request.result().complete(results.get(request.token()));
+            }
+        } catch (RuntimeException e) {
+            for (Pending request : batch) {
+                request.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        scheduler.shutdown();
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private record Pending(String token, CompletableFuture<TokenVerificationResponse> result) {
+    }
+}
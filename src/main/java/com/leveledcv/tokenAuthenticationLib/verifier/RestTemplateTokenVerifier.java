@@ -0,0 +1,175 @@
+package com.leveledcv.tokenAuthenticationLib.verifier;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verifies tokens with a GET request to the token verification service.
+ * Response bodies are read in a single streaming pass by {@link TokenResponseParser}.
+ * When a batch URL is configured, {@link #verifyAll} sends all tokens in one POST request:
+ * <pre>
+ * request:  {"tokens": ["Bearer a", "Bearer b"]}
+ * response: {"results": [{"username": ..., "email": ..., "status": ...}, {"error": "Session not found"}]}
+ * </pre>
+ * Results are matched to tokens by position. Larger batches are split into several requests.
+ * Single-token verifications report the response's caching headers and entity tag, and can be revalidated
+ * with {@code If-None-Match}. A 4xx answer rejects the token; 5xx answers and IO errors fail the verification.
+ */
+@Slf4j
+public class RestTemplateTokenVerifier implements TokenVerifier {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final RestTemplate restTemplate;
+    private final String tokenVerifyUrl;
+    private final String batchVerifyUrl;
+    private final int maxBatchSize;
+
+    public RestTemplateTokenVerifier(RestTemplate restTemplate, String tokenVerifyUrl) {
+        this(restTemplate, tokenVerifyUrl, null, 1);
+    }
+
+    /**
+     * @param batchVerifyUrl URL of the batch verification endpoint, or null to verify tokens one by one
+     * @param maxBatchSize maximum number of tokens sent in one batch request
+     */
+    public RestTemplateTokenVerifier(RestTemplate restTemplate, String tokenVerifyUrl, String batchVerifyUrl,
+                                     int maxBatchSize) {
+        this.restTemplate = restTemplate;
+        this.tokenVerifyUrl = tokenVerifyUrl;
+        this.batchVerifyUrl = batchVerifyUrl;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public TokenVerificationResponse verify(String token) {
+        return verifyWithMetadata(token, null).response();
+    }
+
+    @Override
+    public VerificationResult verifyWithMetadata(String token, String etag) {
+        try {
+            return restTemplate.execute(tokenVerifyUrl, HttpMethod.GET, request -> {
+                request.getHeaders().set(HttpHeaders.AUTHORIZATION, token);
+                if (etag != null) {
+                    request.getHeaders().setIfNoneMatch(etag);
+                }
+            }, RestTemplateTokenVerifier::readResponse);
+        } catch (HttpClientErrorException e) {
+            // RestTemplate's default error handler throws before readResponse sees the status
+            if (VerificationStatus.rejectsToken(e.getStatusCode())) {
+                log.debug("Token verification failed with status: {}", e.getStatusCode());
+                return VerificationResult.of(null);
+            }
+            throw new TokenVerificationException("Token verification request failed", e);
+        } catch (RestClientException e) {
+            throw new TokenVerificationException("Token verification request failed", e);
+        }
+    }
+
+    private static VerificationResult readResponse(ClientHttpResponse response) throws IOException {
+        HttpHeaders headers = response.getHeaders();
+        long maxAge = CacheHeaders.maxAgeMillis(headers, System.currentTimeMillis());
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            return VerificationResult.notModified(maxAge, headers.getETag());
+        }
+        if (VerificationStatus.rejectsToken(response.getStatusCode())) {
+            log.debug("Token verification failed with status: {}", response.getStatusCode());
+            return VerificationResult.of(null);
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            // Reached only with an error handler that lets error statuses through
+            throw new TokenVerificationException("Token verification failed with status: "
+                    + response.getStatusCode());
+        }
+        try {
+            TokenResponseParser.Body body = TokenResponseParser.readBody(response.getBody());
+            if (body.user() == null) {
+                log.debug("Token verification failed: Session not found");
+            }
+            return new VerificationResult(body.user(), maxAge, body.expiresAt(), headers.getETag(), false);
+        } catch (JsonProcessingException e) {
+            throw new TokenVerificationException("Failed to parse token verification response", e,
+                    TokenVerificationException.Reason.INVALID_RESPONSE);
+        }
+    }
+
+    @Override
+    public Map<String, TokenVerificationResponse> verifyAll(List<String> tokens) {
+        if (batchVerifyUrl == null) {
+            return TokenVerifier.super.verifyAll(tokens);
+        }
+
+        Map<String, TokenVerificationResponse> verified = new HashMap<>();
+        for (int from = 0; from < tokens.size(); from += maxBatchSize) {
+            List<String> chunk = tokens.subList(from, Math.min(tokens.size(), from + maxBatchSize));
+            verifyBatch(chunk, verified);
+        }
+        return verified;
+    }
+
+    private void verifyBatch(List<String> tokens, Map<String, TokenVerificationResponse> verified) {
+        List<TokenVerificationResponse> results;
+        try {
+            results = restTemplate.execute(batchVerifyUrl, HttpMethod.POST,
+                    request -> writeBatchRequest(request, tokens),
+                    RestTemplateTokenVerifier::readBatchResponse);
+        } catch (RestClientException e) {
+            throw new TokenVerificationException("Batch token verification request failed", e);
+        }
+
+        if (results == null || results.size() != tokens.size()) {
+            throw new TokenVerificationException("Unexpected batch token verification response", null,
+                    TokenVerificationException.Reason.INVALID_RESPONSE);
+        }
+
+        for (int i = 0; i < tokens.size(); i++) {
+            if (results.get(i) != null) {
+                verified.put(tokens.get(i), results.get(i));
+            }
+        }
+    }
+
+    private static void writeBatchRequest(ClientHttpRequest request, List<String> tokens) throws IOException {
+        request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        try (JsonGenerator generator = jsonFactory.createGenerator(request.getBody())) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("tokens");
+            for (String token : tokens) {
+                generator.writeString(token);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    private static List<TokenVerificationResponse> readBatchResponse(ClientHttpResponse response) throws IOException {
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new TokenVerificationException("Unexpected batch token verification response: "
+                    + response.getStatusCode(), null, TokenVerificationException.Reason.INVALID_RESPONSE);
+        }
+        try {
+            return TokenResponseParser.readBatch(response.getBody());
+        } catch (JsonProcessingException e) {
+            throw new TokenVerificationException("Failed to parse batch token verification response", e,
+                    TokenVerificationException.Reason.INVALID_RESPONSE);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.leveledcv.tokenAuthenticationLib.verifier;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Interprets the JSON body returned by the token verification service, and the claims of a locally verified JWT.
+ * The {@code read} methods parse the body in a single streaming pass straight into a
+ * {@link TokenVerificationResponse}, skipping fields that are not needed, without building a map.
+ * An optional {@code expiresAt} or {@code sessionExpiresAt} field gives the end of the session, in epoch
+ * seconds or as an ISO-8601 instant.
+ */
+@Slf4j
+public final class TokenResponseParser {
+
+    private static final String SESSION_NOT_FOUND = "Session not found";
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private TokenResponseParser() {
+    }
+
+    /**
+     * Read a verification body
+     *
+     * @return the user, or null if the body is the session-not-found rejection or not a JSON object
+     * @throws IOException if the body is not valid JSON
+     */
+    public static TokenVerificationResponse read(InputStream body) throws IOException {
+        return readBody(body).user();
+    }
+
+    /**
+     * Read a verification body together with the session expiry it states
+     *
+     * @return the body; its user is null if the body is the session-not-found rejection or not a JSON object
+     * @throws IOException if the body is not valid JSON
+     */
+    public static Body readBody(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return parser.nextToken() == JsonToken.START_OBJECT ? readObject(parser) : Body.EMPTY;
+        }
+    }
+
+    /**
+     * Read a verification body
+     *
+     * @return the user, or null if the body is the session-not-found rejection or not a JSON object
+     * @throws IOException if the body is not valid JSON
+     */
+    public static TokenVerificationResponse read(byte[] body) throws IOException {
+        return readBody(body).user();
+    }
+
+    /**
+     * Read a verification body together with the session expiry it states
+     *
+     * @return the body; its user is null if the body is the session-not-found rejection or not a JSON object
+     * @throws IOException if the body is not valid JSON
+     */
+    public static Body readBody(byte[] body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return parser.nextToken() == JsonToken.START_OBJECT ? readObject(parser) : Body.EMPTY;
+        }
+    }
+
+    /**
+     * Read a batch verification body of the form {"results": [...]}
+     *
+     * @return one entry per result, null where the token was rejected; null if the body has no results array
+     * @throws IOException if the body is not valid JSON
+     */
+    public static List<TokenVerificationResponse> readBatch(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            List<TokenVerificationResponse> results = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("results".equals(field) && value == JsonToken.START_ARRAY) {
+                    results = new ArrayList<>();
+                    JsonToken element;
+                    while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+                        if (element == JsonToken.START_OBJECT) {
+                            results.add(readObject(parser).user());
+                        } else {
+                            parser.skipChildren();
+                            results.add(null);
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Read the fields of an object whose START_OBJECT token has just been consumed
+     */
+    private static Body readObject(JsonParser parser) throws IOException {
+        String username = null;
+        String email = null;
+        String status = null;
+        String error = null;
+        long expiresAt = -1;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "username" -> username = scalarText(parser, value);
+                case "email" -> email = scalarText(parser, value);
+                case "status" -> status = scalarText(parser, value);
+                case "error" -> error = scalarText(parser, value);
+                case "expiresAt", "sessionExpiresAt" -> expiresAt = expiresAt(parser, value);
+                default -> parser.skipChildren();
+            }
+        }
+        if (SESSION_NOT_FOUND.equals(error)) {
+            return Body.EMPTY;
+        }
+        return new Body(new TokenVerificationResponse(username, email, status != null ? statusOf(status) : null),
+                expiresAt);
+    }
+
+    /**
+     * @return the instant in epoch millis, or -1 if the value is neither epoch seconds nor an ISO-8601 instant
+     */
+    private static long expiresAt(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+            return (long) (parser.getDoubleValue() * 1000);
+        }
+        String text = scalarText(parser, value);
+        if (text == null) {
+            return -1;
+        }
+        try {
+            return Instant.parse(text).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            log.debug("Ignoring unparseable session expiry: {}", text);
+            return -1;
+        }
+    }
+
+    private static String scalarText(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getText();
+    }
+
+    /**
+     * A verification body: the user, or null if the token was rejected, and the session expiry
+     * in epoch millis, or -1 if the body does not state one
+     */
+    public record Body(TokenVerificationResponse user, long expiresAt) {
+
+        private static final Body EMPTY = new Body(null, -1);
+    }
+
+    private static UserStatus statusOf(String name) {
+        UserStatus status = UserStatus.fromName(name);
+        if (status == null) {
+            log.warn("Unknown user status: {}", name);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,40 @@
+package com.leveledcv.tokenAuthenticationLib.verifier;
+
+/**
+ * Thrown when a token could not be verified, as opposed to being rejected
+ */
+public class TokenVerificationException extends RuntimeException {
+
+    /**
+     * Why the token could not be verified
+     */
+    public enum Reason {
+        /**
+         * The verification service could not be reached or did not answer in time
+         */
+        TRANSPORT,
+        /**
+         * The verification service answered with a body that could not be interpreted
+         */
+        INVALID_RESPONSE
+    }
+
+    private final Reason reason;
+
+    public TokenVerificationException(String message) {
+        this(message, null, Reason.TRANSPORT);
+    }
+
+    public TokenVerificationException(String message, Throwable cause) {
+        this(message, cause, Reason.TRANSPORT);
+    }
+
+    public TokenVerificationException(String message, Throwable cause, Reason reason) {
+        super(message, cause);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
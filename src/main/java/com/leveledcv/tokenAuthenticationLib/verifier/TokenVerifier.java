@@ -0,0 +1,57 @@
+package com.leveledcv.tokenAuthenticationLib.verifier;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transport used by {@link com.leveledcv.tokenAuthenticationLib.service.TokenVerificationService}
+ * to verify a token against the source of truth.
+ * Provide a bean of this type to replace the default HTTP implementation.
+ */
+public interface TokenVerifier {
+
+    /**
+     * Verify a token
+     *
+     * @param token the token, including the configured prefix
+     * @return the user the token belongs to, or null if the token was rejected
+     * @throws TokenVerificationException if the token could not be verified, e.g. the service is unreachable
+     */
+    TokenVerificationResponse verify(String token);
+
+    /**
+     * Verify a token and report the caching metadata the verification service sent with its answer.
+     * HTTP implementations send {@code If-None-Match} when an entity tag is given and report a
+     * 304 Not Modified answer; the default reports no metadata.
+     *
+     * @param token the token, including the configured prefix
+     * @param etag entity tag of the cached verification being revalidated, or null
+     * @return the verification and its metadata
+     * @throws TokenVerificationException if the token could not be verified
+     */
+    default VerificationResult verifyWithMetadata(String token, String etag) {
+        return VerificationResult.of(verify(token));
+    }
+
+    /**
+     * Verify several tokens. Implementations backed by a batch endpoint verify them in a single call;
+     * the default verifies them one by one.
+     *
+     * @param tokens the tokens, including the configured prefix
+     * @return the users for the tokens that were accepted; rejected tokens are absent
+     * @throws TokenVerificationException if the tokens could not be verified
+     */
+    default Map<String, TokenVerificationResponse> verifyAll(List<String> tokens) {
+        Map<String, TokenVerificationResponse> results = new HashMap<>();
+        for (String token : tokens) {
+            TokenVerificationResponse response = verify(token);
+            if (response != null) {
+                results.put(token, response);
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,281 @@
+package com.leveledcv.tokenAuthenticationLib.verifier;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The verification service replicas calls are spread over.
+ * <p>
+ * Each call goes to the better of two randomly picked healthy endpoints ("power of two choices"), scored by
+ * an exponentially weighted moving average of their latency times their calls in flight, so slow replicas
+ * receive less traffic without every caller herding onto the same fastest one. Endpoints that fail
+ * {@code failureThreshold} times in a row are taken out of rotation for {@code ejectionDuration}, then
+ * receive traffic again and are ejected at their next failure until one succeeds.
+ * <p>
+ * Also tracks the latency percentile after which a call is hedged, and the budget that caps hedged calls.
+ */
+@Slf4j
+public class VerificationEndpoints {
+
+    private static final double EWMA_WEIGHT = 0.2;
+    private static final int LATENCY_SAMPLES = 256;
+    private static final int MIN_LATENCY_SAMPLES = 32;
+    private static final int PERCENTILE_UPDATE_INTERVAL = 32;
+    private static final long CREDIT = 1000;
+
+    private final Endpoint[] endpoints;
+    private final int failureThreshold;
+    private final long ejectionMillis;
+    private final Clock clock;
+
+    private final double hedgePercentile;
+    private final long minHedgeDelayNanos;
+    private final long hedgeCreditPerCall;
+    private final long maxHedgeCredit;
+    private final AtomicLong hedgeCredit = new AtomicLong();
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyIndex;
+    private int latencySamples;
+    private int samplesSinceUpdate;
+    private volatile long hedgeDelayNanos = -1;
+
+    public VerificationEndpoints(List<String> urls) {
+        this(urls, 3, Duration.ofSeconds(10), 0.95, Duration.ZERO, 0, Clock.systemUTC());
+    }
+
+    /**
+     * @param urls verification URLs of the replicas
+     * @param failureThreshold consecutive failures that take an endpoint out of rotation
+     * @param ejectionDuration how long an ejected endpoint stays out of rotation
+     * @param hedgePercentile latency percentile of recent calls after which a call is hedged
+     * @param minHedgeDelay lower bound of the hedge delay
+     * @param hedgeBudgetPercent hedged calls allowed per hundred calls, 0 to never hedge
+     */
+    public VerificationEndpoints(List<String> urls, int failureThreshold, Duration ejectionDuration,
+                                 double hedgePercentile, Duration minHedgeDelay, double hedgeBudgetPercent,
+                                 Clock clock) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("At least one verification URL is required");
+        }
+        this.endpoints = urls.stream().map(Endpoint::new).toArray(Endpoint[]::new);
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.ejectionMillis = ejectionDuration.toMillis();
+        this.clock = clock;
+        this.hedgePercentile = hedgePercentile;
+        this.minHedgeDelayNanos = minHedgeDelay.toNanos();
+        this.hedgeCreditPerCall = (long) (hedgeBudgetPercent * CREDIT / 100);
+        // Allow a short burst of hedges, e.g. when a replica stalls, without exceeding the budget over time
+        this.maxHedgeCredit = 10 * CREDIT;
+    }
+
+    /**
+     * Pick the endpoint for a call
+     *
+     * @param exclude endpoint that must not be picked if there is another one, e.g. the target of the call
+     *                being hedged; may be null
+     */
+    public Endpoint choose(Endpoint exclude) {
+        if (endpoints.length == 1) {
+            return endpoints[0];
+        }
+        long now = clock.millis();
+        Endpoint first = null;
+        Endpoint second = null;
+        int candidates = 0;
+        // Reservoir-sample two distinct healthy endpoints in one pass, without allocating
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint == exclude || !endpoint.isAvailable(now)) {
+                continue;
+            }
+            candidates++;
+            if (candidates == 1) {
+                first = endpoint;
+            } else if (candidates == 2) {
+                second = endpoint;
+            } else {
+                int slot = random.nextInt(candidates);
+                if (slot == 0) {
+                    first = endpoint;
+                } else if (slot == 1) {
+                    second = endpoint;
+                }
+            }
+        }
+        if (first == null) {
+            return dueBackSoonest(exclude);
+        }
+        if (second == null) {
+            return first;
+        }
+        return first.score() <= second.score() ? first : second;
+    }
+
+    /**
+     * With every endpoint out of rotation, try the one due back soonest rather than fail outright
+     */
+    private Endpoint dueBackSoonest(Endpoint exclude) {
+        Endpoint best = null;
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint != exclude && (best == null || endpoint.ejectedUntil < best.ejectedUntil)) {
+                best = endpoint;
+            }
+        }
+        return best != null ? best : exclude;
+    }
+
+    /**
+     * Mark the start of a call to the endpoint
+     *
+     * @return the start time to pass to {@link #onSuccess} or {@link #onFailure}
+     */
+    public long callStarted(Endpoint endpoint) {
+        endpoint.inFlight.incrementAndGet();
+        if (hedgeCreditPerCall > 0) {
+            hedgeCredit.getAndUpdate(credit -> Math.min(maxHedgeCredit, credit + hedgeCreditPerCall));
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Record a call that returned an answer, whether or not the token was accepted
+     */
+    public void onSuccess(Endpoint endpoint, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        endpoint.inFlight.decrementAndGet();
+        endpoint.recordLatency(nanos);
+        if (endpoint.consecutiveFailures.getAndSet(0) >= failureThreshold) {
+            log.info("Verification endpoint {} is healthy again", endpoint.url);
+        }
+        recordLatency(nanos);
+    }
+
+    /**
+     * Record a call that failed, e.g. because the endpoint was unreachable or answered with an error
+     */
+    public void onFailure(Endpoint endpoint, long startNanos) {
+        endpoint.inFlight.decrementAndGet();
+        // A failure is at least as slow as the time it took, so a timing-out replica also loses traffic
+        endpoint.recordLatency(System.nanoTime() - startNanos);
+        if (endpoint.consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            endpoint.ejectedUntil = clock.millis() + ejectionMillis;
+            log.warn("Verification endpoint {} taken out of rotation after {} consecutive failures",
+                    endpoint.url, endpoint.consecutiveFailures.get());
+        }
+    }
+
+    /**
+     * Record a call the caller gave up on before it answered, which says nothing about the endpoint
+     */
+    public void callAbandoned(Endpoint endpoint) {
+        endpoint.inFlight.decrementAndGet();
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[latencyIndex] = nanos;
+        latencyIndex = (latencyIndex + 1) % LATENCY_SAMPLES;
+        latencySamples = Math.min(LATENCY_SAMPLES, latencySamples + 1);
+        samplesSinceUpdate++;
+        if (latencySamples >= MIN_LATENCY_SAMPLES && samplesSinceUpdate >= PERCENTILE_UPDATE_INTERVAL) {
+            samplesSinceUpdate = 0;
+            long[] sorted = Arrays.copyOf(latencies, latencySamples);
+            Arrays.sort(sorted);
+            long percentile = sorted[(int) Math.min(sorted.length - 1, Math.ceil(hedgePercentile * sorted.length) - 1)];
+            hedgeDelayNanos = Math.max(minHedgeDelayNanos, percentile);
+        }
+    }
+
+    /**
+     * @return how long to wait for an answer before hedging, or -1 if too few calls were observed yet
+     */
+    public long getHedgeDelayNanos() {
+        return hedgeDelayNanos;
+    }
+
+    /**
+     * Take a hedged call from the budget
+     *
+     * @return false if the budget is spent
+     */
+    public boolean tryAcquireHedge() {
+        while (true) {
+            long credit = hedgeCredit.get();
+            if (credit < CREDIT) {
+                return false;
+            }
+            if (hedgeCredit.compareAndSet(credit, credit - CREDIT)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return false while the endpoint is out of rotation after repeated failures
+     */
+    public boolean isInRotation(Endpoint endpoint) {
+        return endpoint.isAvailable(clock.millis());
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return List.of(endpoints);
+    }
+
+    public int size() {
+        return endpoints.length;
+    }
+
+    /**
+     * One replica of the verification service
+     */
+    public static final class Endpoint {
+
+        private final String url;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile long ewmaNanos;
+        private volatile long ejectedUntil;
+
+        Endpoint(String url) {
+            this.url = url;
+        }
+
+        private boolean isAvailable(long now) {
+            return ejectedUntil <= now;
+        }
+
+        private double score() {
+            // Untried endpoints score by calls in flight alone, so they get traffic without all of it
+            return (double) (ewmaNanos + 1) * (inFlight.get() + 1);
+        }
+
+        private void recordLatency(long nanos) {
+            long ewma = ewmaNanos;
+            // Racy read-modify-write: a lost update only delays the average by one sample
+            ewmaNanos = ewma == 0 ? nanos : (long) (ewma + EWMA_WEIGHT * (nanos - ewma));
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public long getLatencyNanos() {
+            return ewmaNanos;
+        }
+
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        @Override
+        public String toString() {
+            return url;
+        }
+    }
+}
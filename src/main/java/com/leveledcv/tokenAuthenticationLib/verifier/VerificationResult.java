@@ -0,0 +1,31 @@
+package com.leveledcv.tokenAuthenticationLib.verifier;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+
+/**
+ * A verification together with the caching metadata the verification service sent with it
+ *
+ * @param response the user, or null if the token was rejected or the answer is {@code notModified}
+ * @param maxAgeMillis how long the answer may be reused, from {@code Cache-Control} or {@code Expires};
+ *                     0 if it must not be cached, -1 if the service did not say
+ * @param expiresAt when the session ends in epoch millis, or -1 if the service did not say
+ * @param etag entity tag to revalidate the answer with, or null
+ * @param notModified true if the service answered a conditional request with 304 Not Modified
+ */
+public record VerificationResult(TokenVerificationResponse response, long maxAgeMillis, long expiresAt, String etag,
+                                 boolean notModified) {
+
+    /**
+     * @return a result without caching metadata
+     */
+    public static VerificationResult of(TokenVerificationResponse response) {
+        return new VerificationResult(response, -1, -1, null, false);
+    }
+
+    /**
+     * @return the result of a conditional request the service answered with 304 Not Modified
+     */
+    public static VerificationResult notModified(long maxAgeMillis, String etag) {
+        return new VerificationResult(null, maxAgeMillis, -1, etag, true);
+    }
+}
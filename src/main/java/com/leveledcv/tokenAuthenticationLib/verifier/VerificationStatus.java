@@ -0,0 +1,26 @@
+package com.leveledcv.tokenAuthenticationLib.verifier;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * Classifies the HTTP status of a verification response
+ */
+public final class VerificationStatus {
+
+    private VerificationStatus() {
+    }
+
+    /**
+     * A 4xx answer is the verification service's verdict that the token is invalid, e.g. 401 or 404 for a
+     * revoked or unknown session. 408 and 429 say the service could not answer now, and like 5xx and IO errors
+     * count as the service being unavailable.
+     *
+     * @return true if the status rejects the token
+     */
+    public static boolean rejectsToken(HttpStatusCode status) {
+        return status.is4xxClientError()
+                && !status.isSameCodeAs(HttpStatus.REQUEST_TIMEOUT)
+                && !status.isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+    }
+}
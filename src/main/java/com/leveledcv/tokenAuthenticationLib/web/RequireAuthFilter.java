@@ -0,0 +1,256 @@
+package com.leveledcv.tokenAuthenticationLib.web;
+
+import com.leveledcv.tokenAuthenticationLib.annotations.RequireAuth;
+import com.leveledcv.tokenAuthenticationLib.config.AuthProperties;
+import com.leveledcv.tokenAuthenticationLib.context.AuthenticationContext;
+import com.leveledcv.tokenAuthenticationLib.metrics.AuthenticationMetrics;
+import com.leveledcv.tokenAuthenticationLib.metrics.AuthenticationMetrics.Rejection;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.service.AdmissionRejectedException;
+import com.leveledcv.tokenAuthenticationLib.service.Deadline;
+import com.leveledcv.tokenAuthenticationLib.service.TokenVerificationService;
+import com.leveledcv.tokenAuthenticationLib.service.VerificationUnavailableException;
+import com.leveledcv.tokenAuthenticationLib.util.ClientAddresses;
+import com.leveledcv.tokenAuthenticationLib.util.TokenHeaders;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servlet filter that authenticates requests for @RequireAuth handlers before Spring MVC dispatch,
+ * so rejected requests never reach argument binding or body parsing.
+ * In async mode the verification runs off the container thread, which is released while it is pending.
+ */
+@Slf4j
+public class RequireAuthFilter extends OncePerRequestFilter {
+
+    private static final String REJECTION_ATTRIBUTE = RequireAuthFilter.class.getName() + ".REJECTION";
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    private final RequireAuthHandlerIndex handlerIndex;
+    private final TokenVerificationService tokenVerificationService;
+    private final AuthProperties authProperties;
+    private final AuthenticationMetrics metrics;
+    private final ThreadPoolExecutor asyncExecutor;
+
+    public RequireAuthFilter(RequireAuthHandlerIndex handlerIndex, TokenVerificationService tokenVerificationService,
+                             AuthProperties authProperties) {
+        this(handlerIndex, tokenVerificationService, authProperties, AuthenticationMetrics.noop());
+    }
+
+    public RequireAuthFilter(RequireAuthHandlerIndex handlerIndex, TokenVerificationService tokenVerificationService,
+                             AuthProperties authProperties, AuthenticationMetrics metrics) {
+        this.handlerIndex = handlerIndex;
+        this.tokenVerificationService = tokenVerificationService;
+        this.authProperties = authProperties;
+        this.metrics = metrics;
+        this.asyncExecutor = authProperties.getFilter().isAsync() ? createAsyncExecutor(authProperties.getFilter()) : null;
+    }
+
+    private static ThreadPoolExecutor createAsyncExecutor(AuthProperties.Filter filter) {
+        return new ThreadPoolExecutor(filter.getAsyncThreads(), filter.getAsyncThreads(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(filter.getAsyncQueueCapacity()),
+                new CustomizableThreadFactory("token-auth-verify-"));
+    }
+
+    @Override
+    public void destroy() {
+        if (asyncExecutor != null) {
+            asyncExecutor.shutdown();
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            resumeAfterVerification(request, response, chain);
+            return;
+        }
+
+        RequireAuth requireAuth = handlerIndex.findRequireAuth(request);
+        if (requireAuth == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // Extract token from header
+        String authHeader = request.getHeader(authProperties.getTokenHeader());
+        if (authHeader == null || authHeader.isEmpty()) {
+            log.debug("No authorization header found");
+            metrics.rejected(Rejection.MISSING_HEADER);
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "Authorization header is missing");
+            return;
+        }
+
+        String token = TokenHeaders.toToken(authHeader, authProperties.getTokenPrefix());
+
+        // Blank credentials are rejected locally, without a verification call
+        if (token.isEmpty()) {
+            log.debug("Empty token found");
+            metrics.rejected(Rejection.EMPTY_TOKEN);
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "Invalid authorization token");
+            return;
+        }
+
+        // The budget starts now, so time spent queued for an async verification counts against it
+        Deadline deadline = Deadline.forRequest(requireAuth, authProperties.getBudget(), request::getHeader);
+        if (asyncExecutor != null && request.isAsyncSupported()) {
+            verifyAsync(request, token, deadline);
+            return;
+        }
+
+        TokenVerificationResponse userInfo;
+        try {
+            userInfo = tokenVerificationService.verifyToken(token, deadline, clientAddress(request));
+        } catch (AdmissionRejectedException e) {
+            throttled(e);
+            response.sendError(SC_TOO_MANY_REQUESTS, "Too many authentication attempts");
+            return;
+        } catch (VerificationUnavailableException e) {
+            log.warn("Token verification unavailable: {}", e.getMessage());
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Authentication service unavailable");
+            return;
+        }
+        if (userInfo == null) {
+            log.debug("Token verification failed");
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "Invalid or expired token");
+            return;
+        }
+        proceedAuthenticated(userInfo, request, response, chain);
+    }
+
+    private void verifyAsync(HttpServletRequest request, String token, Deadline deadline) {
+        // Read before the request leaves the container thread
+        String clientAddress = clientAddress(request);
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(authProperties.getFilter().getAsyncTimeout().toMillis());
+        asyncContext.addListener(new TimeoutListener());
+        try {
+            asyncExecutor.execute(() -> {
+                try {
+                    TokenVerificationResponse userInfo = tokenVerificationService.verifyToken(token, deadline,
+                            clientAddress);
+                    if (userInfo != null) {
+                        request.setAttribute(AuthenticationContext.REQUEST_ATTRIBUTE, userInfo);
+                    } else {
+                        request.setAttribute(REJECTION_ATTRIBUTE, HttpServletResponse.SC_FORBIDDEN);
+                    }
+                } catch (AdmissionRejectedException e) {
+                    throttled(e);
+                    request.setAttribute(REJECTION_ATTRIBUTE, SC_TOO_MANY_REQUESTS);
+                } catch (VerificationUnavailableException e) {
+                    log.warn("Token verification unavailable: {}", e.getMessage());
+                    request.setAttribute(REJECTION_ATTRIBUTE, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                } catch (RuntimeException e) {
+                    log.error("Authentication error", e);
+                    request.setAttribute(REJECTION_ATTRIBUTE, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                }
+                dispatch(asyncContext);
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Async token verification rejected, executor is saturated");
+            request.setAttribute(REJECTION_ATTRIBUTE, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            dispatch(asyncContext);
+        }
+    }
+
+    private void resumeAfterVerification(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Object rejection = request.getAttribute(REJECTION_ATTRIBUTE);
+        if (rejection instanceof Integer status) {
+            request.removeAttribute(REJECTION_ATTRIBUTE);
+            response.sendError(status, switch (status) {
+                case HttpServletResponse.SC_FORBIDDEN -> "Invalid or expired token";
+                case SC_TOO_MANY_REQUESTS -> "Too many authentication attempts";
+                case HttpServletResponse.SC_SERVICE_UNAVAILABLE -> "Authentication service unavailable";
+                default -> "Authentication service error";
+            });
+            return;
+        }
+
+        if (request.getAttribute(AuthenticationContext.REQUEST_ATTRIBUTE) instanceof TokenVerificationResponse userInfo) {
+            proceedAuthenticated(userInfo, request, response, chain);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private void throttled(AdmissionRejectedException e) {
+        log.debug("Request throttled: {}", e.getDecision());
+        metrics.rejected(e.getDecision().getRejection());
+    }
+
+    private String clientAddress(HttpServletRequest request) {
+        String header = authProperties.getAdmission().getClientAddressHeader();
+        return ClientAddresses.resolve(header != null ? request.getHeader(header) : null, request.getRemoteAddr());
+    }
+
+    private void proceedAuthenticated(TokenVerificationResponse userInfo, HttpServletRequest request,
+                                      HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        log.debug("Authentication successful for user: {}", userInfo.getUsername());
+        request.setAttribute(AuthenticationContext.REQUEST_ATTRIBUTE, userInfo);
+        // Bound through the configured carrier, like the aspect, and unbound when the chain returns
+        try {
+            AuthenticationContext.callWithUser(userInfo, () -> {
+                chain.doFilter(request, response);
+                return null;
+            });
+        } catch (ServletException | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ServletException(e);
+        }
+    }
+
+    private static void dispatch(AsyncContext asyncContext) {
+        try {
+            asyncContext.dispatch();
+        } catch (IllegalStateException e) {
+            // The request already timed out and was completed by the TimeoutListener
+            log.debug("Async request completed before token verification finished");
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private static final class TimeoutListener implements AsyncListener {
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            log.warn("Async token verification timed out");
+            ((HttpServletResponse) event.getSuppliedResponse())
+                    .sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Authentication service timeout");
+            event.getAsyncContext().complete();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.leveledcv.tokenAuthenticationLib.web;
+
+import com.leveledcv.tokenAuthenticationLib.annotations.RequireAuth;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.server.RequestPath;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Finds the @RequireAuth of the Spring MVC handler a request maps to. The annotations of handler methods and
+ * controller classes are collected once at startup, but each request is still matched to its handler through
+ * the handler mapping, the same lookup the DispatcherServlet repeats afterwards: no cheaper key, such as the
+ * path alone, reproduces Spring MVC's matching on patterns, HTTP methods, headers and parameters.
+ */
+@Slf4j
+public class RequireAuthHandlerIndex implements SmartInitializingSingleton {
+
+    private final RequestMappingHandlerMapping handlerMapping;
+    private volatile Map<Method, RequireAuth> protectedMethods = Map.of();
+
+    public RequireAuthHandlerIndex(RequestMappingHandlerMapping handlerMapping) {
+        this.handlerMapping = handlerMapping;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<Method, RequireAuth> annotated = new HashMap<>();
+        for (HandlerMethod handlerMethod : handlerMapping.getHandlerMethods().values()) {
+            RequireAuth requireAuth = findAnnotation(handlerMethod);
+            if (requireAuth != null) {
+                annotated.put(handlerMethod.getMethod(), requireAuth);
+            }
+        }
+        protectedMethods = Map.copyOf(annotated);
+        log.debug("Found {} handler methods requiring authentication", protectedMethods.size());
+    }
+
+    /**
+     * Check whether the handler the request will be dispatched to requires authentication
+     */
+    public boolean requiresAuth(HttpServletRequest request) {
+        return findRequireAuth(request) != null;
+    }
+
+    /**
+     * Resolve the handler of the request, skipping the lookup when no handler requires authentication
+     *
+     * @return the @RequireAuth of the handler the request will be dispatched to, from the method or else its
+     * controller class, or null if the handler does not require authentication
+     */
+    public RequireAuth findRequireAuth(HttpServletRequest request) {
+        if (protectedMethods.isEmpty()) {
+            return null;
+        }
+
+        Object previousPath = request.getAttribute(ServletRequestPathUtils.PATH_ATTRIBUTE);
+        try {
+            if (handlerMapping.getPatternParser() != null) {
+                ServletRequestPathUtils.parseAndCache(request);
+            }
+            HandlerExecutionChain chain = handlerMapping.getHandler(request);
+            return chain != null && chain.getHandler() instanceof HandlerMethod handlerMethod
+                    ? protectedMethods.get(handlerMethod.getMethod()) : null;
+        } catch (Exception e) {
+            // No unambiguous handler; let the dispatcher produce its usual error response
+            return null;
+        } finally {
+            if (previousPath instanceof RequestPath) {
+                request.setAttribute(ServletRequestPathUtils.PATH_ATTRIBUTE, previousPath);
+            } else {
+                ServletRequestPathUtils.clearParsedRequestPath(request);
+            }
+        }
+    }
+
+    private static RequireAuth findAnnotation(HandlerMethod handlerMethod) {
+        RequireAuth requireAuth = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), RequireAuth.class);
+        return requireAuth != null ? requireAuth
+                : AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), RequireAuth.class);
+    }
+}
@@ -0,0 +1,153 @@
+package com.leveledcv.tokenAuthenticationLib.aspect;
+
+import com.leveledcv.tokenAuthenticationLib.annotations.RequireAuth;
+import com.leveledcv.tokenAuthenticationLib.config.AuthProperties;
+import com.leveledcv.tokenAuthenticationLib.context.AuthenticationContext;
+import com.leveledcv.tokenAuthenticationLib.metrics.AuthenticationMetrics;
+import com.leveledcv.tokenAuthenticationLib.metrics.AuthenticationMetrics.AuthenticationOutcome;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import com.leveledcv.tokenAuthenticationLib.service.Deadline;
+import com.leveledcv.tokenAuthenticationLib.service.TokenVerificationService;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AuthenticationAspectTest {
+
+    private final TokenVerificationService tokenVerificationService = mock(TokenVerificationService.class);
+    private final List<AuthenticationOutcome> outcomes = new CopyOnWriteArrayList<>();
+
+    private AuthenticationAspect aspect;
+
+    @BeforeEach
+    void setUp() {
+        AuthenticationMetrics metrics = new AuthenticationMetrics(ObservationRegistry.NOOP) {
+            @Override
+            public void authenticationFinished(long startNanos, AuthenticationOutcome outcome) {
+                outcomes.add(outcome);
+            }
+        };
+        aspect = new AuthenticationAspect(tokenVerificationService, new AuthProperties(), metrics);
+        when(tokenVerificationService.verifyToken(eq("Bearer valid-token"), any(Deadline.class), any()))
+                .thenReturn(new TokenVerificationResponse("testuser", "test@example.com", UserStatus.ACTIVE));
+        newRequest();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testNestedCallReusesVerificationAndKeepsOuterContext() {
+        InnerService inner = proxy(new InnerService());
+        OuterService outer = proxy(new OuterService(inner));
+
+        assertEquals("testuser/testuser/testuser", outer.composite());
+        assertNull(AuthenticationContext.getCurrentUser());
+        verify(tokenVerificationService, times(1)).verifyToken(anyString(), any(Deadline.class), any());
+    }
+
+    @Test
+    void testVerifiesOncePerRequest() {
+        InnerService inner = proxy(new InnerService());
+
+        inner.whoAmI();
+        inner.whoAmI();
+        verify(tokenVerificationService, times(1)).verifyToken(anyString(), any(Deadline.class), any());
+
+        newRequest();
+        inner.whoAmI();
+        verify(tokenVerificationService, times(2)).verifyToken(anyString(), any(Deadline.class), any());
+    }
+
+    @Test
+    void testClassAndMethodAnnotationAdvisedOnce() {
+        InnerService inner = proxy(new InnerService());
+
+        assertEquals("testuser", inner.annotatedTwice());
+        assertEquals(List.of(AuthenticationOutcome.AUTHENTICATED), outcomes);
+    }
+
+    @Test
+    void testRefusedCallIsTimedWithItsOutcome() {
+        InnerService inner = proxy(new InnerService());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/profile");
+        request.addHeader("Authorization", "Bearer revoked-token");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, inner::whoAmI);
+        assertEquals(HttpStatus.FORBIDDEN, e.getStatusCode());
+        assertEquals(List.of(AuthenticationOutcome.FORBIDDEN), outcomes);
+    }
+
+    @Test
+    void testMethodExceptionsPropagateUnchanged() {
+        InnerService inner = proxy(new InnerService());
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, inner::fail);
+        assertEquals("business failure", e.getMessage());
+    }
+
+    private void newRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/profile");
+        request.addHeader("Authorization", "Bearer valid-token");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(T target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return (T) factory.getProxy();
+    }
+
+    @RequireAuth
+    static class InnerService {
+
+        public String whoAmI() {
+            return AuthenticationContext.getCurrentUsername();
+        }
+
+        @RequireAuth
+        public String annotatedTwice() {
+            return AuthenticationContext.getCurrentUsername();
+        }
+
+        public String fail() {
+            throw new IllegalStateException("business failure");
+        }
+    }
+
+    static class OuterService {
+
+        private final InnerService inner;
+
+        OuterService(InnerService inner) {
+            this.inner = inner;
+        }
+
+        @RequireAuth
+        public String composite() {
+            String before = AuthenticationContext.getCurrentUsername();
+            String nested = inner.whoAmI();
+            return before + "/" + nested + "/" + AuthenticationContext.getCurrentUsername();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.leveledcv.tokenAuthenticationLib.cache;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import com.leveledcv.tokenAuthenticationLib.support.MutableClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactVerificationCacheTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void testEntryExpiresAfterTtl() {
+        CompactVerificationCache cache = new CompactVerificationCache(100, Duration.ofSeconds(30), clock);
+        TokenKey key = TokenKey.of("token");
+        cache.put(key, new TokenVerificationResponse("alice", "alice@example.com", UserStatus.LOCKED));
+
+        clock.advance(Duration.ofSeconds(29));
+        assertEquals(new TokenVerificationResponse("alice", "alice@example.com", UserStatus.LOCKED), cache.get(key));
+
+        clock.advance(Duration.ofSeconds(1));
+        assertNull(cache.get(key));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getUserCount());
+    }
+
+    @Test
+    void testTokensOfOneUserShareOneRecord() {
+        CompactVerificationCache cache = new CompactVerificationCache(10_000, Duration.ofMinutes(1), clock);
+        for (int i = 0; i < 5000; i++) {
+            cache.put(TokenKey.of("token-" + i), user("user" + i % 50));
+        }
+        assertEquals(5000, cache.size());
+        assertEquals(50, cache.getUserCount());
+
+        assertEquals(100, cache.invalidateUser("user7"));
+        assertEquals(4900, cache.size());
+        assertEquals(49, cache.getUserCount());
+        for (int i = 0; i < 5000; i++) {
+            TokenVerificationResponse cached = cache.get(TokenKey.of("token-" + i));
+            if (i % 50 == 7) {
+                assertNull(cached);
+            } else {
+                assertEquals("user" + i % 50, cached.getUsername(), "entries moved by removals stay reachable");
+            }
+        }
+
+        cache.put(TokenKey.of("token-1"), user("someone-else"));
+        assertEquals("someone-else", cache.get(TokenKey.of("token-1")).getUsername());
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getUserCount());
+    }
+
+    @Test
+    void testUnreferencedEntryIsEvictedFirst() {
+        // Two segments of two entries each; use keys that fall into the same segment
+        CompactVerificationCache cache = new CompactVerificationCache(3, Duration.ofMinutes(1), clock);
+        TokenKey[] keys = keysInOneSegment(3);
+        cache.put(keys[0], user("alice"));
+        cache.put(keys[1], user("bob"));
+        assertNotNull(cache.get(keys[0]));
+
+        cache.put(keys[2], user("carol"));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(keys[0]));
+        assertNull(cache.get(keys[1]));
+        assertNotNull(cache.get(keys[2]));
+    }
+
+    @Test
+    void testFootprintForTenMillionSessions() {
+        assertEquals(25, CompactVerificationCache.BYTES_PER_SLOT);
+        long bytes = CompactVerificationCache.footprintBytes(10_000_000);
+        assertTrue(bytes < 1L << 30, "10M sessions fit in under 1 GB, was " + bytes);
+        assertTrue(bytes / 10_000_000 <= 2 * CompactVerificationCache.BYTES_PER_SLOT * 4 / 3 + 1);
+    }
+
+    private static TokenKey[] keysInOneSegment(int count) {
+        TokenKey[] keys = new TokenKey[count];
+        int found = 0;
+        for (int i = 0; found < count; i++) {
+            TokenKey key = TokenKey.of("token-" + i);
+            if ((key.high() >>> 32 & 1) == 0) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+
+    private static TokenVerificationResponse user(String username) {
+        return new TokenVerificationResponse(username, username + "@example.com", UserStatus.ACTIVE);
+    }
+}
@@ -0,0 +1,85 @@
+package com.leveledcv.tokenAuthenticationLib.cache;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import com.leveledcv.tokenAuthenticationLib.support.MutableClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryVerificationCacheTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void testEntryExpiresAfterTtl() {
+        InMemoryVerificationCache cache = new InMemoryVerificationCache(100, Duration.ofSeconds(30), clock);
+        TokenKey key = TokenKey.of("token");
+        cache.put(key, user("alice"));
+
+        clock.advance(Duration.ofSeconds(29));
+        assertEquals("alice", cache.get(key).getUsername());
+
+        clock.advance(Duration.ofSeconds(1));
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        InMemoryVerificationCache cache = new InMemoryVerificationCache(1, Duration.ofMinutes(1), clock);
+        TokenKey first = TokenKey.of("first");
+        TokenKey second = TokenKey.of("second");
+
+        cache.put(first, user("alice"));
+        cache.put(second, user("bob"));
+
+        assertNull(cache.get(first));
+        assertEquals("bob", cache.get(second).getUsername());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testJitterOnlyShortensLifetime() {
+        InMemoryVerificationCache cache = new InMemoryVerificationCache(1000, Duration.ofSeconds(100), 0.2, 1, clock);
+        for (int i = 0; i < 100; i++) {
+            cache.put(TokenKey.of("token-" + i), user("user" + i));
+        }
+
+        clock.advance(Duration.ofSeconds(79));
+        for (int i = 0; i < 100; i++) {
+            assertNotNull(cache.get(TokenKey.of("token-" + i)));
+        }
+
+        clock.advance(Duration.ofSeconds(21));
+        for (int i = 0; i < 100; i++) {
+            assertNull(cache.get(TokenKey.of("token-" + i)));
+        }
+    }
+
+    @Test
+    void testNeedsRefreshAfterThreshold() {
+        InMemoryVerificationCache cache = new InMemoryVerificationCache(100, Duration.ofSeconds(30), 0, 0.8, clock);
+        TokenKey key = TokenKey.of("token");
+        cache.put(key, user("alice"));
+
+        clock.advance(Duration.ofSeconds(23));
+        assertFalse(cache.needsRefresh(key));
+
+        clock.advance(Duration.ofSeconds(1));
+        assertTrue(cache.needsRefresh(key));
+        assertFalse(cache.needsRefresh(TokenKey.of("other")));
+    }
+
+    @Test
+    void testKeyIsStableHashOfToken() {
+        assertEquals(TokenKey.of("token"), TokenKey.of("token"));
+        assertNotEquals(TokenKey.of("token"), TokenKey.of("other"));
+        assertEquals(TokenKey.of("token"), TokenKey.fromHex(TokenKey.of("token").toHex()));
+    }
+
+    private static TokenVerificationResponse user(String username) {
+        return new TokenVerificationResponse(username, username + "@example.com", UserStatus.ACTIVE);
+    }
+}
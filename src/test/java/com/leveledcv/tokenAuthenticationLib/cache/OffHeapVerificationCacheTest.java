@@ -0,0 +1,92 @@
+package com.leveledcv.tokenAuthenticationLib.cache;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import com.leveledcv.tokenAuthenticationLib.support.MutableClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapVerificationCacheTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void testEntryExpiresAfterTtl() {
+        OffHeapVerificationCache cache = new OffHeapVerificationCache(64 * 1024, Duration.ofSeconds(30), clock);
+        TokenKey key = TokenKey.of("token");
+        TokenVerificationResponse response = new TokenVerificationResponse("ålice", null, UserStatus.SUSPENDED);
+        cache.put(key, response);
+
+        clock.advance(Duration.ofSeconds(29));
+        assertEquals(response, cache.get(key));
+
+        clock.advance(Duration.ofSeconds(1));
+        assertNull(cache.get(key));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testEntriesSurviveRemovalsAndArenaCompaction() {
+        OffHeapVerificationCache cache = new OffHeapVerificationCache(64 * 1024, Duration.ofMinutes(1), clock);
+        // Well below capacity, so no segment evicts however the keys are spread
+        int entries = cache.getMaxEntries() / 4;
+        for (int i = 0; i < entries; i++) {
+            cache.put(TokenKey.of("token-" + i), user("user" + i % 10));
+        }
+        assertEquals(entries, cache.size());
+
+        int removed = cache.invalidateUser("user3");
+        assertEquals(entries - removed, cache.size());
+
+        // Rewriting every entry fills the arena with dead strings, which compaction reclaims without evicting
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < entries; i++) {
+                if (i % 10 != 3) {
+                    cache.put(TokenKey.of("token-" + i), user("user" + i % 10));
+                }
+            }
+        }
+        assertEquals(entries - removed, cache.size());
+        for (int i = 0; i < entries; i++) {
+            TokenVerificationResponse cached = cache.get(TokenKey.of("token-" + i));
+            if (i % 10 == 3) {
+                assertNull(cached);
+            } else {
+                assertEquals(user("user" + i % 10), cached);
+            }
+        }
+    }
+
+    @Test
+    void testCapacityBoundsEntries() {
+        OffHeapVerificationCache cache = new OffHeapVerificationCache(1024 * 1024, Duration.ofMinutes(1), clock);
+        assertEquals(1024 * 1024, cache.getCapacityBytes());
+
+        for (int i = 0; i < 100_000; i++) {
+            cache.put(TokenKey.of("token-" + i), user("user" + i));
+        }
+
+        assertTrue(cache.size() <= cache.getMaxEntries());
+        assertTrue(cache.size() > cache.getMaxEntries() / 2, "entries are evicted one at a time");
+        assertNotNull(cache.get(TokenKey.of("token-99999")), "the newest entry is kept");
+    }
+
+    @Test
+    void testRecentlyReadEntryIsSparedByEviction() {
+        OffHeapVerificationCache cache = new OffHeapVerificationCache(4096, Duration.ofMinutes(1), clock);
+        TokenKey used = TokenKey.of("used");
+        cache.put(used, user("alice"));
+        for (int i = 0; i < 1000; i++) {
+            assertNotNull(cache.get(used));
+            cache.put(TokenKey.of("token-" + i), user("user" + i));
+        }
+        assertNotNull(cache.get(used));
+    }
+
+    private static TokenVerificationResponse user(String username) {
+        return new TokenVerificationResponse(username, username + "@example.com", UserStatus.ACTIVE);
+    }
+}
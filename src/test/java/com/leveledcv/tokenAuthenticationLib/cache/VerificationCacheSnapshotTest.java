@@ -0,0 +1,78 @@
+package com.leveledcv.tokenAuthenticationLib.cache;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import com.leveledcv.tokenAuthenticationLib.support.MutableClock;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerificationCacheSnapshotTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRoundTripSkipsExpiredEntries() {
+        Path file = dir.resolve("cache.snapshot");
+        InMemoryVerificationCache cache = new InMemoryVerificationCache(100, Duration.ofSeconds(30), clock);
+        cache.put(TokenKey.of("alice"), new TokenVerificationResponse("alice", "alice@example.com", UserStatus.ACTIVE));
+        clock.advance(Duration.ofSeconds(20));
+        cache.put(TokenKey.of("bob"), new TokenVerificationResponse("bob", null, null));
+        assertEquals(2, new VerificationCacheSnapshot(cache, file, Duration.ofMinutes(10), clock).save());
+
+        clock.advance(Duration.ofSeconds(15));
+        InMemoryVerificationCache restarted = new InMemoryVerificationCache(100, Duration.ofSeconds(30), clock);
+        assertEquals(1, new VerificationCacheSnapshot(restarted, file, Duration.ofMinutes(10), clock).load());
+
+        assertNull(restarted.get(TokenKey.of("alice")));
+        assertEquals(new TokenVerificationResponse("bob", null, null), restarted.get(TokenKey.of("bob")));
+        clock.advance(Duration.ofSeconds(15));
+        assertNull(restarted.get(TokenKey.of("bob")), "restored entries keep their original expiry");
+    }
+
+    @Test
+    void testRestoreKeepsNewerEntriesAndIgnoresStaleSnapshots() throws Exception {
+        Path file = dir.resolve("cache.snapshot");
+        InMemoryVerificationCache cache = new InMemoryVerificationCache(100, Duration.ofMinutes(1), clock);
+        cache.put(TokenKey.of("alice"), new TokenVerificationResponse("alice", null, UserStatus.ACTIVE));
+        new VerificationCacheSnapshot(cache, file, Duration.ofSeconds(30), clock).save();
+
+        InMemoryVerificationCache restarted = new InMemoryVerificationCache(100, Duration.ofMinutes(1), clock);
+        restarted.put(TokenKey.of("alice"), new TokenVerificationResponse("alice", null, UserStatus.LOCKED));
+        assertEquals(0, new VerificationCacheSnapshot(restarted, file, Duration.ofSeconds(30), clock).load());
+        assertEquals(UserStatus.LOCKED, restarted.get(TokenKey.of("alice")).getStatus());
+
+        clock.advance(Duration.ofSeconds(31));
+        InMemoryVerificationCache late = new InMemoryVerificationCache(100, Duration.ofMinutes(1), clock);
+        assertEquals(0, new VerificationCacheSnapshot(late, file, Duration.ofSeconds(30), clock).load());
+
+        Files.write(file, new byte[]{1, 2, 3});
+        assertEquals(0, new VerificationCacheSnapshot(late, file, Duration.ofSeconds(30), clock).load());
+        assertEquals(0, new VerificationCacheSnapshot(late, dir.resolve("missing"), Duration.ofSeconds(30), clock).load());
+    }
+
+    @Test
+    void testStartReportsWhenRestoreHasFinished() throws Exception {
+        Path file = dir.resolve("cache.snapshot");
+        InMemoryVerificationCache cache = new InMemoryVerificationCache(100, Duration.ofMinutes(1), clock);
+        cache.put(TokenKey.of("alice"), new TokenVerificationResponse("alice", null, UserStatus.ACTIVE));
+        new VerificationCacheSnapshot(cache, file, Duration.ofMinutes(10), clock).save();
+
+        InMemoryVerificationCache restarted = new InMemoryVerificationCache(100, Duration.ofMinutes(1), clock);
+        try (VerificationCacheSnapshot snapshot = new VerificationCacheSnapshot(restarted, file, Duration.ofMinutes(10), clock)) {
+            snapshot.start(Duration.ofMinutes(1));
+
+            assertEquals(1, snapshot.restored().get(5, TimeUnit.SECONDS));
+            assertNotNull(restarted.get(TokenKey.of("alice")));
+        }
+    }
+}
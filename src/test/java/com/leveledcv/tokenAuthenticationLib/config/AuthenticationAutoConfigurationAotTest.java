@@ -0,0 +1,81 @@
+package com.leveledcv.tokenAuthenticationLib.config;
+
+import com.leveledcv.tokenAuthenticationLib.aspect.AuthenticationAspect;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.service.TokenVerificationService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.aot.test.generate.TestGenerationContext;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+import org.springframework.context.aot.ApplicationContextAotGenerator;
+import org.springframework.core.test.tools.CompileWithForkedClassLoader;
+import org.springframework.core.test.tools.TestCompiler;
+import org.springframework.javapoet.ClassName;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Processes the auto-configuration ahead of time, as a native image build does, and starts a context
+ * from the generated code. The forked class loader lets generated code reach package-private configuration
+ * classes, as it can when compiled with the application.
+ */
+@Slf4j
+@CompileWithForkedClassLoader
+class AuthenticationAutoConfigurationAotTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testContextStartsFromAotGeneratedCode() {
+        GenericWebApplicationContext buildTimeContext = webContext();
+        AnnotationConfigUtils.registerAnnotationConfigProcessors(buildTimeContext);
+        buildTimeContext.registerBean(AuthenticationAutoConfiguration.class);
+        TestGenerationContext generationContext = new TestGenerationContext();
+        ClassName initializerName = new ApplicationContextAotGenerator()
+                .processAheadOfTime(buildTimeContext, generationContext);
+        generationContext.writeGeneratedContent();
+
+        TestCompiler.forSystem().with(generationContext).compile(compiled -> {
+            long start = System.nanoTime();
+            GenericWebApplicationContext context = webContext();
+            compiled.getInstance(ApplicationContextInitializer.class, initializerName.toString()).initialize(context);
+            context.refresh();
+            try {
+                log.info("AOT context started in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                assertNotNull(context.getBean(TokenVerificationService.class));
+                assertNotNull(context.getBean(AuthenticationAspect.class));
+                assertEquals(0, context.getBeanNamesForType(ScannedComponent.class).length,
+                        "the library does not scan its packages");
+            } finally {
+                context.close();
+            }
+        });
+
+        RuntimeHints hints = generationContext.getRuntimeHints();
+        assertTrue(RuntimeHintsPredicates.reflection().onType(TokenVerificationResponse.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(AuthenticationAspect.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_METHODS).test(hints));
+    }
+
+    private static GenericWebApplicationContext webContext() {
+        GenericWebApplicationContext context = new GenericWebApplicationContext(new MockServletContext());
+        context.setAllowBeanDefinitionOverriding(false);
+        return context;
+    }
+
+    /**
+     * Would be registered if the library still scanned its own packages
+     */
+    @Component
+    static class ScannedComponent {
+    }
+}
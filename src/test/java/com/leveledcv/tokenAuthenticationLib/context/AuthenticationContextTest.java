@@ -0,0 +1,88 @@
+package com.leveledcv.tokenAuthenticationLib.context;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import com.leveledcv.tokenAuthenticationLib.util.AuthUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class AuthenticationContextTest {
+
+    private final TokenVerificationResponse alice = new TokenVerificationResponse("alice", "alice@example.com", UserStatus.ACTIVE);
+    private final TokenVerificationResponse bob = new TokenVerificationResponse("bob", "bob@example.com", UserStatus.ACTIVE);
+
+    @AfterEach
+    void tearDown() {
+        AuthenticationContext.setCarrier(null);
+        AuthenticationContext.clear();
+    }
+
+    @Test
+    void testCallWithUserRestoresOuterUser() {
+        AuthenticationContext.callWithUser(alice, () -> {
+            AuthenticationContext.callWithUser(bob, () -> {
+                assertEquals("bob", AuthUtil.getUsername());
+                return null;
+            });
+            assertEquals("alice", AuthUtil.getUsername());
+            return null;
+        });
+        assertNull(AuthUtil.getCurrentUser());
+    }
+
+    @Test
+    void testTaskDecoratorPropagatesUserToExecutorThread() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            String username = AuthenticationContext.callWithUser(alice, () -> CompletableFuture
+                    .supplyAsync(AuthUtil::getUsername, AuthenticationContextExecutor.wrap(executor))
+                    .get(5, TimeUnit.SECONDS));
+
+            assertEquals("alice", username);
+            assertNull(executor.submit(AuthUtil::getUsername).get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testScopedValueCarrierBindsUser() {
+        assumeTrue(ScopedValueContextCarrier.isSupported(), "ScopedValue requires JDK 21+");
+        AuthenticationContext.setCarrier(new ScopedValueContextCarrier());
+
+        String username = AuthenticationContext.callWithUser(alice, AuthUtil::getUsername);
+
+        assertEquals("alice", username);
+        assertNull(AuthUtil.getCurrentUser());
+    }
+
+    @Test
+    void testClosingInstallerRestoresPreviousCarrier() {
+        AuthenticationContextCarrier original = AuthenticationContext.getCarrier();
+        ThreadLocalContextCarrier installed = new ThreadLocalContextCarrier();
+
+        AuthenticationContextCarrierInstaller installer = new AuthenticationContextCarrierInstaller(installed);
+        assertSame(installed, AuthenticationContext.getCarrier());
+
+        installer.close();
+        assertSame(original, AuthenticationContext.getCarrier());
+    }
+
+    @Test
+    void testClosingInstallerKeepsCarrierInstalledByAnotherContext() {
+        AuthenticationContextCarrierInstaller first = new AuthenticationContextCarrierInstaller(new ThreadLocalContextCarrier());
+        ThreadLocalContextCarrier second = new ThreadLocalContextCarrier();
+        AuthenticationContext.setCarrier(second);
+
+        first.close();
+        assertSame(second, AuthenticationContext.getCarrier());
+    }
+}
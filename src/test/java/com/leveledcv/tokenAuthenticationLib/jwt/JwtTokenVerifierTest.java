@@ -0,0 +1,323 @@
+package com.leveledcv.tokenAuthenticationLib.jwt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.leveledcv.tokenAuthenticationLib.config.AuthProperties;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import com.leveledcv.tokenAuthenticationLib.reactive.ReactiveTokenVerificationService;
+import com.leveledcv.tokenAuthenticationLib.service.Deadline;
+import com.leveledcv.tokenAuthenticationLib.service.VerificationUnavailableException;
+import com.leveledcv.tokenAuthenticationLib.verifier.TokenVerifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class JwtTokenVerifierTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    private KeyPair rsa;
+    private KeyPair ec;
+    private KeyPair ed;
+    private Path jwksFile;
+    private TokenVerifier remote;
+    private JwtTokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        rsa = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        KeyPairGenerator ecGenerator = KeyPairGenerator.getInstance("EC");
+        ecGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        ec = ecGenerator.generateKeyPair();
+        ed = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+
+        jwksFile = tempDir.resolve("jwks.json");
+        writeJwks(rsaJwk("rsa-1", rsa), ecJwk("ec-1", ec), edJwk("ed-1", ed));
+
+        remote = mock(TokenVerifier.class);
+        JwksKeySource keySource = new JwksKeySource(() -> Files.readString(jwksFile),
+                Duration.ofMinutes(5), Duration.ZERO);
+        verifier = new JwtTokenVerifier(keySource, remote, "Bearer ", null, Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        verifier.close();
+    }
+
+    @Test
+    void testVerifiesRs256Es256AndEdDsaLocally() throws Exception {
+        TokenVerificationResponse rsUser = verifier.verify("Bearer " + sign("RS256", "rsa-1", rsa.getPrivate(), claims("alice")));
+        TokenVerificationResponse esUser = verifier.verify("Bearer " + sign("ES256", "ec-1", ec.getPrivate(), claims("bob")));
+        TokenVerificationResponse edUser = verifier.verify("Bearer " + sign("EdDSA", "ed-1", ed.getPrivate(), claims("carol")));
+
+        assertEquals("alice", rsUser.getUsername());
+        assertEquals("alice@example.com", rsUser.getEmail());
+        assertEquals(UserStatus.ACTIVE, rsUser.getStatus());
+        assertEquals("bob", esUser.getUsername());
+        assertEquals("carol", edUser.getUsername());
+        verifyNoInteractions(remote);
+    }
+
+    @Test
+    void testRejectsExpiredNotYetValidAndTamperedTokens() throws Exception {
+        Map<String, Object> expired = claims("alice");
+        expired.put("exp", Instant.now().minusSeconds(120).getEpochSecond());
+        Map<String, Object> notYetValid = claims("alice");
+        notYetValid.put("nbf", Instant.now().plusSeconds(120).getEpochSecond());
+        String valid = sign("RS256", "rsa-1", rsa.getPrivate(), claims("alice"));
+        String tampered = valid.substring(0, valid.lastIndexOf('.'))
+                + "." + sign("RS256", "rsa-1", rsa.getPrivate(), claims("mallory")).split("\\.")[2];
+
+        assertNull(verifier.verify("Bearer " + sign("RS256", "rsa-1", rsa.getPrivate(), expired)));
+        assertNull(verifier.verify("Bearer " + sign("RS256", "rsa-1", rsa.getPrivate(), notYetValid)));
+        assertNull(verifier.verify("Bearer " + tampered));
+        assertNull(verifier.verify("Bearer " + sign("ES256", "rsa-1", ec.getPrivate(), claims("alice"))));
+        verifyNoInteractions(remote);
+    }
+
+    @Test
+    void testRejectsEcdsaAlgorithmForAnotherCurve() throws Exception {
+        // SHA384withECDSA over a P-256 key is a valid signature, but ES384 requires P-384
+        assertNull(verifier.verify("Bearer " + sign("ES384", "ec-1", ec.getPrivate(), claims("bob"))));
+        verifyNoInteractions(remote);
+    }
+
+    @Test
+    void testOpaqueTokensFallBackToRemoteVerifier() {
+        TokenVerificationResponse remoteUser = new TokenVerificationResponse("dave", "dave@example.com", UserStatus.ACTIVE);
+        when(remote.verify("Bearer opaque-token")).thenReturn(remoteUser);
+
+        assertSame(remoteUser, verifier.verify("Bearer opaque-token"));
+        verify(remote).verify("Bearer opaque-token");
+    }
+
+    @Test
+    void testRotatedKeyIsPickedUpOnUnknownKid() throws Exception {
+        KeyPair rotated = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        String token = "Bearer " + sign("RS256", "rsa-2", rotated.getPrivate(), claims("erin"));
+
+        writeJwks(rsaJwk("rsa-1", rsa), rsaJwk("rsa-2", rotated));
+
+        assertEquals("erin", verifier.verify(token).getUsername());
+        verify(remote, never()).verify(anyString());
+    }
+
+    @Test
+    void testUnknownKidWaitsBoundedTimeForBackgroundReload() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> loaderThread = new AtomicReference<>();
+        AtomicInteger loads = new AtomicInteger();
+        try (JwksKeySource keySource = new JwksKeySource(() -> {
+            if (loads.getAndIncrement() > 0) {
+                loaderThread.set(Thread.currentThread().getName());
+                release.await();
+            }
+            return Files.readString(jwksFile);
+        }, Duration.ofMinutes(5), Duration.ZERO, Duration.ofMillis(50))) {
+            long start = System.nanoTime();
+            assertNull(keySource.getKey("rsa-2"));
+            long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            release.countDown();
+
+            assertTrue(elapsedMillis < 1000, "the lookup stops waiting for a slow reload");
+            assertTrue(loaderThread.get().startsWith("token-auth-jwks-"), "the reload runs in the background");
+        }
+    }
+
+    @Test
+    void testSlowFirstLoadDoesNotHoldUpConstruction() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        long start = System.nanoTime();
+        try (JwksKeySource keySource = new JwksKeySource(() -> {
+            release.await();
+            return Files.readString(jwksFile);
+        }, Duration.ofMinutes(5), Duration.ZERO, Duration.ofMillis(50))) {
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1000,
+                    "construction stops waiting for a slow first load");
+            assertFalse(keySource.isLoaded());
+
+            release.countDown();
+            assertNotNull(keySource.getKey("rsa-1"));
+        }
+    }
+
+    @Test
+    void testReactiveVerificationAnswers503WhenNoKeysAreLoaded() throws Exception {
+        AuthProperties properties = new AuthProperties();
+        JwksKeySource unavailable = new JwksKeySource(() -> {
+            throw new IOException("JWKS endpoint down");
+        }, Duration.ofMinutes(5), Duration.ZERO, Duration.ofMillis(50));
+        try (JwtTokenVerifier jwtVerifier = new JwtTokenVerifier(unavailable, null, "Bearer ", null, Duration.ofSeconds(30))) {
+            ReactiveTokenVerificationService service = ReactiveTokenVerificationService.builder(properties, null)
+                    .jwtVerifier(jwtVerifier)
+                    .build();
+            AtomicReference<String> verifierThread = new AtomicReference<>();
+
+            Mono<TokenVerificationResponse> verification = service
+                    .verifyToken("Bearer " + sign("RS256", "rsa-1", rsa.getPrivate(), claims("alice")))
+                    .doOnError(e -> verifierThread.set(Thread.currentThread().getName()));
+
+            assertThrows(VerificationUnavailableException.class, verification::block);
+            assertTrue(verifierThread.get().startsWith("boundedElastic-"), "the JWT is checked off the caller's thread");
+        }
+    }
+
+    @Test
+    void testReactiveVerificationGivesUpOnJwtAtDeadline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        JwksKeySource slowReload = new JwksKeySource(() -> {
+            if (loads.getAndIncrement() > 0) {
+                release.await();
+            }
+            return Files.readString(jwksFile);
+        }, Duration.ofMinutes(5), Duration.ZERO, Duration.ofSeconds(5));
+        try (JwtTokenVerifier jwtVerifier = new JwtTokenVerifier(slowReload, null, "Bearer ", null, Duration.ofSeconds(30))) {
+            ReactiveTokenVerificationService service = ReactiveTokenVerificationService
+                    .builder(new AuthProperties(), null)
+                    .jwtVerifier(jwtVerifier)
+                    .build();
+            KeyPair rotated = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+            String token = "Bearer " + sign("RS256", "rsa-2", rotated.getPrivate(), claims("erin"));
+
+            long start = System.nanoTime();
+            Mono<TokenVerificationResponse> verification = service.verifyToken(token, Deadline.after(Duration.ofMillis(50)));
+
+            assertThrows(VerificationUnavailableException.class, verification::block);
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1000,
+                    "the request does not wait out the JWKS reload");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testVerifyAllSplitsJwtsFromOpaqueTokens() throws Exception {
+        String jwt = "Bearer " + sign("EdDSA", "ed-1", ed.getPrivate(), claims("alice"));
+        TokenVerificationResponse remoteUser = new TokenVerificationResponse("dave", "dave@example.com", UserStatus.ACTIVE);
+        when(remote.verifyAll(List.of("Bearer opaque-token"))).thenReturn(Map.of("Bearer opaque-token", remoteUser));
+
+        Map<String, TokenVerificationResponse> results = verifier.verifyAll(List.of(jwt, "Bearer opaque-token"));
+
+        assertEquals(2, results.size());
+        assertEquals("alice", results.get(jwt).getUsername());
+        assertSame(remoteUser, results.get("Bearer opaque-token"));
+    }
+
+    private void writeJwks(Map<?, ?>... jwks) throws Exception {
+        Files.writeString(jwksFile, objectMapper.writeValueAsString(Map.of("keys", List.of(jwks))));
+    }
+
+    private static Map<String, Object> claims(String username) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("username", username);
+        claims.put("email", username + "@example.com");
+        claims.put("status", "ACTIVE");
+        claims.put("exp", Instant.now().plusSeconds(300).getEpochSecond());
+        return claims;
+    }
+
+    private static String sign(String alg, String kid, PrivateKey key, Map<String, Object> claims) throws Exception {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString(objectMapper.writeValueAsBytes(Map.of("alg", alg, "kid", kid)));
+        String payload = encoder.encodeToString(objectMapper.writeValueAsBytes(claims));
+        String signingInput = header + "." + payload;
+
+        Signature signature = Signature.getInstance(switch (alg) {
+            case "RS256" -> "SHA256withRSA";
+            case "ES256" -> "SHA256withECDSA";
+            case "ES384" -> "SHA384withECDSA";
+            default -> "Ed25519";
+        });
+        signature.initSign(key);
+        signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        byte[] signed = signature.sign();
+        if (alg.startsWith("ES")) {
+            signed = derToJose(signed);
+        }
+        return signingInput + "." + encoder.encodeToString(signed);
+    }
+
+    private static byte[] derToJose(byte[] der) {
+        int rLength = der[3];
+        byte[] r = Arrays.copyOfRange(der, 4, 4 + rLength);
+        int sLength = der[5 + rLength];
+        byte[] s = Arrays.copyOfRange(der, 6 + rLength, 6 + rLength + sLength);
+        byte[] jose = new byte[64];
+        copyUnsigned(r, jose, 0);
+        copyUnsigned(s, jose, 32);
+        return jose;
+    }
+
+    private static void copyUnsigned(byte[] value, byte[] target, int offset) {
+        byte[] magnitude = new BigInteger(value).toByteArray();
+        int start = magnitude.length > 32 ? magnitude.length - 32 : 0;
+        int length = magnitude.length - start;
+        System.arraycopy(magnitude, start, target, offset + 32 - length, length);
+    }
+
+    private static Map<String, Object> rsaJwk(String kid, KeyPair keyPair) {
+        RSAPublicKey key = (RSAPublicKey) keyPair.getPublic();
+        return Map.of("kty", "RSA", "kid", kid, "use", "sig",
+                "n", base64Unsigned(key.getModulus(), 0), "e", base64Unsigned(key.getPublicExponent(), 0));
+    }
+
+    private static Map<String, Object> ecJwk(String kid, KeyPair keyPair) {
+        ECPublicKey key = (ECPublicKey) keyPair.getPublic();
+        return Map.of("kty", "EC", "kid", kid, "crv", "P-256",
+                "x", base64Unsigned(key.getW().getAffineX(), 32), "y", base64Unsigned(key.getW().getAffineY(), 32));
+    }
+
+    private static Map<String, Object> edJwk(String kid, KeyPair keyPair) {
+        byte[] encoded = keyPair.getPublic().getEncoded();
+        byte[] x = Arrays.copyOfRange(encoded, encoded.length - 32, encoded.length);
+        return Map.of("kty", "OKP", "kid", kid, "crv", "Ed25519",
+                "x", Base64.getUrlEncoder().withoutPadding().encodeToString(x));
+    }
+
+    private static String base64Unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes[0] == 0 && bytes.length > 1) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (bytes.length < length) {
+            byte[] padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            bytes = padded;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
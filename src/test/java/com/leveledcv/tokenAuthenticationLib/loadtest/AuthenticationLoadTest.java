@@ -0,0 +1,139 @@
+package com.leveledcv.tokenAuthenticationLib.loadtest;
+
+import com.leveledcv.tokenAuthenticationLib.support.LatencyDistribution;
+import com.leveledcv.tokenAuthenticationLib.support.StubTokenServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives concurrent load through a sample @RequireAuth application backed by {@link StubTokenServer},
+ * comparing library configurations under healthy and degraded verification services.
+ * <p>
+ * Excluded from the default build; run with {@code mvn -P load-test test}. Load is tuned with the
+ * {@code load.threads}, {@code load.warmup}, {@code load.duration} and {@code load.tokens} system properties.
+ */
+@Tag("load")
+class AuthenticationLoadTest {
+
+    private static final List<LoadReport> reports = new ArrayList<>();
+
+    private final LoadGenerator load = LoadGenerator.fromSystemProperties();
+
+    private StubTokenServer stub;
+    private ConfigurableApplicationContext app;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new StubTokenServer().acceptAnyToken().latency(LatencyDistribution.logNormal(5, 50));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (app != null) {
+            app.close();
+        }
+        stub.close();
+    }
+
+    @AfterAll
+    static void printReports() {
+        System.out.println();
+        System.out.println(LoadReport.HEADER);
+        reports.forEach(System.out::println);
+    }
+
+    @Test
+    void testRemoteVerificationOnly() throws Exception {
+        LoadReport report = run("remote-only");
+
+        assertTrue(report.count(200) > 0);
+        assertTrue(report.outboundCalls() > report.requests() * 0.9, "requests are verified remotely");
+    }
+
+    @Test
+    void testCachedVerification() throws Exception {
+        stub.sessionNotFoundRatio(0.05);
+
+        // Every token is cached before measuring, so only expiries could cost verification calls
+        LoadReport report = run("cached", true,
+                "auth.cache.enabled=true",
+                "auth.cache.ttl=5m",
+                "auth.cache.negative.enabled=true",
+                "auth.cache.negative.ttl=5m");
+
+        assertTrue(report.count(403) > 0);
+        assertTrue(report.outboundCalls() < report.requests() / 10, "most requests are served from the caches");
+    }
+
+    @Test
+    void testFlakyService() throws Exception {
+        stub.errorRate(0.2).sessionNotFoundRatio(0.1);
+
+        LoadReport report = run("flaky");
+
+        assertTrue(report.count(200) > 0);
+        assertTrue(report.count(403) > 0);
+    }
+
+    @Test
+    void testSlowServiceWithCircuitBreaker() throws Exception {
+        stub.latency(LatencyDistribution.uniform(400, 600));
+
+        LoadReport report = run("slow+breaker",
+                "auth.http.read-timeout=200ms",
+                "auth.circuit-breaker.enabled=true",
+                "auth.circuit-breaker.minimum-number-of-calls=10",
+                "auth.circuit-breaker.wait-duration-in-open-state=1s",
+                "auth.last-known-good.enabled=true");
+
+        assertTrue(report.count(503) > 0, "requests are shed once the breaker opens");
+        assertTrue(report.outboundCalls() < report.requests() / 2);
+    }
+
+    @Test
+    void testDeadService() throws Exception {
+        stub.close();
+
+        LoadReport report = run("dead+breaker",
+                "auth.circuit-breaker.enabled=true",
+                "auth.circuit-breaker.minimum-number-of-calls=10");
+
+        assertEquals(0, report.count(200));
+        assertEquals(report.requests(), report.count(503));
+        assertTrue(report.p99Millis() < 1000, "failures are reported without waiting on timeouts");
+    }
+
+    private LoadReport run(String scenario, String... properties) throws Exception {
+        return run(scenario, false, properties);
+    }
+
+    private LoadReport run(String scenario, boolean primeTokens, String... properties) throws Exception {
+        List<String> args = new ArrayList<>(List.of(
+                "server.port=0",
+                "spring.main.banner-mode=off",
+                "logging.level.com.leveledcv.tokenAuthenticationLib=off",
+                "auth.token-verify-url=" + stub.verifyUrl(),
+                "auth.http.max-connections=200",
+                "auth.http.max-connections-per-route=200"));
+        args.addAll(List.of(properties));
+        // Passed as command line arguments so they take precedence over the library's application.properties
+        app = new SpringApplicationBuilder(LoadTestApplication.class)
+                .run(args.stream().map(arg -> "--" + arg).toArray(String[]::new));
+        int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+        LoadReport report = load.run(scenario, "http://127.0.0.1:" + port + "/load/profile", primeTokens,
+                stub::getVerifyCalls);
+        reports.add(report);
+        return report;
+    }
+}
@@ -0,0 +1,168 @@
+package com.leveledcv.tokenAuthenticationLib.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntSupplier;
+
+/**
+ * Closed-loop load driver: each thread sends a request as soon as the previous one completes,
+ * with a token drawn uniformly from {@code tokenCardinality} distinct tokens.
+ */
+final class LoadGenerator {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+    private final int threads;
+    private final Duration warmup;
+    private final Duration duration;
+    private final int tokenCardinality;
+
+    LoadGenerator(int threads, Duration warmup, Duration duration, int tokenCardinality) {
+        this.threads = threads;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.tokenCardinality = tokenCardinality;
+    }
+
+    /**
+     * Settings from system properties: load.threads, load.warmup, load.duration (ISO-8601 or seconds) and load.tokens
+     */
+    static LoadGenerator fromSystemProperties() {
+        return new LoadGenerator(Integer.getInteger("load.threads", 32),
+                duration(System.getProperty("load.warmup", "2")), duration(System.getProperty("load.duration", "5")),
+                Integer.getInteger("load.tokens", 1000));
+    }
+
+    private static Duration duration(String value) {
+        return value.startsWith("P") ? Duration.parse(value) : Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    /**
+     * Warm up, then drive load for the configured duration
+     *
+     * @param primeTokens whether every token is sent once before warming up, so the measurement does not depend
+     *                    on how many distinct tokens the machine manages to reach during warmup
+     * @param outboundCalls current count of calls to the verification service
+     */
+    LoadReport run(String scenario, String url, boolean primeTokens, IntSupplier outboundCalls) throws Exception {
+        if (primeTokens) {
+            prime(url);
+        }
+        drive(url, warmup);
+        int outboundBefore = outboundCalls.getAsInt();
+        long start = System.nanoTime();
+        List<Recorder> recorders = drive(url, duration);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long outbound = outboundCalls.getAsInt() - outboundBefore;
+
+        long[] latencies = recorders.stream().flatMapToLong(r -> Arrays.stream(r.latencies, 0, r.size)).sorted().toArray();
+        Map<Integer, Long> statuses = new TreeMap<>();
+        recorders.forEach(r -> r.statuses.forEach((status, count) -> statuses.merge(status, count, Long::sum)));
+        return new LoadReport(scenario, latencies.length, latencies.length / seconds, percentile(latencies, 0.5),
+                percentile(latencies, 0.99), percentile(latencies, 0.999), statuses, outbound);
+    }
+
+    /**
+     * Send each token once, spread over the load threads
+     */
+    private void prime(String url) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int first = i;
+                futures.add(executor.submit(() -> {
+                    for (int token = first; token < tokenCardinality; token += threads) {
+                        send(url, token);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Recorder> drive(String url, Duration length) throws Exception {
+        long deadline = System.nanoTime() + length.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Recorder>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    Recorder recorder = new Recorder();
+                    while (System.nanoTime() < deadline) {
+                        recorder.record(send(url, ThreadLocalRandom.current().nextInt(tokenCardinality)));
+                    }
+                    return recorder;
+                }));
+            }
+            List<Recorder> recorders = new ArrayList<>();
+            for (Future<Recorder> future : futures) {
+                recorders.add(future.get());
+            }
+            return recorders;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long[] send(String url, int tokenIndex) {
+        String token = "Bearer user-" + tokenIndex;
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", token)
+                .timeout(Duration.ofSeconds(10))
+                .build();
+        long start = System.nanoTime();
+        int status;
+        try {
+            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = -1;
+        }
+        return new long[]{System.nanoTime() - start, status};
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    private static final class Recorder {
+
+        private final Map<Integer, Long> statuses = new TreeMap<>();
+        private long[] latencies = new long[1024];
+        private int size;
+
+        void record(long[] result) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = result[0];
+            statuses.merge((int) result[1], 1L, Long::sum);
+        }
+    }
+}
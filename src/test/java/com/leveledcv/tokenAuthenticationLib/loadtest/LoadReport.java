@@ -0,0 +1,32 @@
+package com.leveledcv.tokenAuthenticationLib.loadtest;
+
+import java.util.Map;
+
+/**
+ * Outcome of one load scenario
+ *
+ * @param scenario scenario name
+ * @param requests requests completed during the measurement
+ * @param throughput requests per second
+ * @param p50Millis median latency
+ * @param p99Millis 99th percentile latency
+ * @param p999Millis 99.9th percentile latency
+ * @param statuses response count per HTTP status, -1 for requests that failed without a response
+ * @param outboundCalls calls the library made to the verification service
+ */
+record LoadReport(String scenario, long requests, double throughput, double p50Millis, double p99Millis,
+                  double p999Millis, Map<Integer, Long> statuses, long outboundCalls) {
+
+    static final String HEADER = String.format("%-16s %10s %10s %9s %9s %9s %10s  %s",
+            "scenario", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "outbound", "statuses");
+
+    long count(int status) {
+        return statuses.getOrDefault(status, 0L);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-16s %10d %10.0f %9.2f %9.2f %9.2f %10d  %s",
+                scenario, requests, throughput, p50Millis, p99Millis, p999Millis, outboundCalls, statuses);
+    }
+}
@@ -0,0 +1,26 @@
+package com.leveledcv.tokenAuthenticationLib.loadtest;
+
+import com.leveledcv.tokenAuthenticationLib.annotations.RequireAuth;
+import com.leveledcv.tokenAuthenticationLib.util.AuthUtil;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Sample application under load: a @RequireAuth controller with the library auto-configured.
+ */
+@EnableAutoConfiguration
+@Import(LoadTestApplication.LoadTestController.class)
+class LoadTestApplication {
+
+    @RestController
+    static class LoadTestController {
+
+        @RequireAuth
+        @GetMapping("/load/profile")
+        String profile() {
+            return AuthUtil.getUsername();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.leveledcv.tokenAuthenticationLib.metrics;
+
+import com.leveledcv.tokenAuthenticationLib.config.AuthProperties;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import com.leveledcv.tokenAuthenticationLib.service.TokenVerificationService;
+import com.leveledcv.tokenAuthenticationLib.verifier.TokenVerificationException;
+import com.leveledcv.tokenAuthenticationLib.verifier.TokenVerifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MicrometerAuthenticationMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObservationRegistry observationRegistry = ObservationRegistry.create();
+    private final List<String> observations = new ArrayList<>();
+    private TokenVerificationService service;
+
+    @BeforeEach
+    void setUp() {
+        observationRegistry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onStop(Observation.Context context) {
+                observations.add(context.getName());
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+        });
+
+        TokenVerifier verifier = token -> switch (token) {
+            case "Bearer good" -> new TokenVerificationResponse("alice", "alice@example.com", UserStatus.ACTIVE);
+            case "Bearer garbled" -> throw new TokenVerificationException("Failed to parse", null,
+                    TokenVerificationException.Reason.INVALID_RESPONSE);
+            case "Bearer unreachable" -> throw new TokenVerificationException("Connection refused");
+            default -> null;
+        };
+        service = TokenVerificationService.builder(new AuthProperties(), verifier)
+                .metrics(new MicrometerAuthenticationMetrics(meterRegistry, observationRegistry))
+                .build();
+    }
+
+    @Test
+    void testVerificationLatencyIsTaggedByOutcome() {
+        service.verifyToken("Bearer good");
+        service.verifyToken("Bearer good");
+        service.verifyToken("Bearer revoked");
+        service.verifyToken("Bearer garbled");
+        service.verifyToken("Bearer unreachable");
+
+        assertEquals(2, timerCount("success"));
+        assertEquals(1, timerCount("session-not-found"));
+        assertEquals(1, timerCount("parse-failure"));
+        assertEquals(1, timerCount("transport-error"));
+        assertEquals(0, meterRegistry.get("auth.verification.inflight").gauge().value());
+        assertEquals(5, observations.stream().filter(AuthenticationMetrics.REMOTE_CALL_OBSERVATION::equals).count());
+    }
+
+    @Test
+    void testRejectionsAreCountedByReason() {
+        MicrometerAuthenticationMetrics metrics = new MicrometerAuthenticationMetrics(meterRegistry, observationRegistry);
+        metrics.rejected(AuthenticationMetrics.Rejection.MISSING_HEADER);
+        metrics.rejected(AuthenticationMetrics.Rejection.MISSING_HEADER);
+        metrics.rejected(AuthenticationMetrics.Rejection.EMPTY_TOKEN);
+
+        assertEquals(2, meterRegistry.get("auth.rejections").tag("reason", "missing-header").counter().count());
+        assertEquals(1, meterRegistry.get("auth.rejections").tag("reason", "empty-token").counter().count());
+    }
+
+    private long timerCount(String outcome) {
+        return meterRegistry.get("auth.verification").tag("outcome", outcome).timer().count();
+    }
+}
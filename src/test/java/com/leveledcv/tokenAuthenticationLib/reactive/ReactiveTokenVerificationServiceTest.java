@@ -0,0 +1,155 @@
+package com.leveledcv.tokenAuthenticationLib.reactive;
+
+import com.leveledcv.tokenAuthenticationLib.cache.InMemoryVerificationCache;
+import com.leveledcv.tokenAuthenticationLib.cache.LastKnownGoodStore;
+import com.leveledcv.tokenAuthenticationLib.config.AuthProperties;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.service.CircuitBreaker;
+import com.leveledcv.tokenAuthenticationLib.service.Deadline;
+import com.leveledcv.tokenAuthenticationLib.service.VerificationUnavailableException;
+import com.leveledcv.tokenAuthenticationLib.support.MutableClock;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveTokenVerificationServiceTest {
+
+    private static final String ACTIVE_USER = "{\"username\":\"testuser\",\"status\":\"ACTIVE\"}";
+
+    private final AuthProperties authProperties = new AuthProperties();
+    private final MutableClock clock = new MutableClock();
+    private final List<Mono<ClientResponse>> responses = new CopyOnWriteArrayList<>();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void testClientErrorRejectsTokenWithoutServingLastKnownGood() {
+        // Arrange
+        responses.addAll(List.of(respond(HttpStatus.OK), respond(HttpStatus.UNAUTHORIZED),
+                respond(HttpStatus.NOT_FOUND), respond(HttpStatus.OK)));
+        ReactiveTokenVerificationService service = ReactiveTokenVerificationService.builder(authProperties, webClient())
+                .circuitBreaker(CircuitBreaker.builder()
+                        .windowSize(10)
+                        .minimumCalls(2)
+                        .openDuration(Duration.ofMinutes(1))
+                        .halfOpenCalls(1)
+                        .build())
+                .lastKnownGood(new LastKnownGoodStore(100, Duration.ofMinutes(5)))
+                .build();
+
+        // Act
+        TokenVerificationResponse fresh = service.verifyToken("Bearer revoked-token").block();
+        TokenVerificationResponse revoked = service.verifyToken("Bearer revoked-token").block();
+        TokenVerificationResponse unknown = service.verifyToken("Bearer unknown-token").block();
+        // Rejections are answers, so the breaker stays closed
+        TokenVerificationResponse next = service.verifyToken("Bearer valid-token").block();
+
+        // Assert
+        assertEquals("testuser", fresh.getUsername());
+        assertNull(revoked);
+        assertNull(unknown);
+        assertEquals("testuser", next.getUsername());
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void testCancelledHalfOpenProbeReturnsItsPermit() {
+        // Arrange
+        CircuitBreaker breaker = CircuitBreaker.builder()
+                .windowSize(10)
+                .minimumCalls(2)
+                .halfOpenCalls(1)
+                .clock(clock)
+                .build();
+        responses.addAll(List.of(respond(HttpStatus.INTERNAL_SERVER_ERROR), respond(HttpStatus.INTERNAL_SERVER_ERROR),
+                Mono.never(), respond(HttpStatus.OK)));
+        ReactiveTokenVerificationService service = ReactiveTokenVerificationService.builder(authProperties, webClient())
+                .circuitBreaker(breaker)
+                .build();
+        assertThrows(VerificationUnavailableException.class, () -> service.verifyToken("Bearer a").block());
+        assertThrows(VerificationUnavailableException.class, () -> service.verifyToken("Bearer b").block());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        clock.advance(Duration.ofSeconds(10));
+
+        // Act: the client disconnects while the probe is in flight
+        service.verifyToken("Bearer c").subscribe().dispose();
+        TokenVerificationResponse next = service.verifyToken("Bearer d").block();
+
+        // Assert
+        assertEquals("testuser", next.getUsername());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void testVerificationPastDeadlineStillCachesItsAnswer() throws Exception {
+        // Arrange
+        responses.add(respond(HttpStatus.OK).delayElement(Duration.ofMillis(200)));
+        ReactiveTokenVerificationService service = ReactiveTokenVerificationService.builder(authProperties, webClient())
+                .verificationCache(new InMemoryVerificationCache(100, Duration.ofMinutes(1)))
+                .build();
+
+        // Act
+        Mono<TokenVerificationResponse> abandoned = service.verifyToken("Bearer slow-token",
+                Deadline.after(Duration.ofMillis(50)));
+        assertThrows(VerificationUnavailableException.class, abandoned::block);
+        Thread.sleep(500);
+        TokenVerificationResponse cached = service.verifyToken("Bearer slow-token").block();
+
+        // Assert
+        assertEquals("testuser", cached.getUsername());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testHotEntryIsRefreshedOnceAtATime() throws Exception {
+        // Arrange
+        responses.addAll(List.of(respond(HttpStatus.OK), respond(HttpStatus.OK).delayElement(Duration.ofMillis(200))));
+        ReactiveTokenVerificationService service = ReactiveTokenVerificationService.builder(authProperties, webClient())
+                .verificationCache(new InMemoryVerificationCache(100, Duration.ofSeconds(30), 0, 0.5, clock))
+                .build();
+        service.verifyToken("Bearer hot-token").block();
+        clock.advance(Duration.ofSeconds(20));
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            assertEquals("testuser", service.verifyToken("Bearer hot-token").block().getUsername());
+        }
+        Thread.sleep(500);
+
+        // Assert
+        assertEquals(2, calls.get());
+    }
+
+    /**
+     * Answers each verification with the next queued response
+     */
+    private WebClient webClient() {
+        return WebClient.builder()
+                .exchangeFunction(request -> {
+                    calls.incrementAndGet();
+                    return responses.remove(0);
+                })
+                .build();
+    }
+
+    /**
+     * @return a response with the given status, with the active user as the body of a 200
+     */
+    private static Mono<ClientResponse> respond(HttpStatus status) {
+        return Mono.just(ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(status == HttpStatus.OK ? ACTIVE_USER : "{\"error\":\"Unauthorized\"}")
+                .build());
+    }
+}
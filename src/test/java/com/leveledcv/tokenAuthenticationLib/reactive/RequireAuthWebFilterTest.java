@@ -0,0 +1,165 @@
+package com.leveledcv.tokenAuthenticationLib.reactive;
+
+import com.leveledcv.tokenAuthenticationLib.annotations.RequireAuth;
+import com.leveledcv.tokenAuthenticationLib.config.AuthProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequireAuthWebFilterTest {
+
+    private static final String DEADLINE_HEADER = "X-Deadline-Ms";
+    private static final AtomicInteger verificationCalls = new AtomicInteger();
+
+    private AnnotationConfigApplicationContext context;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        verificationCalls.set(0);
+        context = new AnnotationConfigApplicationContext(TestConfig.class);
+        client = WebTestClient.bindToApplicationContext(context).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void testProtectedEndpointReceivesUserFromReactorContext() {
+        client.get().uri("/protected")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer valid-token")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("hello testuser");
+
+        assertEquals(1, verificationCalls.get());
+    }
+
+    @Test
+    void testProtectedEndpointRejectsMissingHeader() {
+        client.get().uri("/protected")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.FORBIDDEN);
+
+        assertEquals(0, verificationCalls.get());
+    }
+
+    @Test
+    void testProtectedEndpointRejectsUnknownSession() {
+        client.get().uri("/protected")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer expired-token")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    void testSlowVerificationFailsWhenEndpointBudgetRunsOut() {
+        client.get().uri("/latency-critical")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer slow-token")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        client.get().uri("/latency-critical")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer valid-token")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void testCallerDeadlineShortensBudget() {
+        client.get().uri("/protected")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer slow-token")
+                .header(DEADLINE_HEADER, "20")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        client.get().uri("/protected")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer valid-token")
+                .header(DEADLINE_HEADER, "5000")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void testPublicEndpointSkipsVerification() {
+        client.get().uri("/public")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("public");
+
+        assertEquals(0, verificationCalls.get());
+    }
+
+    @RestController
+    static class TestController {
+
+        @RequireAuth
+        @GetMapping("/protected")
+        Mono<String> protectedEndpoint() {
+            return ReactiveAuthUtil.getUsername().map(username -> "hello " + username);
+        }
+
+        @RequireAuth(timeoutMs = 50)
+        @GetMapping("/latency-critical")
+        Mono<String> latencyCriticalEndpoint() {
+            return Mono.just("fast");
+        }
+
+        @GetMapping("/public")
+        Mono<String> publicEndpoint() {
+            return Mono.just("public");
+        }
+    }
+
+    @EnableWebFlux
+    static class TestConfig {
+
+        @Bean
+        TestController testController() {
+            return new TestController();
+        }
+
+        @Bean
+        RequireAuthWebFilter requireAuthWebFilter(RequestMappingHandlerMapping requestMappingHandlerMapping) {
+            WebClient webClient = WebClient.builder()
+                    .exchangeFunction(request -> {
+                        verificationCalls.incrementAndGet();
+                        String body = "Bearer valid-token".equals(request.headers().getFirst(HttpHeaders.AUTHORIZATION))
+                                ? "{\"username\":\"testuser\",\"email\":\"test@example.com\",\"status\":\"ACTIVE\"}"
+                                : "{\"error\":\"Session not found\"}";
+                        Mono<ClientResponse> response = Mono.just(ClientResponse.create(HttpStatus.OK)
+                                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .body(body)
+                                .build());
+                        return "Bearer slow-token".equals(request.headers().getFirst(HttpHeaders.AUTHORIZATION))
+                                ? response.delayElement(Duration.ofSeconds(5)) : response;
+                    })
+                    .build();
+            AuthProperties authProperties = new AuthProperties();
+            authProperties.getBudget().setDeadlineHeader(DEADLINE_HEADER);
+            ReactiveTokenVerificationService service =
+                    ReactiveTokenVerificationService.builder(authProperties, webClient).build();
+            return new RequireAuthWebFilter(requestMappingHandlerMapping, service, authProperties);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.leveledcv.tokenAuthenticationLib.revocation;
+
+import com.leveledcv.tokenAuthenticationLib.cache.InMemoryVerificationCache;
+import com.leveledcv.tokenAuthenticationLib.cache.LastKnownGoodStore;
+import com.leveledcv.tokenAuthenticationLib.cache.TokenKey;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import com.leveledcv.tokenAuthenticationLib.support.StubRevocationServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevocationListenerTest {
+
+    private static final TokenKey ALICE_WEB = TokenKey.of("alice-web");
+    private static final TokenKey ALICE_MOBILE = TokenKey.of("alice-mobile");
+    private static final TokenKey BOB = TokenKey.of("bob");
+
+    private final InMemoryVerificationCache cache = new InMemoryVerificationCache(100, Duration.ofHours(1));
+    private final LastKnownGoodStore lastKnownGood = new LastKnownGoodStore(100, Duration.ofHours(1));
+
+    private StubRevocationServer server;
+    private RevocationListener listener;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new StubRevocationServer();
+        listener = new RevocationListener(
+                new HttpRevocationEventSource(server.eventsUrl(), Duration.ofSeconds(1), Duration.ofSeconds(5)),
+                cache, lastKnownGood, Duration.ofMillis(10), Duration.ofMillis(100));
+        await(() -> listener.getResyncCount() == 1);
+        populate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.close();
+        server.close();
+    }
+
+    @Test
+    void testRevokesTokensAndUsers() {
+        server.heartbeat();
+        server.publish(RevocationListener.REVOKE_TOKEN, BOB.toHex());
+        await(() -> listener.getAppliedCount() == 1);
+
+        assertNull(cache.get(BOB));
+        assertNull(lastKnownGood.get(BOB));
+        assertNotNull(cache.get(ALICE_WEB));
+
+        server.publish(RevocationListener.REVOKE_USER, "alice");
+        await(() -> listener.getAppliedCount() == 2);
+
+        assertNull(cache.get(ALICE_WEB));
+        assertNull(cache.get(ALICE_MOBILE));
+        assertNull(lastKnownGood.get(ALICE_MOBILE));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testMalformedEventIsIgnored() {
+        server.publish(RevocationListener.REVOKE_TOKEN, "not-a-hash");
+        server.publish(RevocationListener.REVOKE_TOKEN, BOB.toHex());
+        await(() -> listener.getAppliedCount() == 1);
+
+        assertNull(cache.get(BOB));
+        assertEquals(1, server.getConnections());
+    }
+
+    @Test
+    void testResyncsAfterReconnect() {
+        server.publish(RevocationListener.REVOKE_TOKEN, BOB.toHex());
+        await(() -> listener.getAppliedCount() == 1);
+        assertEquals(2, cache.size());
+
+        server.disconnectAll();
+        await(() -> listener.getResyncCount() >= 2);
+
+        assertTrue(server.getConnections() >= 2);
+        assertEquals("1", server.getLastEventIdHeader());
+        assertEquals(0, cache.size());
+        // Kept for outages, minus the revoked token
+        assertNotNull(lastKnownGood.get(ALICE_WEB));
+        assertNull(lastKnownGood.get(BOB));
+    }
+
+    @Test
+    void testResyncEventEvictsLastKnownGood() {
+        server.publish(RevocationListener.RESYNC, "");
+        await(() -> listener.getAppliedCount() == 1);
+
+        assertEquals(0, cache.size());
+        assertEquals(0, lastKnownGood.size());
+    }
+
+    @Test
+    void testFirstResyncWaitsForCacheRestore() throws Exception {
+        InMemoryVerificationCache restarted = new InMemoryVerificationCache(100, Duration.ofHours(1));
+        CompletableFuture<Integer> restored = new CompletableFuture<>();
+        try (RevocationListener waiting = new RevocationListener(
+                new HttpRevocationEventSource(server.eventsUrl(), Duration.ofSeconds(1), Duration.ofSeconds(5)),
+                restarted, LastKnownGoodStore.disabled(), Duration.ofMillis(10), Duration.ofMillis(100), restored)) {
+            Thread.sleep(100);
+            assertEquals(0, waiting.getResyncCount());
+            assertEquals(1, server.getConnections());
+
+            // A snapshot restored late brings back a token revoked while the instance was down
+            restarted.put(BOB, new TokenVerificationResponse("bob", "bob@example.com", UserStatus.ACTIVE));
+            restored.complete(1);
+            await(() -> waiting.getResyncCount() == 1);
+
+            assertNull(restarted.get(BOB));
+        }
+    }
+
+    private void populate() {
+        put(ALICE_WEB, "alice");
+        put(ALICE_MOBILE, "alice");
+        put(BOB, "bob");
+    }
+
+    private void put(TokenKey key, String username) {
+        TokenVerificationResponse user = new TokenVerificationResponse(username, username + "@example.com", UserStatus.ACTIVE);
+        cache.put(key, user);
+        lastKnownGood.put(key, user);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.leveledcv.tokenAuthenticationLib.service;
+
+import com.leveledcv.tokenAuthenticationLib.service.AdmissionThrottle.Decision;
+import com.leveledcv.tokenAuthenticationLib.support.MutableClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionThrottleTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void testClientBurstThenSustainedRate() {
+        AdmissionThrottle throttle = AdmissionThrottle.builder()
+                .maxKeys(1024)
+                .clientLimit(10, 3)
+                .tokenPrefix("Bearer ")
+                .clock(clock)
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Decision.ADMITTED, throttle.admit("10.0.0.1", "Bearer token-" + i));
+        }
+        assertEquals(Decision.CLIENT_THROTTLED, throttle.admit("10.0.0.1", "Bearer token-3"));
+        assertEquals(Decision.ADMITTED, throttle.admit("10.0.0.2", "Bearer token-3"), "other clients are unaffected");
+
+        clock.advance(Duration.ofMillis(100));
+
+        assertEquals(Decision.ADMITTED, throttle.admit("10.0.0.1", "Bearer token-4"));
+        assertEquals(Decision.CLIENT_THROTTLED, throttle.admit("10.0.0.1", "Bearer token-5"));
+        assertEquals(5, throttle.getAdmittedCount());
+        assertEquals(2, throttle.getClientThrottledCount());
+    }
+
+    @Test
+    void testTokensAreThrottledByPrefixAcrossClients() {
+        AdmissionThrottle throttle = AdmissionThrottle.builder()
+                .maxKeys(1024)
+                .tokenLimit(1, 2)
+                .tokenPrefix("Bearer ")
+                .tokenPrefixLength(4)
+                .clock(clock)
+                .build();
+
+        assertEquals(Decision.ADMITTED, throttle.admit("10.0.0.1", "Bearer abcd-1"));
+        assertEquals(Decision.ADMITTED, throttle.admit("10.0.0.2", "Bearer abcd-2"));
+        assertEquals(Decision.TOKEN_THROTTLED, throttle.admit("10.0.0.3", "Bearer abcd-3"));
+        assertEquals(Decision.ADMITTED, throttle.admit("10.0.0.3", "Bearer wxyz-1"));
+        assertEquals(Decision.ADMITTED, throttle.admit(null, "wxyz-2"), "the configured prefix is not part of the key");
+        assertEquals(Decision.TOKEN_THROTTLED, throttle.admit(null, "Bearer wxyz-3"));
+        assertEquals(2, throttle.getTokenThrottledCount());
+    }
+
+    @Test
+    void testIdleBucketsAreReusedWithinFixedTable() {
+        AdmissionThrottle throttle = AdmissionThrottle.builder()
+                .maxKeys(16)
+                .clientLimit(10, 1)
+                .clock(clock)
+                .build();
+
+        // Far more keys than slots, each idle again before the next round
+        for (int round = 0; round < 3; round++) {
+            for (int client = 0; client < 1000; client++) {
+                assertEquals(Decision.ADMITTED, throttle.admit("client-" + round + "-" + client, "token"));
+                clock.advance(Duration.ofMillis(100));
+            }
+        }
+
+        assertEquals(Decision.ADMITTED, throttle.admit("10.0.0.1", "token"));
+        assertEquals(Decision.CLIENT_THROTTLED, throttle.admit("10.0.0.1", "token"),
+                "a busy bucket is kept even after its slot was used by thousands of other keys");
+    }
+
+    @Test
+    void testDisabledThrottleAdmitsEverything() {
+        AdmissionThrottle disabled = AdmissionThrottle.disabled();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Decision.ADMITTED, disabled.admit("10.0.0.1", "Bearer token"));
+        }
+        assertFalse(disabled.isEnabled());
+    }
+}
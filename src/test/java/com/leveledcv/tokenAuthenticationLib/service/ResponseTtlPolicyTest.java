@@ -0,0 +1,66 @@
+package com.leveledcv.tokenAuthenticationLib.service;
+
+import com.leveledcv.tokenAuthenticationLib.cache.InMemoryVerificationCache;
+import com.leveledcv.tokenAuthenticationLib.cache.TokenKey;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import com.leveledcv.tokenAuthenticationLib.support.MutableClock;
+import com.leveledcv.tokenAuthenticationLib.verifier.VerificationResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseTtlPolicyTest {
+
+    private static final TokenVerificationResponse USER =
+            new TokenVerificationResponse("alice", "alice@example.com", UserStatus.ACTIVE);
+
+    private final MutableClock clock = new MutableClock();
+    private final ResponseTtlPolicy policy = new ResponseTtlPolicy(Duration.ofSeconds(30), Duration.ofSeconds(1),
+            Duration.ofMinutes(5), clock);
+
+    @Test
+    void testMaxAgeIsClampedToBounds() {
+        assertEquals(30_000, policy.ttlMillis(result(-1, -1)), "no metadata uses the default TTL");
+        assertEquals(120_000, policy.ttlMillis(result(120_000, -1)));
+        assertEquals(1_000, policy.ttlMillis(result(10, -1)));
+        assertEquals(300_000, policy.ttlMillis(result(3_600_000, -1)));
+        assertEquals(0, policy.ttlMillis(result(0, -1)), "no-store is never cached");
+    }
+
+    @Test
+    void testSessionExpiryCapsLifetime() {
+        long now = clock.millis();
+        assertEquals(10_000, policy.ttlMillis(result(120_000, now + 10_000)));
+        assertEquals(10_000, policy.ttlMillis(result(-1, now + 10_000)));
+        assertEquals(0, policy.ttlMillis(result(120_000, now - 1)));
+    }
+
+    @Test
+    void testPutStoresLifetimeAndETag() {
+        InMemoryVerificationCache cache = new InMemoryVerificationCache(10, Duration.ofSeconds(30), clock);
+        TokenKey key = TokenKey.of("Bearer token");
+
+        policy.put(cache, key, new VerificationResult(USER, 120_000, -1, "\"v1\"", false));
+        clock.advance(Duration.ofSeconds(100));
+        assertEquals(USER, cache.get(key));
+        assertEquals("\"v1\"", cache.etag(key));
+
+        policy.put(cache, key, result(0, -1));
+        assertNull(cache.get(key), "an uncacheable answer drops the cached one");
+    }
+
+    @Test
+    void testDisabledPolicyUsesConfiguredTtl() {
+        assertFalse(ResponseTtlPolicy.disabled().isEnabled());
+        assertEquals(-1, ResponseTtlPolicy.disabled().ttlMillis(result(0, clock.millis())));
+        assertThrows(IllegalArgumentException.class, () -> new ResponseTtlPolicy(Duration.ofSeconds(30),
+                Duration.ofMinutes(5), Duration.ofSeconds(1)));
+    }
+
+    private static VerificationResult result(long maxAgeMillis, long expiresAt) {
+        return new VerificationResult(USER, maxAgeMillis, expiresAt, null, false);
+    }
+}
@@ -1,38 +1,64 @@
 package com.leveledcv.tokenAuthenticationLib.service;
 
+import com.leveledcv.tokenAuthenticationLib.cache.InMemoryVerificationCache;
+import com.leveledcv.tokenAuthenticationLib.cache.LastKnownGoodStore;
+import com.leveledcv.tokenAuthenticationLib.cache.NegativeVerificationCache;
+import com.leveledcv.tokenAuthenticationLib.cache.TokenKey;
 import com.leveledcv.tokenAuthenticationLib.config.AuthProperties;
 import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
 import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import com.leveledcv.tokenAuthenticationLib.support.MutableClock;
+import com.leveledcv.tokenAuthenticationLib.verifier.RestTemplateTokenVerifier;
+import com.leveledcv.tokenAuthenticationLib.verifier.TokenVerificationException;
+import com.leveledcv.tokenAuthenticationLib.verifier.TokenVerifier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
+import org.springframework.test.web.client.response.DefaultResponseCreator;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 @ExtendWith(MockitoExtension.class)
 class TokenVerificationServiceTest {
 
-    @Mock
-    private RestTemplate restTemplate;
+    private static final String VERIFY_URL = "http://localhost:8081/token/verify";
+    private static final String ACTIVE_USER = "{\"username\":\"testuser\",\"status\":\"ACTIVE\"}";
+    private static final String SESSION_NOT_FOUND = "{\"error\":\"Session not found\"}";
 
     @Mock
     private AuthProperties authProperties;
 
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
     private TokenVerificationService tokenVerificationService;
 
     @BeforeEach
     void setUp() {
-        when(authProperties.getTokenVerifyUrl()).thenReturn("http://localhost:8081/token/verify");
+        when(authProperties.getTokenVerifyUrl()).thenReturn(VERIFY_URL);
+        restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
         tokenVerificationService = new TokenVerificationService(authProperties, restTemplate);
     }
 
@@ -40,13 +66,9 @@ class TokenVerificationServiceTest {
     void testVerifyToken_Success() {
         // Arrange
         String token = "Bearer valid-token";
-        Map<String, Object> responseMap = new HashMap<>();
-        responseMap.put("username", "testuser");
-        responseMap.put("email", "test@example.com");
-        responseMap.put("status", "ACTIVE");
-
-        ResponseEntity<Object> response = new ResponseEntity<>(responseMap, HttpStatus.OK);
-        when(restTemplate.exchange(anyString(), any(), any(), eq(Object.class))).thenReturn(response);
+        server.expect(requestTo(VERIFY_URL))
+                .andExpect(header(HttpHeaders.AUTHORIZATION, token))
+                .andRespond(json("{\"username\":\"testuser\",\"email\":\"test@example.com\",\"status\":\"ACTIVE\"}"));
 
         // Act
         TokenVerificationResponse result = tokenVerificationService.verifyToken(token);
@@ -62,11 +84,7 @@ class TokenVerificationServiceTest {
     void testVerifyToken_SessionNotFound() {
         // Arrange
         String token = "Bearer invalid-token";
-        Map<String, Object> responseMap = new HashMap<>();
-        responseMap.put("error", "Session not found");
-
-        ResponseEntity<Object> response = new ResponseEntity<>(responseMap, HttpStatus.OK);
-        when(restTemplate.exchange(anyString(), any(), any(), eq(Object.class))).thenReturn(response);
+        server.expect(requestTo(VERIFY_URL)).andRespond(json(SESSION_NOT_FOUND));
 
         // Act
         TokenVerificationResponse result = tokenVerificationService.verifyToken(token);
@@ -79,8 +97,7 @@ class TokenVerificationServiceTest {
     void testVerifyToken_Exception() {
         // Arrange
         String token = "Bearer error-token";
-        when(restTemplate.exchange(anyString(), any(), any(), eq(Object.class)))
-                .thenThrow(new RuntimeException("Network error"));
+        server.expect(requestTo(VERIFY_URL)).andRespond(failWith(new IOException("Network error")));
 
         // Act
         TokenVerificationResponse result = tokenVerificationService.verifyToken(token);
@@ -88,4 +105,400 @@ class TokenVerificationServiceTest {
         // Assert
         assertNull(result);
     }
+
+    @Test
+    void testVerifyToken_CachedAfterFirstSuccess() {
+        // Arrange
+        tokenVerificationService = serviceBuilder()
+                .verificationCache(new InMemoryVerificationCache(100, Duration.ofMinutes(1)))
+                .build();
+        server.expect(ExpectedCount.once(), requestTo(VERIFY_URL)).andRespond(json(ACTIVE_USER));
+
+        // Act
+        TokenVerificationResponse first = tokenVerificationService.verifyToken("Bearer cached-token");
+        TokenVerificationResponse second = tokenVerificationService.verifyToken("Bearer cached-token");
+
+        // Assert
+        assertEquals("testuser", first.getUsername());
+        assertEquals(first, second);
+        server.verify();
+    }
+
+    @Test
+    void testVerifyToken_HeaderSentUnchangedAndCachedByCredential() {
+        // Arrange
+        when(authProperties.getTokenPrefix()).thenReturn("Bearer ");
+        tokenVerificationService = serviceBuilder()
+                .verificationCache(new InMemoryVerificationCache(100, Duration.ofMinutes(1)))
+                .build();
+        server.expect(ExpectedCount.once(), requestTo(VERIFY_URL))
+                .andExpect(header(HttpHeaders.AUTHORIZATION, "bearer same-token"))
+                .andRespond(json(ACTIVE_USER));
+        server.expect(ExpectedCount.once(), requestTo(VERIFY_URL))
+                .andExpect(header(HttpHeaders.AUTHORIZATION, "other-token"))
+                .andRespond(json(ACTIVE_USER));
+
+        // Act
+        TokenVerificationResponse lowercase = tokenVerificationService.verifyToken("bearer same-token");
+        TokenVerificationResponse prefixed = tokenVerificationService.verifyToken("Bearer same-token");
+        TokenVerificationResponse unprefixed = tokenVerificationService.verifyToken("same-token");
+        tokenVerificationService.verifyToken("other-token");
+
+        // Assert
+        assertEquals("testuser", lowercase.getUsername());
+        assertEquals(lowercase, prefixed);
+        assertEquals(lowercase, unprefixed);
+        server.verify();
+    }
+
+    @Test
+    void testVerifyToken_RejectionRememberedInNegativeCache() {
+        // Arrange
+        tokenVerificationService = serviceBuilder()
+                .negativeCache(new NegativeVerificationCache(100, Duration.ofSeconds(5)))
+                .build();
+        server.expect(ExpectedCount.once(), requestTo(VERIFY_URL)).andRespond(json(SESSION_NOT_FOUND));
+
+        // Act
+        TokenVerificationResponse first = tokenVerificationService.verifyToken("Bearer dead-token");
+        TokenVerificationResponse second = tokenVerificationService.verifyToken("Bearer dead-token");
+
+        // Assert
+        assertNull(first);
+        assertNull(second);
+        server.verify();
+    }
+
+    @Test
+    void testVerifyToken_ServesLastKnownGoodWhileServiceFails() {
+        // Arrange
+        tokenVerificationService = serviceBuilder()
+                .circuitBreaker(CircuitBreaker.builder()
+                        .windowSize(10)
+                        .minimumCalls(2)
+                        .openDuration(Duration.ofMinutes(1))
+                        .halfOpenCalls(1)
+                        .build())
+                .lastKnownGood(new LastKnownGoodStore(100, Duration.ofMinutes(5)))
+                .build();
+        server.expect(requestTo(VERIFY_URL)).andRespond(json(ACTIVE_USER));
+        server.expect(requestTo(VERIFY_URL)).andRespond(failWith(new ConnectException("Connection refused")));
+
+        // Act
+        TokenVerificationResponse fresh = tokenVerificationService.verifyToken("Bearer known-token");
+        TokenVerificationResponse stale = tokenVerificationService.verifyToken("Bearer known-token");
+
+        // Assert
+        assertEquals("testuser", fresh.getUsername());
+        assertEquals(fresh, stale);
+    }
+
+    @Test
+    void testVerifyToken_ClientErrorRejectsTokenWithoutServingLastKnownGood() {
+        // Arrange
+        tokenVerificationService = serviceBuilder()
+                .circuitBreaker(CircuitBreaker.builder()
+                        .windowSize(10)
+                        .minimumCalls(2)
+                        .openDuration(Duration.ofMinutes(1))
+                        .halfOpenCalls(1)
+                        .build())
+                .lastKnownGood(new LastKnownGoodStore(100, Duration.ofMinutes(5)))
+                .build();
+        server.expect(requestTo(VERIFY_URL)).andRespond(json(ACTIVE_USER));
+        server.expect(requestTo(VERIFY_URL)).andRespond(withStatus(HttpStatus.UNAUTHORIZED));
+        server.expect(requestTo(VERIFY_URL)).andRespond(withStatus(HttpStatus.NOT_FOUND));
+        server.expect(requestTo(VERIFY_URL)).andRespond(json(ACTIVE_USER));
+
+        // Act
+        TokenVerificationResponse fresh = tokenVerificationService.verifyToken("Bearer revoked-token");
+        TokenVerificationResponse revoked = tokenVerificationService.verifyToken("Bearer revoked-token");
+        TokenVerificationResponse unknown = tokenVerificationService.verifyToken("Bearer unknown-token");
+        // Rejections are answers, so the breaker stays closed
+        TokenVerificationResponse next = tokenVerificationService.verifyToken("Bearer valid-token");
+
+        // Assert
+        assertEquals("testuser", fresh.getUsername());
+        assertNull(revoked);
+        assertNull(unknown);
+        assertEquals("testuser", next.getUsername());
+        server.verify();
+    }
+
+    @Test
+    void testVerifyToken_UnavailableWithoutLastKnownGood() {
+        // Arrange
+        tokenVerificationService = serviceBuilder()
+                .circuitBreaker(CircuitBreaker.builder()
+                        .windowSize(10)
+                        .minimumCalls(2)
+                        .openDuration(Duration.ofMinutes(1))
+                        .halfOpenCalls(1)
+                        .build())
+                .lastKnownGood(new LastKnownGoodStore(100, Duration.ofMinutes(5)))
+                .build();
+        server.expect(ExpectedCount.times(2), requestTo(VERIFY_URL))
+                .andRespond(failWith(new ConnectException("Connection refused")));
+
+        // Act & Assert
+        assertThrows(VerificationUnavailableException.class, () -> tokenVerificationService.verifyToken("Bearer a"));
+        assertThrows(VerificationUnavailableException.class, () -> tokenVerificationService.verifyToken("Bearer b"));
+        // The breaker is now open, so the service is no longer called
+        assertThrows(VerificationUnavailableException.class, () -> tokenVerificationService.verifyToken("Bearer c"));
+        server.verify();
+    }
+
+    @Test
+    void testVerifyToken_DeadlineServesLastKnownGoodOrFailsFast() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        TokenVerifier slowVerifier = token -> {
+            if (token.endsWith("slow")) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new TokenVerificationResponse("testuser", null, UserStatus.ACTIVE);
+        };
+        LastKnownGoodStore lastKnownGood = new LastKnownGoodStore(100, Duration.ofMinutes(5));
+        TokenKey slowKey = TokenKey.of("Bearer slow", "Bearer ");
+        lastKnownGood.put(slowKey, new TokenVerificationResponse("stale", null, UserStatus.ACTIVE));
+        when(authProperties.getTokenPrefix()).thenReturn("Bearer ");
+        try (DeadlineExecutor deadlineExecutor = new DeadlineExecutor(2)) {
+            tokenVerificationService = TokenVerificationService.builder(authProperties, slowVerifier)
+                    .lastKnownGood(lastKnownGood)
+                    .deadlineExecutor(deadlineExecutor)
+                    .build();
+
+            // Act
+            long start = System.nanoTime();
+            TokenVerificationResponse fallback = tokenVerificationService.verifyToken("Bearer slow",
+                    Deadline.after(Duration.ofMillis(50)));
+            long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            TokenVerificationResponse fresh = tokenVerificationService.verifyToken("Bearer fast",
+                    Deadline.after(Duration.ofSeconds(5)));
+            release.countDown();
+
+            // Assert
+            assertEquals("stale", fallback.getUsername());
+            assertTrue(elapsedMillis < 1000, "the caller stops waiting at the deadline");
+            assertEquals("testuser", fresh.getUsername());
+            assertThrows(VerificationUnavailableException.class, () -> tokenVerificationService.verifyToken(
+                    "Bearer unknown", Deadline.after(Duration.ZERO)));
+        }
+    }
+
+    @Test
+    void testVerifyToken_RefreshesHotEntryInBackground() throws Exception {
+        // Arrange
+        MutableClock clock = new MutableClock();
+        VerificationRefresher refresher = new VerificationRefresher(1, 10);
+        tokenVerificationService = serviceBuilder()
+                .verificationCache(new InMemoryVerificationCache(100, Duration.ofSeconds(30), 0, 0.5, clock))
+                .refresher(refresher)
+                .build();
+        server.expect(requestTo(VERIFY_URL)).andRespond(json(ACTIVE_USER));
+        server.expect(requestTo(VERIFY_URL)).andRespond(json("{\"username\":\"testuser\",\"status\":\"INACTIVE\"}"));
+
+        // Act
+        tokenVerificationService.verifyToken("Bearer hot-token");
+        clock.advance(Duration.ofSeconds(20));
+        TokenVerificationResponse served = tokenVerificationService.verifyToken("Bearer hot-token");
+        for (int i = 0; i < 100 && refresher.getRefreshedCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+        TokenVerificationResponse refreshed = tokenVerificationService.verifyToken("Bearer hot-token");
+        refresher.close();
+
+        // Assert
+        assertEquals(UserStatus.ACTIVE, served.getStatus());
+        assertEquals(UserStatus.INACTIVE, refreshed.getStatus());
+        server.verify();
+    }
+
+    @Test
+    void testVerifyToken_CachedForMaxAgeAndRevalidatedWithETag() throws Exception {
+        // Arrange
+        MutableClock clock = new MutableClock();
+        VerificationRefresher refresher = new VerificationRefresher(1, 10);
+        tokenVerificationService = serviceBuilder()
+                .verificationCache(new InMemoryVerificationCache(100, Duration.ofSeconds(30), 0, 0.5, clock))
+                .refresher(refresher)
+                .ttlPolicy(new ResponseTtlPolicy(Duration.ofSeconds(30), Duration.ofSeconds(1), Duration.ofMinutes(5),
+                        clock))
+                .build();
+        server.expect(requestTo(VERIFY_URL))
+                .andRespond(json(ACTIVE_USER).header(HttpHeaders.CACHE_CONTROL, "private, max-age=120")
+                        .header(HttpHeaders.ETAG, "\"v1\""));
+        server.expect(requestTo(VERIFY_URL))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED).header(HttpHeaders.CACHE_CONTROL, "max-age=120"));
+
+        // Act
+        tokenVerificationService.verifyToken("Bearer tagged-token");
+        // Past the configured TTL, but within max-age and past its refresh point
+        clock.advance(Duration.ofSeconds(61));
+        TokenVerificationResponse served = tokenVerificationService.verifyToken("Bearer tagged-token");
+        for (int i = 0; i < 100 && refresher.getRefreshedCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+        // Past the original expiry, before the extended entry is due for refresh
+        clock.advance(Duration.ofMillis(59_500));
+        TokenVerificationResponse revalidated = tokenVerificationService.verifyToken("Bearer tagged-token");
+        refresher.close();
+
+        // Assert
+        assertEquals("testuser", served.getUsername());
+        assertEquals(served, revalidated);
+        server.verify();
+    }
+
+    @Test
+    void testVerifyToken_NotCachedPastSessionExpiryOrWithNoStore() {
+        // Arrange
+        MutableClock clock = new MutableClock();
+        tokenVerificationService = serviceBuilder()
+                .verificationCache(new InMemoryVerificationCache(100, Duration.ofSeconds(30), clock))
+                .ttlPolicy(new ResponseTtlPolicy(Duration.ofSeconds(30), Duration.ofSeconds(1), Duration.ofMinutes(5),
+                        clock))
+                .build();
+        long sessionEnd = clock.instant().plusSeconds(10).getEpochSecond();
+        server.expect(ExpectedCount.times(2), requestTo(VERIFY_URL))
+                .andRespond(json("{\"username\":\"testuser\",\"expiresAt\":" + sessionEnd + "}")
+                        .header(HttpHeaders.CACHE_CONTROL, "max-age=300"));
+        server.expect(ExpectedCount.times(2), requestTo(VERIFY_URL))
+                .andRespond(json(ACTIVE_USER).header(HttpHeaders.CACHE_CONTROL, "no-store"));
+
+        // Act
+        tokenVerificationService.verifyToken("Bearer short-session");
+        clock.advance(Duration.ofSeconds(9));
+        tokenVerificationService.verifyToken("Bearer short-session");
+        clock.advance(Duration.ofSeconds(1));
+        tokenVerificationService.verifyToken("Bearer short-session");
+        tokenVerificationService.verifyToken("Bearer uncacheable");
+        tokenVerificationService.verifyToken("Bearer uncacheable");
+
+        // Assert
+        server.verify();
+    }
+
+    @Test
+    void testVerifyToken_NoStoreResponseNotServedAsLastKnownGood() {
+        // Arrange
+        tokenVerificationService = serviceBuilder()
+                .lastKnownGood(new LastKnownGoodStore(100, Duration.ofMinutes(5)))
+                .ttlPolicy(new ResponseTtlPolicy(Duration.ofSeconds(30), Duration.ofSeconds(1), Duration.ofMinutes(5)))
+                .build();
+        server.expect(requestTo(VERIFY_URL)).andRespond(json(ACTIVE_USER));
+        server.expect(requestTo(VERIFY_URL))
+                .andRespond(json(ACTIVE_USER).header(HttpHeaders.CACHE_CONTROL, "no-store"));
+        server.expect(requestTo(VERIFY_URL)).andRespond(failWith(new ConnectException("Connection refused")));
+
+        // Act
+        tokenVerificationService.verifyToken("Bearer private-token");
+        tokenVerificationService.verifyToken("Bearer private-token");
+        TokenVerificationResponse duringOutage = tokenVerificationService.verifyToken("Bearer private-token");
+
+        // Assert: the no-store answer also dropped the earlier result
+        assertNull(duringOutage);
+        server.verify();
+    }
+
+    @Test
+    void testVerifyToken_OnlyCacheMissesAreThrottled() {
+        // Arrange
+        tokenVerificationService = serviceBuilder()
+                .verificationCache(new InMemoryVerificationCache(100, Duration.ofMinutes(1)))
+                .admissionThrottle(AdmissionThrottle.builder()
+                        .maxKeys(1024)
+                        .clientLimit(1, 1)
+                        .tokenPrefix("Bearer ")
+                        .build())
+                .build();
+        server.expect(ExpectedCount.once(), requestTo(VERIFY_URL)).andRespond(json(ACTIVE_USER));
+
+        // Act
+        TokenVerificationResponse first = tokenVerificationService.verifyToken("Bearer hot-token", Deadline.none(),
+                "10.0.0.1");
+        TokenVerificationResponse cached = tokenVerificationService.verifyToken("Bearer hot-token", Deadline.none(),
+                "10.0.0.1");
+        AdmissionRejectedException throttled = assertThrows(AdmissionRejectedException.class,
+                () -> tokenVerificationService.verifyToken("Bearer cold-token", Deadline.none(), "10.0.0.1"));
+
+        // Assert
+        assertEquals("testuser", first.getUsername());
+        assertEquals(first, cached);
+        assertEquals(AdmissionThrottle.Decision.CLIENT_THROTTLED, throttled.getDecision());
+        server.verify();
+    }
+
+    @Test
+    void testVerifyTokens_UnavailableBatchServesLastKnownGoodOrFails() {
+        // Arrange
+        AtomicBoolean down = new AtomicBoolean();
+        TokenVerifier verifier = token -> {
+            if (down.get()) {
+                throw new TokenVerificationException("Connection refused");
+            }
+            return new TokenVerificationResponse("testuser", null, UserStatus.ACTIVE);
+        };
+        tokenVerificationService = TokenVerificationService.builder(authProperties, verifier)
+                .circuitBreaker(CircuitBreaker.builder()
+                        .windowSize(10)
+                        .minimumCalls(10)
+                        .openDuration(Duration.ofMinutes(1))
+                        .halfOpenCalls(1)
+                        .build())
+                .lastKnownGood(new LastKnownGoodStore(100, Duration.ofMinutes(5)))
+                .build();
+        tokenVerificationService.verifyTokens(List.of("Bearer known"));
+        down.set(true);
+
+        // Act
+        Map<String, TokenVerificationResponse> stale = tokenVerificationService.verifyTokens(List.of("Bearer known"));
+
+        // Assert
+        assertEquals("testuser", stale.get("Bearer known").getUsername());
+        // A token that cannot be verified is not reported as invalid
+        assertThrows(VerificationUnavailableException.class,
+                () -> tokenVerificationService.verifyTokens(List.of("Bearer known", "Bearer unknown")));
+    }
+
+    @Test
+    void testVerifyTokens_ThrottledAndBoundedByDeadline() {
+        // Arrange
+        TokenVerifier verifier = token -> new TokenVerificationResponse("testuser", null, UserStatus.ACTIVE);
+        tokenVerificationService = TokenVerificationService.builder(authProperties, verifier)
+                .admissionThrottle(AdmissionThrottle.builder()
+                        .maxKeys(1024)
+                        .clientLimit(1, 2)
+                        .tokenPrefix("Bearer ")
+                        .build())
+                .build();
+
+        // Act & Assert
+        assertThrows(VerificationUnavailableException.class, () -> tokenVerificationService.verifyTokens(
+                List.of("Bearer a"), Deadline.after(Duration.ZERO), "10.0.0.1"));
+        AdmissionRejectedException throttled = assertThrows(AdmissionRejectedException.class,
+                () -> tokenVerificationService.verifyTokens(List.of("Bearer b", "Bearer c"), Deadline.none(),
+                        "10.0.0.1"));
+        assertEquals(AdmissionThrottle.Decision.CLIENT_THROTTLED, throttled.getDecision());
+    }
+
+    private static DefaultResponseCreator json(String body) {
+        return withSuccess(body, MediaType.APPLICATION_JSON);
+    }
+
+    private static ResponseCreator failWith(IOException e) {
+        return request -> {
+            throw e;
+        };
+    }
+
+    private TokenVerificationService.Builder serviceBuilder() {
+        return TokenVerificationService.builder(authProperties,
+                new RestTemplateTokenVerifier(restTemplate, authProperties.getTokenVerifyUrl()));
+    }
 }
@@ -0,0 +1,91 @@
+package com.leveledcv.tokenAuthenticationLib.service;
+
+import com.leveledcv.tokenAuthenticationLib.cache.TokenKey;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerificationCoalescerTest {
+
+    @Test
+    void testConcurrentCallersShareOneVerification() throws Exception {
+        VerificationCoalescer coalescer = new VerificationCoalescer(Duration.ofSeconds(5));
+        TokenKey key = TokenKey.of("token");
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger remoteCalls = new AtomicInteger();
+        TokenVerificationResponse user = new TokenVerificationResponse("alice", "alice@example.com", UserStatus.ACTIVE);
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            List<Future<TokenVerificationResponse>> results = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                results.add(executor.submit(() -> coalescer.verify(key, () -> {
+                    remoteCalls.incrementAndGet();
+                    await(release);
+                    return user;
+                })));
+            }
+
+            while (coalescer.getIssuedCount() + coalescer.getCoalescedCount() < 10) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<TokenVerificationResponse> result : results) {
+                assertSame(user, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, remoteCalls.get());
+        assertEquals(1, coalescer.getIssuedCount());
+        assertEquals(9, coalescer.getCoalescedCount());
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    void testWaiterGivesUpAfterTimeout() throws Exception {
+        VerificationCoalescer coalescer = new VerificationCoalescer(Duration.ofMillis(50));
+        TokenKey key = TokenKey.of("token");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread leader = new Thread(() -> coalescer.verify(key, () -> {
+            started.countDown();
+            await(release);
+            return null;
+        }));
+        leader.start();
+        started.await();
+
+        try {
+            assertThrows(VerificationUnavailableException.class,
+                    () -> coalescer.verify(key, () -> fail("waiter must not issue its own call")));
+            assertEquals(1, coalescer.getCoalescedCount());
+        } finally {
+            release.countDown();
+            leader.join();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.leveledcv.tokenAuthenticationLib.support;
+
+import java.util.Random;
+
+/**
+ * Response delay of {@link StubTokenServer}, in milliseconds
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    long nextMillis(Random random);
+
+    static LatencyDistribution none() {
+        return random -> 0;
+    }
+
+    static LatencyDistribution fixed(long millis) {
+        return random -> millis;
+    }
+
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis + 1));
+    }
+
+    /**
+     * Long-tailed delay, typical of a service under load
+     *
+     * @param medianMillis 50th percentile
+     * @param p99Millis 99th percentile, greater than the median
+     */
+    static LatencyDistribution logNormal(double medianMillis, double p99Millis) {
+        double mu = Math.log(medianMillis);
+        double sigma = Math.log(p99Millis / medianMillis) / 2.326;
+        return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+}
@@ -0,0 +1,112 @@
+package com.leveledcv.tokenAuthenticationLib.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-JVM stand-in for the revocation event publisher.
+ * Serves a server-sent events stream at /revocations and pushes events to every open stream.
+ */
+public class StubRevocationServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<HttpExchange> streams = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger eventIds = new AtomicInteger();
+    private volatile String lastEventIdHeader;
+
+    public StubRevocationServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/revocations", this::handleStream);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String eventsUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/revocations";
+    }
+
+    /**
+     * Push an event with the next numeric id to every open stream
+     */
+    public void publish(String event, String data) {
+        StringBuilder message = new StringBuilder()
+                .append("id: ").append(eventIds.incrementAndGet()).append('\n')
+                .append("event: ").append(event).append('\n');
+        data.lines().forEach(line -> message.append("data: ").append(line).append('\n'));
+        write(message.append('\n').toString());
+    }
+
+    /**
+     * Push a comment, as sent by servers to keep idle streams alive
+     */
+    public void heartbeat() {
+        write(":\n\n");
+    }
+
+    /**
+     * Close every open stream, forcing clients to reconnect
+     */
+    public synchronized void disconnectAll() {
+        for (HttpExchange exchange : streams) {
+            streams.remove(exchange);
+            exchange.close();
+        }
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * @return the Last-Event-ID header of the most recent connection
+     */
+    public String getLastEventIdHeader() {
+        return lastEventIdHeader;
+    }
+
+    private void handleStream(HttpExchange exchange) throws IOException {
+        lastEventIdHeader = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        connections.incrementAndGet();
+        // Registered before the client sees the response, so no event published after it connects is missed.
+        // Response streams are not thread-safe: an event written while the headers are still being flushed
+        // could be lost, so both happen under the same lock.
+        synchronized (this) {
+            streams.add(exchange);
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            exchange.getResponseBody().flush();
+        }
+    }
+
+    private synchronized void write(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        for (HttpExchange exchange : streams) {
+            try {
+                OutputStream body = exchange.getResponseBody();
+                body.write(bytes);
+                body.flush();
+            } catch (IOException e) {
+                streams.remove(exchange);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        disconnectAll();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
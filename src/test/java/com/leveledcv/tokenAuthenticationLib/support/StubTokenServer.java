@@ -0,0 +1,196 @@
+package com.leveledcv.tokenAuthenticationLib.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-JVM stand-in for the token verification service.
+ * Serves GET /token/verify and POST /token/verify/batch for the tokens registered with {@link #addUser},
+ * or for any token once {@link #acceptAnyToken} is set. Latency, error rate and the share of tokens answered
+ * with "Session not found" can be configured to reproduce a degraded service.
+ */
+public class StubTokenServer implements AutoCloseable {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, TokenVerificationResponse> users = new ConcurrentHashMap<>();
+    private final AtomicInteger verifyCalls = new AtomicInteger();
+    private final AtomicInteger batchCalls = new AtomicInteger();
+    private final AtomicInteger errors = new AtomicInteger();
+    private volatile boolean acceptAnyToken;
+    private volatile LatencyDistribution latency = LatencyDistribution.none();
+    private volatile double errorRate;
+    private volatile double sessionNotFoundRatio;
+
+    public StubTokenServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/token/verify/batch", this::handleBatch);
+        server.createContext("/token/verify", this::handleVerify);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Accept the token (as sent in the Authorization header) for the given user
+     */
+    public StubTokenServer addUser(String token, TokenVerificationResponse user) {
+        users.put(token, user);
+        return this;
+    }
+
+    /**
+     * Accept every token, answering with a user derived from the token
+     */
+    public StubTokenServer acceptAnyToken() {
+        this.acceptAnyToken = true;
+        return this;
+    }
+
+    /**
+     * Delay every response by a value drawn from the distribution
+     */
+    public StubTokenServer latency(LatencyDistribution latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Answer this fraction of requests with 500 Internal Server Error
+     */
+    public StubTokenServer errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Reject this fraction of tokens with "Session not found". The same tokens are rejected on every call.
+     */
+    public StubTokenServer sessionNotFoundRatio(double sessionNotFoundRatio) {
+        this.sessionNotFoundRatio = sessionNotFoundRatio;
+        return this;
+    }
+
+    public String verifyUrl() {
+        return baseUrl() + "/token/verify";
+    }
+
+    public String batchUrl() {
+        return baseUrl() + "/token/verify/batch";
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public int getVerifyCalls() {
+        return verifyCalls.get();
+    }
+
+    public int getBatchCalls() {
+        return batchCalls.get();
+    }
+
+    /**
+     * @return number of requests answered with 500 because of {@link #errorRate}
+     */
+    public int getErrors() {
+        return errors.get();
+    }
+
+    private void handleVerify(HttpExchange exchange) throws IOException {
+        verifyCalls.incrementAndGet();
+        if (degrade(exchange)) {
+            return;
+        }
+        respond(exchange, resultFor(exchange.getRequestHeaders().getFirst("Authorization")));
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        batchCalls.incrementAndGet();
+        if (degrade(exchange)) {
+            return;
+        }
+        Map<?, ?> request = objectMapper.readValue(exchange.getRequestBody(), Map.class);
+        List<Object> results = new ArrayList<>();
+        for (Object token : (List<?>) request.get("tokens")) {
+            results.add(resultFor((String) token));
+        }
+        respond(exchange, Map.of("results", results));
+    }
+
+    /**
+     * Apply the configured latency and error rate
+     * @return true if the request was answered with an error
+     */
+    private boolean degrade(HttpExchange exchange) throws IOException {
+        long delay = latency.nextMillis(ThreadLocalRandom.current());
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            errors.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return true;
+        }
+        return false;
+    }
+
+    private Object resultFor(String token) {
+        TokenVerificationResponse user = token != null ? users.get(token) : null;
+        if (user == null && token != null && acceptAnyToken && !rejected(token)) {
+            String name = token.substring(token.lastIndexOf(' ') + 1);
+            user = new TokenVerificationResponse(name, name + "@example.com", UserStatus.ACTIVE);
+        }
+        if (user == null) {
+            return Map.of("error", "Session not found");
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("username", user.getUsername());
+        body.put("email", user.getEmail());
+        body.put("status", user.getStatus() != null ? user.getStatus().name() : null);
+        return body;
+    }
+
+    private boolean rejected(String token) {
+        return sessionNotFoundRatio > 0 && Math.floorMod(token.hashCode(), 10_000) < sessionNotFoundRatio * 10_000;
+    }
+
+    private static void respond(HttpExchange exchange, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,78 @@
+package com.leveledcv.tokenAuthenticationLib.verifier;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadBalancedTokenVerifierTest {
+
+    private static final TokenVerificationResponse USER =
+            new TokenVerificationResponse("testuser", "test@example.com", UserStatus.ACTIVE);
+
+    private final Map<String, Long> delayMillis = new ConcurrentHashMap<>(Map.of("http://a", 0L, "http://b", 10L));
+    private LoadBalancedTokenVerifier verifier;
+
+    @AfterEach
+    void tearDown() {
+        verifier.close();
+    }
+
+    @Test
+    void testSlowCallIsHedgedToAnotherEndpoint() {
+        verifier = verifier(100);
+        warmUp();
+        delayMillis.put("http://a", 2000L);
+        long hedged = verifier.getHedgedCount();
+
+        long start = System.nanoTime();
+        assertEquals(USER, verifier.verify("Bearer token"));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1000, "answered by the hedged call");
+        assertEquals(hedged + 1, verifier.getHedgedCount());
+    }
+
+    @Test
+    void testNoHedgeWithoutBudget() {
+        verifier = verifier(0);
+        warmUp();
+        delayMillis.put("http://a", 200L);
+
+        long start = System.nanoTime();
+        assertEquals(USER, verifier.verify("Bearer token"));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 200, "waited for the only call");
+        assertEquals(0, verifier.getHedgedCount());
+    }
+
+    /**
+     * Give the endpoints a latency history in which "a" is the faster one
+     */
+    private void warmUp() {
+        for (int i = 0; i < 64; i++) {
+            verifier.verify("Bearer token");
+        }
+        assertTrue(verifier.getEndpoints().getHedgeDelayNanos() > 0);
+    }
+
+    private LoadBalancedTokenVerifier verifier(double hedgeBudgetPercent) {
+        VerificationEndpoints endpoints = new VerificationEndpoints(List.of("http://a", "http://b"), 3,
+                Duration.ofSeconds(10), 0.95, Duration.ofMillis(20), hedgeBudgetPercent, Clock.systemUTC());
+        return new LoadBalancedTokenVerifier(endpoints, url -> token -> {
+            try {
+                Thread.sleep(delayMillis.get(url));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return USER;
+        }, 4);
+    }
+}
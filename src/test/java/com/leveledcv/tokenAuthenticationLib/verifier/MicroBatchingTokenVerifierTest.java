@@ -0,0 +1,98 @@
+package com.leveledcv.tokenAuthenticationLib.verifier;
+
+import com.leveledcv.tokenAuthenticationLib.cache.InMemoryVerificationCache;
+import com.leveledcv.tokenAuthenticationLib.cache.NegativeVerificationCache;
+import com.leveledcv.tokenAuthenticationLib.config.AuthProperties;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import com.leveledcv.tokenAuthenticationLib.service.TokenVerificationService;
+import com.leveledcv.tokenAuthenticationLib.support.StubTokenServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MicroBatchingTokenVerifierTest {
+
+    private StubTokenServer server;
+    private RestTemplateTokenVerifier batchVerifier;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new StubTokenServer();
+        for (int i = 0; i < 10; i++) {
+            server.addUser("Bearer token-" + i, new TokenVerificationResponse("user" + i, "user" + i + "@example.com", UserStatus.ACTIVE));
+        }
+        batchVerifier = new RestTemplateTokenVerifier(new RestTemplate(), server.verifyUrl(), server.batchUrl(), 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testVerifyTokensUsesBatchEndpointAndCache() {
+        TokenVerificationService service = TokenVerificationService.builder(new AuthProperties(), batchVerifier)
+                .verificationCache(new InMemoryVerificationCache(100, Duration.ofMinutes(1)))
+                .negativeCache(new NegativeVerificationCache(100, Duration.ofMinutes(1)))
+                .build();
+
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tokens.add("Bearer token-" + i);
+        }
+        tokens.add("Bearer unknown");
+
+        Map<String, TokenVerificationResponse> first = service.verifyTokens(tokens);
+        Map<String, TokenVerificationResponse> second = service.verifyTokens(tokens);
+
+        assertEquals(10, first.size());
+        assertEquals("user3", first.get("Bearer token-3").getUsername());
+        assertFalse(first.containsKey("Bearer unknown"));
+        assertEquals(first, second);
+        // 11 tokens in batches of at most 4, second round served from the caches
+        assertEquals(3, server.getBatchCalls());
+        assertEquals(0, server.getVerifyCalls());
+    }
+
+    @Test
+    void testConcurrentSingleVerificationsAreGatheredIntoBatches() throws Exception {
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try (MicroBatchingTokenVerifier verifier = new MicroBatchingTokenVerifier(batchVerifier, Duration.ofMillis(50), 100)) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<TokenVerificationResponse>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                String token = "Bearer token-" + i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return verifier.verify(token);
+                }));
+            }
+            start.countDown();
+
+            for (int i = 0; i < callers; i++) {
+                assertEquals("user" + i, results.get(i).get(5, TimeUnit.SECONDS).getUsername());
+            }
+            assertNull(verifier.verify("Bearer unknown"));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, server.getVerifyCalls());
+        assertTrue(server.getBatchCalls() < callers, "expected tokens to share batch requests");
+    }
+}
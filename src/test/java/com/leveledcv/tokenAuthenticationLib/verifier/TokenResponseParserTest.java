@@ -0,0 +1,62 @@
+package com.leveledcv.tokenAuthenticationLib.verifier;
+
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenResponseParserTest {
+
+    @Test
+    void testReadSkipsUnknownFields() throws IOException {
+        TokenVerificationResponse response = TokenResponseParser.read(bytes("{\"userId\":\"42\","
+                + "\"profile\":{\"username\":\"nested\",\"tags\":[1,2]},\"username\":\"alice\",\"roles\":[\"USER\"],"
+                + "\"email\":\"alice@example.com\",\"status\":\"ACTIVE\"}"));
+
+        assertEquals(new TokenVerificationResponse("alice", "alice@example.com", UserStatus.ACTIVE), response);
+    }
+
+    @Test
+    void testReadSessionNotFoundAndUnknownStatus() throws IOException {
+        assertNull(TokenResponseParser.read(bytes("{\"error\":\"Session not found\"}")));
+        assertNull(TokenResponseParser.read(bytes("[]")));
+        assertNull(TokenResponseParser.read(bytes("{\"username\":\"bob\",\"status\":\"SOMETHING_NEW\"}")).getStatus());
+        assertNull(UserStatus.fromName(null));
+        assertEquals(UserStatus.SUSPENDED, UserStatus.fromName("SUSPENDED"));
+        assertThrows(IOException.class, () -> TokenResponseParser.read(bytes("{\"username\":")));
+    }
+
+    @Test
+    void testReadSessionExpiry() throws IOException {
+        assertEquals(1_735_689_600_000L, TokenResponseParser.readBody(bytes(
+                "{\"username\":\"alice\",\"expiresAt\":1735689600}")).expiresAt());
+        assertEquals(1_735_689_600_000L, TokenResponseParser.readBody(bytes(
+                "{\"username\":\"alice\",\"sessionExpiresAt\":\"2025-01-01T00:00:00Z\"}")).expiresAt());
+        assertEquals(-1, TokenResponseParser.readBody(bytes("{\"username\":\"alice\",\"expiresAt\":\"soon\"}"))
+                .expiresAt());
+        assertNull(TokenResponseParser.readBody(bytes("{\"error\":\"Session not found\",\"expiresAt\":1}")).user());
+    }
+
+    @Test
+    void testReadBatch() throws IOException {
+        List<TokenVerificationResponse> results = TokenResponseParser.readBatch(new ByteArrayInputStream(bytes(
+                "{\"count\":3,\"results\":[{\"username\":\"alice\",\"status\":\"ACTIVE\"},"
+                        + "{\"error\":\"Session not found\"},null]}")));
+
+        assertEquals(3, results.size());
+        assertEquals("alice", results.get(0).getUsername());
+        assertNull(results.get(1));
+        assertNull(results.get(2));
+        assertNull(TokenResponseParser.readBatch(new ByteArrayInputStream(bytes("{\"count\":0}"))));
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
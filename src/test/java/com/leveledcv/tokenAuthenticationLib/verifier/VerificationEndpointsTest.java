@@ -0,0 +1,59 @@
+package com.leveledcv.tokenAuthenticationLib.verifier;
+
+import com.leveledcv.tokenAuthenticationLib.support.MutableClock;
+import com.leveledcv.tokenAuthenticationLib.verifier.VerificationEndpoints.Endpoint;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerificationEndpointsTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final VerificationEndpoints endpoints = new VerificationEndpoints(List.of("http://a", "http://b"),
+            2, Duration.ofSeconds(10), 0.95, Duration.ZERO, 0, clock);
+    private final Endpoint a = endpoints.getEndpoints().get(0);
+    private final Endpoint b = endpoints.getEndpoints().get(1);
+
+    @Test
+    void testPrefersEndpointWithLowerLatencyAndLoad() throws InterruptedException {
+        endpoints.onSuccess(a, endpoints.callStarted(a));
+        long slow = endpoints.callStarted(b);
+        Thread.sleep(20);
+        endpoints.onSuccess(b, slow);
+
+        assertSame(a, endpoints.choose(null));
+        assertSame(b, endpoints.choose(a), "the excluded endpoint is only picked when it is the only one");
+
+        // Enough calls in flight outweigh the latency advantage
+        for (int i = 0; i < 100_000; i++) {
+            endpoints.callStarted(a);
+        }
+        assertSame(b, endpoints.choose(null));
+    }
+
+    @Test
+    void testFailingEndpointLeavesRotationUntilEjectionEnds() {
+        endpoints.onFailure(a, endpoints.callStarted(a));
+        assertTrue(endpoints.isInRotation(a));
+        endpoints.onFailure(a, endpoints.callStarted(a));
+        assertFalse(endpoints.isInRotation(a));
+
+        for (int i = 0; i < 20; i++) {
+            assertSame(b, endpoints.choose(null));
+        }
+
+        clock.advance(Duration.ofSeconds(10));
+        assertTrue(endpoints.isInRotation(a));
+
+        // Still suspect: the next failure ejects it again, a success clears it
+        endpoints.onFailure(a, endpoints.callStarted(a));
+        assertFalse(endpoints.isInRotation(a));
+        clock.advance(Duration.ofSeconds(10));
+        endpoints.onSuccess(a, endpoints.callStarted(a));
+        endpoints.onFailure(a, endpoints.callStarted(a));
+        assertTrue(endpoints.isInRotation(a));
+    }
+}
@@ -0,0 +1,205 @@
+package com.leveledcv.tokenAuthenticationLib.web;
+
+import com.leveledcv.tokenAuthenticationLib.annotations.RequireAuth;
+import com.leveledcv.tokenAuthenticationLib.config.AuthProperties;
+import com.leveledcv.tokenAuthenticationLib.context.AuthenticationContext;
+import com.leveledcv.tokenAuthenticationLib.context.AuthenticationContextCarrier;
+import com.leveledcv.tokenAuthenticationLib.models.TokenVerificationResponse;
+import com.leveledcv.tokenAuthenticationLib.models.enums.UserStatus;
+import com.leveledcv.tokenAuthenticationLib.service.AdmissionRejectedException;
+import com.leveledcv.tokenAuthenticationLib.service.AdmissionThrottle;
+import com.leveledcv.tokenAuthenticationLib.service.Deadline;
+import com.leveledcv.tokenAuthenticationLib.service.TokenVerificationService;
+import com.leveledcv.tokenAuthenticationLib.util.AuthUtil;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RequireAuthFilterTest {
+
+    private final TokenVerificationService tokenVerificationService = mock(TokenVerificationService.class);
+    private final AuthProperties authProperties = new AuthProperties();
+
+    private AnnotationConfigWebApplicationContext context;
+    private RequireAuthHandlerIndex handlerIndex;
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.register(WebConfig.class);
+        context.refresh();
+
+        handlerIndex = new RequireAuthHandlerIndex(context.getBean(RequestMappingHandlerMapping.class));
+        handlerIndex.afterSingletonsInstantiated();
+
+        when(tokenVerificationService.verifyToken(eq("Bearer valid-token"), any(Deadline.class), any()))
+                .thenReturn(new TokenVerificationResponse("testuser", "test@example.com", UserStatus.ACTIVE));
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void testRejectsProtectedHandlerBeforeDispatch() throws Exception {
+        mockMvc(new RequireAuthFilter(handlerIndex, tokenVerificationService, authProperties))
+                .perform(get("/filter/protected"))
+                .andExpect(status().isForbidden());
+
+        verify(tokenVerificationService, never()).verifyToken(anyString(), any(Deadline.class), any());
+    }
+
+    @Test
+    void testAuthenticatesProtectedHandler() throws Exception {
+        mockMvc(new RequireAuthFilter(handlerIndex, tokenVerificationService, authProperties))
+                .perform(get("/filter/protected").header("Authorization", "Bearer valid-token"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("hello testuser"));
+    }
+
+    @Test
+    void testBindsUserThroughConfiguredCarrier() throws Exception {
+        AuthenticationContextCarrier carrier = new SingleThreadCarrier();
+        AuthenticationContext.setCarrier(carrier);
+        try {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/filter/protected");
+            request.addHeader("Authorization", "Bearer valid-token");
+            AtomicReference<TokenVerificationResponse> boundInChain = new AtomicReference<>();
+
+            new RequireAuthFilter(handlerIndex, tokenVerificationService, authProperties)
+                    .doFilter(request, new MockHttpServletResponse(), (req, res) -> boundInChain.set(carrier.current()));
+
+            assertEquals("testuser", boundInChain.get().getUsername());
+            assertNull(carrier.current());
+        } finally {
+            AuthenticationContext.setCarrier(null);
+        }
+    }
+
+    @Test
+    void testPassesThroughPublicHandler() throws Exception {
+        mockMvc(new RequireAuthFilter(handlerIndex, tokenVerificationService, authProperties))
+                .perform(get("/filter/public"))
+                .andExpect(status().isOk());
+
+        verify(tokenVerificationService, never()).verifyToken(anyString(), any(Deadline.class), any());
+    }
+
+    @Test
+    void testThrottledVerificationIsRejectedWith429() throws Exception {
+        authProperties.getAdmission().setClientAddressHeader("X-Forwarded-For");
+        when(tokenVerificationService.verifyToken(eq("Bearer busy-token"), any(Deadline.class), any()))
+                .thenThrow(new AdmissionRejectedException(AdmissionThrottle.Decision.CLIENT_THROTTLED));
+
+        mockMvc(new RequireAuthFilter(handlerIndex, tokenVerificationService, authProperties))
+                .perform(get("/filter/protected").header("Authorization", "Bearer busy-token")
+                        .header("X-Forwarded-For", "203.0.113.9, 198.51.100.7"))
+                .andExpect(status().isTooManyRequests());
+
+        verify(tokenVerificationService).verifyToken(eq("Bearer busy-token"), any(Deadline.class), eq("198.51.100.7"));
+    }
+
+    @Test
+    void testAsyncVerificationReleasesContainerThread() throws Exception {
+        authProperties.getFilter().setAsync(true);
+        RequireAuthFilter filter = new RequireAuthFilter(handlerIndex, tokenVerificationService, authProperties);
+        try {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/filter/protected");
+            request.setAsyncSupported(true);
+            request.addHeader("Authorization", "Bearer valid-token");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            AtomicReference<String> usernameInChain = new AtomicReference<>();
+
+            filter.doFilter(request, response, (req, res) -> fail("chain must not run before verification"));
+            assertTrue(request.isAsyncStarted());
+
+            MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (asyncContext.getDispatchedPath() == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertNotNull(asyncContext.getDispatchedPath());
+
+            request.setAsyncStarted(false);
+            request.setDispatcherType(DispatcherType.ASYNC);
+            filter.doFilter(request, response, (req, res) -> usernameInChain.set(AuthUtil.getUsername()));
+
+            assertEquals("testuser", usernameInChain.get());
+            assertNull(AuthUtil.getCurrentUser());
+        } finally {
+            filter.destroy();
+        }
+    }
+
+    private static final class SingleThreadCarrier implements AuthenticationContextCarrier {
+
+        private TokenVerificationResponse user;
+
+        @Override
+        public TokenVerificationResponse current() {
+            return user;
+        }
+
+        @Override
+        public <T, X extends Throwable> T callWith(TokenVerificationResponse user, Action<T, X> action) throws X {
+            TokenVerificationResponse previous = this.user;
+            this.user = user;
+            try {
+                return action.run();
+            } finally {
+                this.user = previous;
+            }
+        }
+    }
+
+    private MockMvc mockMvc(RequireAuthFilter filter) {
+        return MockMvcBuilders.webAppContextSetup(context).addFilters(filter).build();
+    }
+
+    @RestController
+    static class FilterTestController {
+
+        @RequireAuth
+        @GetMapping("/filter/protected")
+        String protectedEndpoint() {
+            return "hello " + AuthUtil.getUsername();
+        }
+
+        @GetMapping("/filter/public")
+        String publicEndpoint() {
+            return "public";
+        }
+    }
+
+    @EnableWebMvc
+    static class WebConfig {
+
+        @org.springframework.context.annotation.Bean
+        FilterTestController filterTestController() {
+            return new FilterTestController();
+        }
+    }
+}